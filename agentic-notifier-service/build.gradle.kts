@@ -15,6 +15,17 @@ java {
 
 repositories { mavenCentral() }
 
+// JMH benchmarks live in src/jmh/java; run with ./gradlew :agentic-notifier-service:jmh
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+configurations["jmhImplementation"].extendsFrom(configurations.implementation.get())
+configurations["jmhRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+
 dependencies {
     implementation(project(":common-events"))
     implementation("org.springframework.boot:spring-boot-starter-web")
@@ -26,11 +37,13 @@ dependencies {
 
     implementation("org.springframework.boot:spring-boot-starter-jdbc")
     implementation("org.springframework.boot:spring-boot-starter-web")
-    runtimeOnly("org.postgresql:postgresql:42.7.4")
+    implementation("org.postgresql:postgresql:42.7.4")
 
 
     implementation("org.springframework.boot:spring-boot-starter-mail")
 
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.springframework.kafka:spring-kafka-test")
 
@@ -44,6 +57,34 @@ dependencies {
     testCompileOnly ("org.projectlombok:lombok:1.18.32")
     testAnnotationProcessor ("org.projectlombok:lombok:1.18.32")
 
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+
 }
 
-tasks.withType<Test> { useJUnitPlatform() }
+// The memory tier's dot-product kernel uses the Vector API (incubating in 21); without the
+// module at runtime it falls back to scalar code. javac 21 has no -Xlint:-incubating; -Xlint:none
+// is what silences "using incubating module(s)", so javac's default lints are turned back on.
+val vectorModule = listOf("--add-modules", "jdk.incubator.vector")
+tasks.withType<JavaCompile> {
+    options.compilerArgs.addAll(vectorModule + listOf("-Xlint:none", "-Xlint:dep-ann,removal,preview"))
+}
+tasks.withType<JavaExec> { jvmArgs(vectorModule) }
+
+tasks.withType<Test> {
+    useJUnitPlatform()
+    jvmArgs(vectorModule)
+}
+
+// Defaults report ops/s and p99 (SampleTime) with the GC profiler for allocation rate.
+// Override with -PjmhArgs="DecisionEngineBenchmark -f 1 -wi 2 -i 3"
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val results = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    args = ((project.findProperty("jmhArgs") as String?)?.split(" ") ?: emptyList()) +
+            listOf("-prof", "gc", "-rf", "json", "-rff", results.path)
+    doFirst { results.parentFile.mkdirs() }
+}
@@ -0,0 +1,69 @@
+package com.viana.agentic;
+
+import com.viana.common.events.EnrichedAccountEvent;
+import com.viana.common.events.EventType;
+
+import java.time.Instant;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic event mix shared by the benchmarks. Roughly mirrors what the GenAI enrichment
+ * emits: mostly short "normal" summaries, some suspicious ones, a few long or missing ones.
+ */
+public final class BenchmarkEvents {
+
+    private static final String[] NORMAL = {
+            "Debit of 48.00 CAD at a grocery store. This appears to be normal.",
+            "Recurring payroll credit, normal transaction for this account.",
+            "Small card purchase consistent with previous activity; no unusual patterns.",
+    };
+
+    private static final String[] SUSPICIOUS = {
+            "Multiple high-value transfers within minutes, possible fraud.",
+            "Unusual login location followed by a large withdrawal.",
+            "Anomalous spending spike compared to the 90 day baseline; looks Suspicious.",
+    };
+
+    private static final String LONG = ("Customer performed a series of routine transactions across several "
+            + "merchants during the weekend including groceries fuel and online subscriptions. ").repeat(8)
+            + "Nothing stands out.";
+
+    private BenchmarkEvents() {
+    }
+
+    public static EnrichedAccountEvent[] mix(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        EnrichedAccountEvent[] events = new EnrichedAccountEvent[size];
+        for (int i = 0; i < size; i++) {
+            int bucket = random.nextInt(100);
+            String summary;
+            int risk;
+            if (bucket < 70) {
+                summary = NORMAL[random.nextInt(NORMAL.length)];
+                risk = random.nextInt(40);
+            } else if (bucket < 90) {
+                summary = SUSPICIOUS[random.nextInt(SUSPICIOUS.length)];
+                risk = 40 + random.nextInt(60);
+            } else if (bucket < 95) {
+                summary = LONG;
+                risk = random.nextInt(60);
+            } else {
+                summary = null;
+                risk = random.nextInt(100);
+            }
+            boolean credit = random.nextBoolean();
+            double amount = random.nextInt(50) == 0 ? -random.nextInt(10_000) : random.nextInt(5_000);
+            events[i] = EnrichedAccountEvent.builder()
+                    .eventId("E" + i)
+                    .accountId("ACC" + random.nextInt(1_000))
+                    .riskScore(risk)
+                    .summary(summary)
+                    .eventType(credit ? EventType.CREDIT : EventType.DEBIT)
+                    .amount(amount)
+                    .currency("CAD")
+                    .timestamp(Instant.parse("2025-01-01T00:00:00Z").plusSeconds(i))
+                    .build();
+        }
+        return events;
+    }
+}
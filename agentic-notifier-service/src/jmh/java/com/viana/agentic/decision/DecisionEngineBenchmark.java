@@ -0,0 +1,46 @@
+package com.viana.agentic.decision;
+
+import com.viana.agentic.BenchmarkEvents;
+import com.viana.agentic.model.AgentDecision;
+import com.viana.common.events.EnrichedAccountEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecisionEngineBenchmark {
+
+    private DecisionEngine engine;
+    private EnrichedAccountEvent[] events;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        engine = new DecisionEngine(Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC));
+        events = BenchmarkEvents.mix(4096, 42);
+    }
+
+    @Benchmark
+    public AgentDecision decide() {
+        EnrichedAccountEvent e = events[next];
+        next = (next + 1) & (events.length - 1);
+        return engine.decide(e);
+    }
+}
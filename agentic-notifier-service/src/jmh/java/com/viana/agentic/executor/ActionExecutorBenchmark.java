@@ -0,0 +1,48 @@
+package com.viana.agentic.executor;
+
+import com.viana.agentic.BenchmarkEvents;
+import com.viana.agentic.decision.DecisionEngine;
+import com.viana.agentic.model.AgentDecision;
+import com.viana.common.events.EnrichedAccountEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActionExecutorBenchmark {
+
+    private EnrichedAccountEvent[] events;
+    private AgentDecision[] decisions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        DecisionEngine engine = new DecisionEngine();
+        events = BenchmarkEvents.mix(4096, 42);
+        decisions = new AgentDecision[events.length];
+        for (int i = 0; i < events.length; i++) {
+            decisions[i] = engine.decide(events[i]);
+        }
+    }
+
+    @Benchmark
+    public String emailBody() {
+        int i = next;
+        next = (next + 1) & (events.length - 1);
+        return ActionExecutor.emailBody(decisions[i], events[i]);
+    }
+}
@@ -0,0 +1,74 @@
+package com.viana.agentic.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.viana.agentic.BenchmarkEvents;
+import com.viana.agentic.decision.DecisionEngine;
+import com.viana.agentic.model.AgentDecision;
+import com.viana.common.events.EnrichedAccountEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same ObjectMapper setup as spring-kafka's JsonSerializer/JsonDeserializer, i.e. what the
+ * listener and AuditPublisher pay per record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventJsonBenchmark {
+
+    private final ObjectMapper mapper = JacksonUtils.enhancedObjectMapper();
+
+    private EnrichedAccountEvent[] events;
+    private byte[][] eventJson;
+    private AgentDecision[] decisions;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        DecisionEngine engine = new DecisionEngine();
+        events = BenchmarkEvents.mix(1024, 42);
+        eventJson = new byte[events.length][];
+        decisions = new AgentDecision[events.length];
+        for (int i = 0; i < events.length; i++) {
+            eventJson[i] = mapper.writeValueAsBytes(events[i]);
+            decisions[i] = engine.decide(events[i]);
+        }
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = (next + 1) & (events.length - 1);
+        return i;
+    }
+
+    @Benchmark
+    public EnrichedAccountEvent deserializeEvent() throws IOException {
+        return mapper.readValue(eventJson[nextIndex()], EnrichedAccountEvent.class);
+    }
+
+    @Benchmark
+    public byte[] serializeEvent() throws IOException {
+        return mapper.writeValueAsBytes(events[nextIndex()]);
+    }
+
+    @Benchmark
+    public byte[] serializeDecision() throws IOException {
+        return mapper.writeValueAsBytes(decisions[nextIndex()]);
+    }
+}
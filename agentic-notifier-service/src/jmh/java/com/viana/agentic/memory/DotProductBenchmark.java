@@ -0,0 +1,54 @@
+package com.viana.agentic.memory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Scoring a full hot-tier slab (256 x 384 floats) against one query, scalar vs Vector API. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DotProductBenchmark {
+
+    private static final int DIM = 384;
+    private static final int ROWS = 256;
+
+    private float[] slab;
+    private float[] query;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(3);
+        slab = new float[ROWS * DIM];
+        query = new float[DIM];
+        for (int i = 0; i < slab.length; i++) slab[i] = (float) random.nextGaussian();
+        for (int i = 0; i < DIM; i++) query[i] = (float) random.nextGaussian();
+    }
+
+    @Benchmark
+    public double scalar() {
+        double best = Double.NEGATIVE_INFINITY;
+        for (int r = 0; r < ROWS; r++) best = Math.max(best, VectorMath.scalarDot(slab, r * DIM, query, 0, DIM));
+        return best;
+    }
+
+    @Benchmark
+    public double vectorApi() {
+        double best = Double.NEGATIVE_INFINITY;
+        for (int r = 0; r < ROWS; r++) best = Math.max(best, SimdDot.dot(slab, r * DIM, query, 0, DIM));
+        return best;
+    }
+}
@@ -0,0 +1,33 @@
+package com.viana.agentic.memory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** One in-JVM embedding of a typical memory text (~200 chars, 384 dims). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashingEmbeddingBenchmark {
+
+    private final HashingEmbeddingProvider provider = new HashingEmbeddingProvider(384);
+    private final String text = "eventType=LOGIN_FAILED riskScore=87 signals=[NEW_DEVICE, GEO_MISMATCH] "
+            + "decision=NOTIFY_CUSTOMER rationale=Risk signal: severity=HIGH, riskScore=87, trigger=keyword "
+            + "'suspicious login from new device'.";
+
+    @Benchmark
+    public float[] embed() {
+        return provider.embed(text);
+    }
+}
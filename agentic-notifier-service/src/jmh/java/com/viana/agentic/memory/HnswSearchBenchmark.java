@@ -0,0 +1,64 @@
+package com.viana.agentic.memory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Top-5 recall from one account's HNSW partition of 384-dim memories. */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HnswSearchBenchmark {
+
+    private static final int DIM = 384;
+
+    @Param({"1000", "20000"})
+    public int memories;
+
+    @Param({"64"})
+    public int efSearch;
+
+    private HnswGraph graph;
+    private float[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(11);
+        graph = new HnswGraph(16, 100, 1);
+        for (int i = 0; i < memories; i++) {
+            float[] v = vector(random);
+            graph.add(new StoredMemory(i, "ACC1", "E" + i, "memory " + i, Instant.EPOCH, v), VectorMath.normalize(v));
+        }
+        queries = new float[256][];
+        for (int i = 0; i < queries.length; i++) queries[i] = VectorMath.normalize(vector(random));
+    }
+
+    private static float[] vector(SplittableRandom random) {
+        float[] v = new float[DIM];
+        for (int i = 0; i < DIM; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+
+    @Benchmark
+    public List<MemoryHit> search() {
+        float[] q = queries[next++ & (queries.length - 1)];
+        return graph.search(q, 5, efSearch, null, null);
+    }
+}
@@ -0,0 +1,185 @@
+package com.viana.agentic.memory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-JVM model of {@link PgVectorStore}'s quantized search: a full scan of one account's
+ * memories by halfvec cosine or bit Hamming distance, then an exact re-rank of
+ * {@code topK * rerankFactor} candidates. Reports the scan cost per mode and, at tear-down, the
+ * recall@5 against the exact top 5. Memories are clustered (topics plus noise), which is closer
+ * to sentence embeddings than uniform random vectors. The recall figures carry over to
+ * Postgres; the halfvec timing does not, since Java has no fast float16 dot product.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuantizedScanBenchmark {
+
+    private static final int DIM = 384;
+    private static final int TOP_K = 5;
+
+    @Param({"5000"})
+    public int memories;
+
+    @Param({"4", "10"})
+    public int rerankFactor;
+
+    private float[][] full;
+    private short[][] half;
+    private long[][] bits;
+    private float[][] queries;
+    private int next;
+
+    private long recalled;
+    private long expected;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(5);
+        float[][] topics = new float[64][];
+        for (int t = 0; t < topics.length; t++) topics[t] = gaussian(random, 1);
+
+        full = new float[memories][];
+        half = new short[memories][];
+        bits = new long[memories][];
+        for (int i = 0; i < memories; i++) {
+            float[] v = gaussian(random, 0.6);
+            float[] topic = topics[random.nextInt(topics.length)];
+            for (int d = 0; d < DIM; d++) v[d] += topic[d];
+            full[i] = VectorMath.normalize(v);
+            half[i] = toHalf(full[i]);
+            bits[i] = toBits(full[i]);
+        }
+        queries = new float[256][];
+        for (int q = 0; q < queries.length; q++) {
+            float[] v = gaussian(random, 0.3);
+            float[] base = full[random.nextInt(memories)];
+            for (int d = 0; d < DIM; d++) v[d] = v[d] / 20 + base[d];
+            queries[q] = VectorMath.normalize(v);
+        }
+    }
+
+    private static float[] gaussian(SplittableRandom random, double scale) {
+        float[] v = new float[DIM];
+        for (int d = 0; d < DIM; d++) v[d] = (float) (random.nextGaussian() * scale);
+        return v;
+    }
+
+    private static short[] toHalf(float[] v) {
+        short[] h = new short[v.length];
+        for (int d = 0; d < v.length; d++) h[d] = Float.floatToFloat16(v[d]);
+        return h;
+    }
+
+    private static long[] toBits(float[] v) {
+        long[] b = new long[(v.length + 63) / 64];
+        for (int d = 0; d < v.length; d++) if (v[d] > 0) b[d >>> 6] |= 1L << d;
+        return b;
+    }
+
+    @Benchmark
+    public int[] exact() {
+        float[] q = queries[next++ & 255];
+        double[] dist = new double[memories];
+        for (int i = 0; i < memories; i++) dist[i] = 1 - VectorMath.dot(q, full[i]);
+        return top(dist, TOP_K);
+    }
+
+    @Benchmark
+    public int[] halfvec() {
+        float[] q = queries[next++ & 255];
+        float[] qh = new float[DIM];
+        for (int d = 0; d < DIM; d++) qh[d] = Float.float16ToFloat(Float.floatToFloat16(q[d]));
+        double[] dist = new double[memories];
+        for (int i = 0; i < memories; i++) {
+            short[] h = half[i];
+            double dot = 0;
+            for (int d = 0; d < DIM; d++) dot += qh[d] * Float.float16ToFloat(h[d]);
+            dist[i] = 1 - dot;
+        }
+        return rerank(q, top(dist, TOP_K * rerankFactor));
+    }
+
+    @Benchmark
+    public int[] bit() {
+        float[] q = queries[next++ & 255];
+        long[] qb = toBits(q);
+        double[] dist = new double[memories];
+        for (int i = 0; i < memories; i++) {
+            long[] b = bits[i];
+            int hamming = 0;
+            for (int w = 0; w < b.length; w++) hamming += Long.bitCount(b[w] ^ qb[w]);
+            dist[i] = hamming;
+        }
+        return rerank(q, top(dist, TOP_K * rerankFactor));
+    }
+
+    private int[] rerank(float[] q, int[] candidates) {
+        double[] dist = new double[candidates.length];
+        for (int c = 0; c < candidates.length; c++) dist[c] = 1 - VectorMath.dot(q, full[candidates[c]]);
+        int[] order = top(dist, TOP_K);
+        int[] result = new int[order.length];
+        for (int i = 0; i < order.length; i++) result[i] = candidates[order[i]];
+        return result;
+    }
+
+    /** Indexes of the {@code k} smallest distances, nearest first (insertion into a sorted prefix). */
+    private static int[] top(double[] dist, int k) {
+        k = Math.min(k, dist.length);
+        int[] idx = new int[k];
+        double[] best = new double[k];
+        Arrays.fill(best, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < dist.length; i++) {
+            double d = dist[i];
+            if (d >= best[k - 1]) continue;
+            int at = k - 1;
+            while (at > 0 && best[at - 1] > d) {
+                best[at] = best[at - 1];
+                idx[at] = idx[at - 1];
+                at--;
+            }
+            best[at] = d;
+            idx[at] = i;
+        }
+        return idx;
+    }
+
+    @TearDown(Level.Trial)
+    public void recall() {
+        for (String mode : new String[]{"halfvec", "bit"}) {
+            recalled = 0;
+            expected = 0;
+            for (int q = 0; q < queries.length; q++) {
+                next = q;
+                int[] exact = exact();
+                next = q;
+                int[] approx = mode.equals("halfvec") ? halfvec() : bit();
+                for (int e : exact) {
+                    expected++;
+                    for (int a : approx) if (a == e) recalled++;
+                }
+            }
+            System.out.printf("%n%s recall@%d with rerank-factor %d: %.3f%n",
+                    mode, TOP_K, rerankFactor, (double) recalled / expected);
+        }
+    }
+}
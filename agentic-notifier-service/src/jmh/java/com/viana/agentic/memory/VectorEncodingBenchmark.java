@@ -0,0 +1,75 @@
+package com.viana.agentic.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of getting one 384-dim embedding from the /embed response to the bytes sent to Postgres:
+ * JSON + List&lt;Double&gt; + decimal literal (the previous path) against float32 + PgVector binary.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorEncodingBenchmark {
+
+    private static final int DIM = 384;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] json;
+    private byte[] float32;
+
+    @Setup
+    public void setUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(7);
+        List<Double> v = new ArrayList<>(DIM);
+        ByteBuffer buf = ByteBuffer.allocate(DIM * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < DIM; i++) {
+            float f = (float) (random.nextDouble() * 2 - 1) / 20;
+            v.add((double) f);
+            buf.putFloat(f);
+        }
+        json = mapper.writeValueAsBytes(new EmbeddingResponse(List.of(v)));
+        float32 = buf.array();
+    }
+
+    @Benchmark
+    public String jsonToLiteral() throws IOException {
+        List<Double> v = mapper.readValue(json, EmbeddingResponse.class).vectors().get(0);
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (int i = 0; i < v.size(); i++) {
+            if (i > 0) sb.append(",");
+            sb.append(v.get(i));
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    @Benchmark
+    public byte[] float32ToBinary() {
+        PgVector v = new PgVector(HttpEmbeddingProvider.decodeFloat32(float32, 1).get(0));
+        byte[] out = new byte[v.lengthInBytes()];
+        v.toBytes(out, 0);
+        return out;
+    }
+}
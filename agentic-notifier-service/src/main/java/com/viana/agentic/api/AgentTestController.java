@@ -1,7 +1,7 @@
 package com.viana.agentic.api;
 
 import com.viana.agentic.executor.ActionExecutor;
-import com.viana.agentic.kafka.EnrichedEventListener;
+import com.viana.agentic.service.AgentPipeline;
 import com.viana.common.events.EnrichedAccountEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,15 +14,15 @@ import org.springframework.web.bind.annotation.*;
 public class AgentTestController {
     private static final Logger log = LoggerFactory.getLogger(ActionExecutor.class);
 
-    private final EnrichedEventListener listener;
+    private final AgentPipeline pipeline;
 
-    public AgentTestController(EnrichedEventListener listener) {
-        this.listener = listener;
+    public AgentTestController(AgentPipeline pipeline) {
+        this.pipeline = pipeline;
     }
 
     @PostMapping("/enriched-event")
     public ResponseEntity<?> testAgent(@RequestBody EnrichedAccountEvent event) {
-        listener.onMessage(event);
+        pipeline.handle(event);
         log.info("Agent Summary {}", event.summary());
         return ResponseEntity.accepted().build();
     }
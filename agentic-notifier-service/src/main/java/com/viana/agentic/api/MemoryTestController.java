@@ -1,9 +1,11 @@
 package com.viana.agentic.api;
 
 import com.viana.agentic.memory.MemoryHit;
+import com.viana.agentic.memory.MemoryQuery;
 import com.viana.agentic.memory.MemoryService;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -26,7 +28,16 @@ public class MemoryTestController {
     @GetMapping("/recall")
     public List<MemoryHit> recall(@RequestParam String accountId,
                                  @RequestParam(required = false) String excludeEventId,
-                                 @RequestParam String query) {
-        return memoryService.recallSimilar(accountId, excludeEventId, query);
+                                 @RequestParam String query,
+                                 @RequestParam(required = false) Duration window,
+                                 @RequestParam(required = false) Duration budget) {
+        if (budget != null) return memoryService.recallSimilar(accountId, excludeEventId, query, window, budget);
+        return memoryService.recallSimilar(accountId, excludeEventId, query, window);
+    }
+
+    @PostMapping("/recall/batch")
+    public List<List<MemoryHit>> recallBatch(@RequestBody List<MemoryQuery> queries,
+                                             @RequestParam(required = false) Duration window) {
+        return memoryService.recallSimilarBatch(queries, window);
     }
 }
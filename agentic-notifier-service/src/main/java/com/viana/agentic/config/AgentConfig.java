@@ -1,13 +1,17 @@
 package com.viana.agentic.config;
 
 import com.viana.agentic.decision.DecisionEngine;
+import com.viana.agentic.decision.RuleTable;
+import com.viana.agentic.features.VelocityStore;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Clock;
+
 @Configuration
 public class AgentConfig {
   @Bean
-  public DecisionEngine decisionEngine() {
-    return new DecisionEngine();
+  public DecisionEngine decisionEngine(VelocityStore velocityStore) {
+    return new DecisionEngine(Clock.systemUTC(), RuleTable.defaults(), velocityStore);
   }
 }
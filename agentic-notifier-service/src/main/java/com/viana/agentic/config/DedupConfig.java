@@ -0,0 +1,50 @@
+package com.viana.agentic.config;
+
+import com.viana.agentic.KafkaTopics;
+import com.viana.agentic.dedup.EventDeduplicator;
+import com.viana.agentic.dedup.ResultTopicDedupLoader;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+public class DedupConfig {
+
+    private static final Clock CLOCK = Clock.systemUTC();
+
+    @Bean
+    public EventDeduplicator eventDeduplicator(
+            @Value("${agentic.dedup.enabled:true}") boolean enabled,
+            @Value("${agentic.dedup.window:PT24H}") Duration window,
+            @Value("${agentic.dedup.buckets:24}") int buckets,
+            @Value("${agentic.dedup.expected-per-bucket:100000}") long expectedPerBucket,
+            @Value("${agentic.dedup.fpp:1.0E-6}") double fpp,
+            @Value("${agentic.dedup.exact-capacity:100000}") int exactCapacity,
+            MeterRegistry meterRegistry
+    ) {
+        return new EventDeduplicator(
+                enabled, window, buckets, expectedPerBucket, fpp, exactCapacity, CLOCK, meterRegistry);
+    }
+
+    // Warms the index up from the audit topics once the context is built, before any listener container starts.
+    // With async actions a result is published before the event's other actions are done, so only the
+    // decision, which follows them all (see AgentPipeline), shows an event as processed.
+    @Bean
+    public ResultTopicDedupLoader resultTopicDedupLoader(
+            EventDeduplicator eventDeduplicator,
+            @Value("${agentic.dedup.window:PT24H}") Duration window,
+            @Value("${agentic.dedup.warmup-timeout:PT30S}") Duration warmupTimeout,
+            @Value("${agentic.executor.async.enabled:false}") boolean asyncActions,
+            @Value("${agentic.exactly-once.enabled:false}") boolean exactlyOnce,
+            ConsumerFactory<Object, Object> consumerFactory
+    ) {
+        String resultTopic = asyncActions && !exactlyOnce ? null : KafkaTopics.OUT_RESULT;
+        return new ResultTopicDedupLoader(consumerFactory, resultTopic, KafkaTopics.OUT_DECISION,
+                CLOCK, eventDeduplicator, window, warmupTimeout);
+    }
+}
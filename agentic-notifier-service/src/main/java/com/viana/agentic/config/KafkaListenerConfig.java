@@ -0,0 +1,50 @@
+package com.viana.agentic.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+@Configuration
+public class KafkaListenerConfig {
+
+    public static final String BATCH_FACTORY = "batchListenerContainerFactory";
+    public static final String RECORD_FACTORY = "recordListenerContainerFactory";
+
+    // In exactly-once mode the record listener also commits its offset in a transaction of its own
+    // (see EnrichedEventListener), so it learns whether the commit happened; otherwise Boot's defaults.
+    @Bean(RECORD_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> recordListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            @Value("${agentic.exactly-once.enabled:false}") boolean exactlyOnce
+    ) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        if (exactlyOnce) {
+            factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+            factory.getContainerProperties().setKafkaAwareTransactionManager(null);
+        }
+        return factory;
+    }
+
+    // Batch listeners commit their own offsets (see EnrichedEventBatchListener), so the container must not,
+    // and in exactly-once mode the listener opens the transaction itself rather than the container.
+    @Bean(BATCH_FACTORY)
+    @ConditionalOnProperty(name = "agentic.listener.batch.enabled", havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory
+    ) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setKafkaAwareTransactionManager(null);
+        return factory;
+    }
+}
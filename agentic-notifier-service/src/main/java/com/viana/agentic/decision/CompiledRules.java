@@ -0,0 +1,231 @@
+package com.viana.agentic.decision;
+
+import com.viana.agentic.decision.DecisionEngine.Severity;
+import com.viana.agentic.features.VelocityMetric;
+import com.viana.agentic.features.VelocityStore;
+import com.viana.agentic.features.VelocityWindow;
+import com.viana.agentic.model.AgentAction;
+import com.viana.common.events.EnrichedAccountEvent;
+import com.viana.common.events.EventType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link RuleTable} compiled for evaluation: the first level of the tree is the event type
+ * (each branch keeps only the rules that can apply to it, in table order), the rest are primitive
+ * comparisons, keyword bitmask tests and velocity lookups. Immutable, so it can be swapped in
+ * with a single write.
+ */
+final class CompiledRules {
+
+    record VelocityCheck(EventType type, VelocityWindow window, VelocityMetric metric, double atLeast, double below) {
+
+        boolean matches(double value) {
+            return value >= atLeast && value < below;
+        }
+    }
+
+    record CompiledRule(
+            String name,
+            int minScore,
+            int maxScore,
+            double amountBelow,
+            double amountAtLeast,
+            boolean needsAmount,
+            int anyOf,
+            int allOf,
+            int noneOf,
+            VelocityCheck[] velocity,
+            Severity severity,
+            String trigger,
+            List<AgentAction> actions
+    ) {
+
+        boolean matches(int score, Double amount) {
+            if (score < minScore || score > maxScore) return false;
+            if (needsAmount) {
+                if (amount == null) return false;
+                double a = amount;
+                if (!(a < amountBelow) || !(a >= amountAtLeast)) return false;
+            }
+            return true;
+        }
+
+        boolean usesKeywords() {
+            return (anyOf | allOf | noneOf) != 0;
+        }
+
+        boolean matchesKeywords(int matched) {
+            return (anyOf == 0 || (matched & anyOf) != 0)
+                    && (matched & allOf) == allOf
+                    && (matched & noneOf) == 0;
+        }
+    }
+
+    private static final EventType[] EVENT_TYPES = EventType.values();
+
+    private final String version;
+    private final KeywordMatcher keywords;
+    private final CompiledRule[][] byEventType;     // [0] = no event type, [ordinal + 1] otherwise
+    private final int ruleCount;
+
+    private CompiledRules(String version, KeywordMatcher keywords, CompiledRule[][] byEventType, int ruleCount) {
+        this.version = version;
+        this.keywords = keywords;
+        this.byEventType = byEventType;
+        this.ruleCount = ruleCount;
+    }
+
+    String version() {
+        return version;
+    }
+
+    int ruleCount() {
+        return ruleCount;
+    }
+
+    /**
+     * First matching rule, or {@code null}. Keywords are only scanned, and the account key only
+     * hashed, once a rule needs them. Without a store every velocity feature reads as 0.
+     */
+    CompiledRule match(EnrichedAccountEvent e, VelocityStore velocity, long nowMillis) {
+        CompiledRule[] candidates = byEventType[e.eventType() == null ? 0 : e.eventType().ordinal() + 1];
+        int score = e.riskScore() == null ? 0 : e.riskScore();
+        int matched = -1;
+        long account = 0;
+
+        candidates:
+        for (CompiledRule rule : candidates) {
+            if (!rule.matches(score, e.amount())) continue;
+            if (rule.usesKeywords()) {
+                if (matched < 0) matched = keywords.match(e.summary());
+                if (!rule.matchesKeywords(matched)) continue;
+            }
+            for (VelocityCheck check : rule.velocity()) {
+                double value = 0;
+                if (velocity != null && e.accountId() != null) {
+                    if (account == 0) account = VelocityStore.key(e.accountId());
+                    value = velocity.value(account, check.type(), check.window(), check.metric(), nowMillis);
+                }
+                if (!check.matches(value)) continue candidates;
+            }
+            return rule;
+        }
+        return null;
+    }
+
+    /** Validates and compiles; throws {@link IllegalArgumentException} describing the first problem. */
+    static CompiledRules compile(RuleTable table) {
+        if (table.rules() == null) throw new IllegalArgumentException("Rule table has no rules");
+
+        Map<String, List<String>> sets = table.keywords() == null ? Map.of() : table.keywords();
+        if (sets.size() > Integer.SIZE - 1) {
+            throw new IllegalArgumentException("At most " + (Integer.SIZE - 1) + " keyword sets are supported");
+        }
+        Map<String, Integer> bits = new HashMap<>();
+        KeywordMatcher.Builder matcher = KeywordMatcher.builder();
+        for (Map.Entry<String, List<String>> set : sets.entrySet()) {
+            int bit = 1 << bits.size();
+            bits.put(set.getKey(), bit);
+            matcher.add(bit, set.getValue() == null ? List.of() : set.getValue());
+        }
+
+        List<List<CompiledRule>> branches = new ArrayList<>();
+        for (int i = 0; i <= EVENT_TYPES.length; i++) branches.add(new ArrayList<>());
+
+        for (int i = 0; i < table.rules().size(); i++) {
+            RuleTable.Rule rule = table.rules().get(i);
+            String name = rule.name() == null ? "rule#" + i : rule.name();
+            CompiledRule compiled = compileRule(name, rule, bits);
+
+            List<EventType> types = rule.when() == null ? null : rule.when().eventTypes();
+            if (types == null || types.isEmpty()) {
+                branches.forEach(b -> b.add(compiled));
+            } else {
+                for (EventType type : types) branches.get(type.ordinal() + 1).add(compiled);
+            }
+        }
+
+        CompiledRule[][] byEventType = new CompiledRule[branches.size()][];
+        for (int i = 0; i < branches.size(); i++) byEventType[i] = branches.get(i).toArray(CompiledRule[]::new);
+
+        return new CompiledRules(table.version(), matcher.build(), byEventType, table.rules().size());
+    }
+
+    private static CompiledRule compileRule(String name, RuleTable.Rule rule, Map<String, Integer> bits) {
+        Severity severity;
+        try {
+            severity = Severity.valueOf(String.valueOf(rule.severity()));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Rule '" + name + "': unknown severity " + rule.severity());
+        }
+        if (severity != Severity.NONE && (rule.actions() == null || rule.actions().isEmpty())) {
+            throw new IllegalArgumentException("Rule '" + name + "': severity " + severity + " needs at least one action");
+        }
+
+        RuleTable.Condition when = rule.when();
+        int minScore = Integer.MIN_VALUE, maxScore = Integer.MAX_VALUE;
+        double below = Double.POSITIVE_INFINITY, atLeast = Double.NEGATIVE_INFINITY;
+        int anyOf = 0, allOf = 0, noneOf = 0;
+        List<VelocityCheck> velocity = new ArrayList<>();
+        if (when != null) {
+            if (when.minRiskScore() != null) minScore = when.minRiskScore();
+            if (when.maxRiskScore() != null) maxScore = when.maxRiskScore();
+            if (when.amountBelow() != null) below = when.amountBelow();
+            if (when.amountAtLeast() != null) atLeast = when.amountAtLeast();
+            anyOf = mask(name, when.anyOf(), bits);
+            allOf = mask(name, when.allOf(), bits);
+            noneOf = mask(name, when.noneOf(), bits);
+            if (when.velocity() != null) {
+                for (RuleTable.VelocityCondition v : when.velocity()) velocity.add(velocityCheck(name, v));
+            }
+        }
+        boolean needsAmount = when != null && (when.amountBelow() != null || when.amountAtLeast() != null);
+
+        List<AgentAction> actions = new ArrayList<>();
+        if (severity != Severity.NONE) {
+            for (RuleTable.ActionSpec spec : rule.actions()) {
+                if (spec.type() == null) throw new IllegalArgumentException("Rule '" + name + "': action without type");
+                Map<String, Object> args = new LinkedHashMap<>();
+                if (spec.args() != null) args.putAll(spec.args());
+                args.put("severity", severity.name());
+                actions.add(new AgentAction(spec.type(), Map.copyOf(args)));
+            }
+        }
+
+        String trigger = rule.trigger() == null ? name : rule.trigger();
+        return new CompiledRule(name, minScore, maxScore, below, atLeast, needsAmount,
+                anyOf, allOf, noneOf, velocity.toArray(VelocityCheck[]::new), severity, trigger, List.copyOf(actions));
+    }
+
+    private static VelocityCheck velocityCheck(String rule, RuleTable.VelocityCondition v) {
+        try {
+            if (v.atLeast() == null && v.below() == null) {
+                throw new IllegalArgumentException("needs atLeast and/or below");
+            }
+            return new VelocityCheck(
+                    v.eventType(),
+                    VelocityWindow.fromLabel(String.valueOf(v.window())),
+                    VelocityMetric.fromName(String.valueOf(v.metric())),
+                    v.atLeast() == null ? Double.NEGATIVE_INFINITY : v.atLeast(),
+                    v.below() == null ? Double.POSITIVE_INFINITY : v.below());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Rule '" + rule + "': velocity condition " + ex.getMessage());
+        }
+    }
+
+    private static int mask(String rule, List<String> sets, Map<String, Integer> bits) {
+        if (sets == null) return 0;
+        int mask = 0;
+        for (String set : sets) {
+            Integer bit = bits.get(set);
+            if (bit == null) throw new IllegalArgumentException("Rule '" + rule + "': unknown keyword set " + set);
+            mask |= bit;
+        }
+        return mask;
+    }
+}
@@ -1,9 +1,10 @@
 package com.viana.agentic.decision;
 
+import com.viana.agentic.decision.CompiledRules.CompiledRule;
+import com.viana.agentic.features.VelocityStore;
 import com.viana.agentic.model.AgentAction;
 import com.viana.agentic.model.AgentDecision;
 import com.viana.common.events.EnrichedAccountEvent;
-import com.viana.common.events.EventType;
 import org.springframework.stereotype.Component;
 
 import java.time.Clock;
@@ -12,38 +13,63 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Evaluates the active {@link RuleTable}. The compiled table lives in a volatile field and is
+ * replaced wholesale by {@link #apply}, so a reload never pauses or half-applies to a decision.
+ */
 @Component
 public class DecisionEngine {
 
-    private static final String ACTION_NO_ACTION = "NO_ACTION";
-    private static final String ACTION_NOTIFY_EMAIL = "NOTIFY_EMAIL";
-
-    private static final int MEDIUM_THRESHOLD = 50;
-    private static final int HIGH_THRESHOLD = 80;
+    private static final List<AgentAction> NO_ACTION = List.of(new AgentAction("NO_ACTION", Map.of()));
 
     private final Clock clock;
+    private final VelocityStore velocity;
+    private volatile CompiledRules rules;
 
     public DecisionEngine() {
         this(Clock.systemUTC());
     }
 
     public DecisionEngine(Clock clock) {
+        this(clock, RuleTable.defaults());
+    }
+
+    public DecisionEngine(Clock clock, RuleTable table) {
+        this(clock, table, null);
+    }
+
+    /** {@code velocity} backs the rules' velocity conditions; without it they see zeroes. */
+    public DecisionEngine(Clock clock, RuleTable table, VelocityStore velocity) {
         this.clock = clock;
+        this.velocity = velocity;
+        this.rules = CompiledRules.compile(table);
+    }
+
+    /**
+     * Compiles and atomically installs a new rule table. Throws {@link IllegalArgumentException}
+     * (keeping the current table) if it is invalid.
+     */
+    public void apply(RuleTable table) {
+        this.rules = CompiledRules.compile(table);
+    }
+
+    public String rulesVersion() {
+        return rules.version();
     }
 
     public AgentDecision decide(EnrichedAccountEvent e) {
         String decisionId = UUID.randomUUID().toString();
         Instant now = Instant.now(clock);
 
-        Severity severity = classifySeverity(e);
+        CompiledRule rule = rules.match(e, velocity, VelocityStore.eventTime(e, now.toEpochMilli()));
 
-        if (severity == Severity.NONE) {
+        if (rule == null || rule.severity() == Severity.NONE) {
             return new AgentDecision(
                     decisionId,
                     e.eventId(),
                     e.accountId(),
                     now,
-                    List.of(new AgentAction(ACTION_NO_ACTION, Map.of())),
+                    NO_ACTION,
                     "No risk indicators detected."
             );
         }
@@ -53,81 +79,15 @@ public class DecisionEngine {
                 e.eventId(),
                 e.accountId(),
                 now,
-                List.of(new AgentAction(ACTION_NOTIFY_EMAIL, Map.of(
-                        "subject", buildSubject(severity),
-                        "severity",severity.name()
-                ))),
-                buildRationale(e, severity)
+                rule.actions(),
+                buildRationale(e, rule)
         );
     }
 
-    private String buildSubject(Severity severity) {
-        return severity == Severity.HIGH
-                ? "Suspicious account activity"
-                : "Account activity notification";
-    }
-
-    private String buildRationale(EnrichedAccountEvent e, Severity severity) {
+    private String buildRationale(EnrichedAccountEvent e, CompiledRule rule) {
         int score = e.riskScore() == null ? 0 : e.riskScore();
-        String summary = e.summary() == null ? "" : e.summary().toLowerCase();
-
-        boolean keywordFlag =
-                summary.contains("suspicious") ||
-                        summary.contains("fraud") ||
-                        summary.contains("anomal") ||
-                        summary.contains("unusual");
-
-        String trigger = (score >= HIGH_THRESHOLD) ? "score>=80"
-                : (score >= MEDIUM_THRESHOLD) ? "score>=50"
-                : keywordFlag ? "keyword(unusual/suspicious/...)"
-                : "none";
-
-        return "Risk signal: severity=" + severity + ", riskScore=" + score + ", trigger=" + trigger + ".";
+        return "Risk signal: severity=" + rule.severity() + ", riskScore=" + score + ", trigger=" + rule.trigger() + ".";
     }
 
-    private Severity classifySeverity(EnrichedAccountEvent e) {
-        Severity amountSeverity = classifyAmountAnomaly(e);
-        if (amountSeverity != Severity.NONE) {
-            return amountSeverity;
-        }
-
-        int score = (e.riskScore() == null) ? 0 : e.riskScore();
-        String summary = (e.summary() == null) ? "" : e.summary().toLowerCase();
-
-        boolean explicitlyNormal =
-                summary.contains("appears to be normal") ||
-                        summary.contains("normal transaction") ||
-                        summary.contains("no unusual");
-
-        boolean suspiciousKeywords =
-                summary.contains("suspicious") ||
-                        summary.contains("fraud") ||
-                        summary.contains("anomal") ||
-                        summary.contains("unusual");
-
-        if (score >= HIGH_THRESHOLD) return Severity.HIGH;
-        if (score >= MEDIUM_THRESHOLD && !explicitlyNormal) return Severity.MEDIUM;
-        if (suspiciousKeywords && !explicitlyNormal) return Severity.MEDIUM;
-
-        return Severity.NONE;
-    }
-
-    private Severity classifyAmountAnomaly(EnrichedAccountEvent e) {
-        if (e.amount() == null || e.eventType() == null) {
-            return Severity.NONE;
-        }
-
-        if (e.eventType() == EventType.CREDIT && e.amount() < 0) {
-            return Severity.HIGH;
-        }
-
-        if (e.eventType() == EventType.DEBIT && e.amount() < 0) {
-            return Severity.MEDIUM;
-        }
-
-        return Severity.NONE;
-    }
-
-
     enum Severity { NONE, MEDIUM, HIGH }
 }
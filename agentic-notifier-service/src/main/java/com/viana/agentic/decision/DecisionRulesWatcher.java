@@ -0,0 +1,100 @@
+package com.viana.agentic.decision;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the configured rule table into the {@link DecisionEngine} at startup (an invalid table fails
+ * the startup) and, when the table is a file, polls it and hot-swaps the compiled rules on change.
+ * A table that fails to parse or compile at runtime is logged and the current rules stay active.
+ */
+@Component
+public class DecisionRulesWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(DecisionRulesWatcher.class);
+
+    private final DecisionEngine engine;
+    private final Resource resource;
+    private final Counter reloaded;
+    private final Counter rejected;
+    private final ScheduledExecutorService poller;
+
+    private long lastModified;
+    private long lastRejected = -1;
+
+    public DecisionRulesWatcher(DecisionEngine engine,
+                                ResourceLoader resourceLoader,
+                                @Value("${agentic.decision.rules.location:classpath:decision-rules.json}") String location,
+                                @Value("${agentic.decision.rules.reload-interval:PT10S}") Duration reloadInterval,
+                                MeterRegistry meterRegistry) throws IOException {
+        this.engine = engine;
+        this.resource = resourceLoader.getResource(location);
+        this.reloaded = meterRegistry.counter("agentic.decision.rules.reloads", "outcome", "applied");
+        this.rejected = meterRegistry.counter("agentic.decision.rules.reloads", "outcome", "rejected");
+
+        if (resource.isFile()) {
+            lastModified = resource.lastModified();
+        }
+        engine.apply(read());
+        log.info("Decision rules '{}' loaded from {}", engine.rulesVersion(), location);
+
+        if (resource.isFile() && !reloadInterval.isZero()) {
+            poller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "decision-rules-watcher");
+                t.setDaemon(true);
+                return t;
+            });
+            long every = reloadInterval.toMillis();
+            poller.scheduleWithFixedDelay(this::poll, every, every, TimeUnit.MILLISECONDS);
+        } else {
+            poller = null;
+        }
+    }
+
+    void poll() {
+        long modified;
+        try {
+            modified = resource.lastModified();
+        } catch (IOException ex) {
+            log.warn("Cannot stat decision rules {}: {}", resource, ex.getMessage());
+            return;
+        }
+        if (modified == lastModified || modified == lastRejected) return;
+
+        try {
+            engine.apply(read());
+            lastModified = modified;
+            reloaded.increment();
+            log.info("Decision rules '{}' reloaded from {}", engine.rulesVersion(), resource);
+        } catch (IOException | RuntimeException ex) {
+            lastRejected = modified;
+            rejected.increment();
+            log.error("Rejected decision rules from {}, keeping '{}': {}", resource, engine.rulesVersion(), ex.getMessage());
+        }
+    }
+
+    private RuleTable read() throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return RuleTable.parse(in);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (poller != null) poller.shutdownNow();
+    }
+}
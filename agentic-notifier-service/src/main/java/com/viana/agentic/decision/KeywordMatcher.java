@@ -0,0 +1,170 @@
+package com.viana.agentic.decision;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Case-insensitive multi-phrase matcher (Aho-Corasick compiled to a dense DFA).
+ * Every phrase is tagged with a category bit; {@link #match} scans the text once, without
+ * allocating, and returns the OR of the categories of all phrases found. Scan cost depends on
+ * the text length only, not on how many phrases are configured.
+ */
+final class KeywordMatcher {
+
+    private final int width;        // number of character classes, class 0 = "not in any phrase"
+    private final int[] classOf;    // folded char -> class, indexed up to the highest phrase char
+    private final int[] delta;      // state * width + class -> next state
+    private final int[] output;     // state -> categories of every phrase ending here
+    private final int allCategories;
+
+    private KeywordMatcher(int width, int[] classOf, int[] delta, int[] output, int allCategories) {
+        this.width = width;
+        this.classOf = classOf;
+        this.delta = delta;
+        this.output = output;
+        this.allCategories = allCategories;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /** Returns the categories of all phrases occurring in {@code text}, or 0 for null/no match. */
+    int match(CharSequence text) {
+        if (text == null || allCategories == 0) return 0;
+
+        int state = 0;
+        int found = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = fold(text.charAt(i));
+            int cls = c < classOf.length ? classOf[c] : 0;
+            state = delta[state * width + cls];
+            found |= output[state];
+            if (found == allCategories) break;
+        }
+        return found;
+    }
+
+    int states() {
+        return output.length;
+    }
+
+    private static char fold(char c) {
+        if (c < 128) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    static final class Builder {
+
+        private final Map<String, Integer> phrases = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /** Adds phrases under the given category bit(s); blank phrases are ignored. */
+        Builder add(int category, Collection<String> values) {
+            if (category == 0) throw new IllegalArgumentException("category must have at least one bit set");
+            for (String value : values) {
+                if (value == null || value.isBlank()) continue;
+                String folded = foldAll(value.strip());
+                phrases.merge(folded, category, (a, b) -> a | b);
+            }
+            return this;
+        }
+
+        KeywordMatcher build() {
+            // character classes over the folded alphabet of all phrases
+            int maxChar = 0;
+            for (String p : phrases.keySet()) {
+                for (int i = 0; i < p.length(); i++) maxChar = Math.max(maxChar, p.charAt(i));
+            }
+            int[] classOf = new int[maxChar + 1];
+            int width = 1;
+            for (String p : phrases.keySet()) {
+                for (int i = 0; i < p.length(); i++) {
+                    char c = p.charAt(i);
+                    if (classOf[c] == 0) classOf[c] = width++;
+                }
+            }
+
+            // trie
+            List<int[]> go = new ArrayList<>();
+            List<Integer> out = new ArrayList<>();
+            go.add(newRow(width));
+            out.add(0);
+            int all = 0;
+            for (Map.Entry<String, Integer> e : phrases.entrySet()) {
+                String p = e.getKey();
+                int state = 0;
+                for (int i = 0; i < p.length(); i++) {
+                    int cls = classOf[p.charAt(i)];
+                    int next = go.get(state)[cls];
+                    if (next < 0) {
+                        next = go.size();
+                        go.add(newRow(width));
+                        out.add(0);
+                        go.get(state)[cls] = next;
+                    }
+                    state = next;
+                }
+                out.set(state, out.get(state) | e.getValue());
+                all |= e.getValue();
+            }
+
+            // failure links folded into the transition table, breadth first
+            int[] fail = new int[go.size()];
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            int[] root = go.get(0);
+            for (int cls = 0; cls < width; cls++) {
+                if (root[cls] < 0) {
+                    root[cls] = 0;
+                } else {
+                    fail[root[cls]] = 0;
+                    queue.add(root[cls]);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int r = queue.poll();
+                int[] row = go.get(r);
+                int[] failRow = go.get(fail[r]);
+                for (int cls = 0; cls < width; cls++) {
+                    int s = row[cls];
+                    if (s < 0) {
+                        row[cls] = failRow[cls];
+                    } else {
+                        fail[s] = failRow[cls];
+                        out.set(s, out.get(s) | out.get(fail[s]));
+                        queue.add(s);
+                    }
+                }
+            }
+
+            int[] delta = new int[go.size() * width];
+            int[] output = new int[go.size()];
+            for (int s = 0; s < go.size(); s++) {
+                System.arraycopy(go.get(s), 0, delta, s * width, width);
+                output[s] = out.get(s);
+            }
+            return new KeywordMatcher(width, classOf, delta, output, all);
+        }
+
+        private static int[] newRow(int width) {
+            int[] row = new int[width];
+            Arrays.fill(row, -1);
+            return row;
+        }
+
+        private static String foldAll(String s) {
+            char[] chars = s.toCharArray();
+            for (int i = 0; i < chars.length; i++) chars[i] = fold(chars[i]);
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.viana.agentic.decision;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.viana.common.events.EventType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declarative decision rules as loaded from JSON. Rules are evaluated top to bottom and the first
+ * one whose conditions all hold decides the severity and actions; no match means NO_ACTION.
+ * Keyword sets are named so conditions can refer to them via {@code anyOf}/{@code allOf}/{@code noneOf}.
+ */
+public record RuleTable(
+        String version,
+        Map<String, List<String>> keywords,
+        List<Rule> rules
+) {
+
+    static final String DEFAULT_RESOURCE = "/decision-rules.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public record Rule(
+            String name,
+            Condition when,
+            String severity,
+            String trigger,
+            List<ActionSpec> actions
+    ) {}
+
+    /** Every field is optional; an absent field does not constrain the match. */
+    public record Condition(
+            List<EventType> eventTypes,
+            Integer minRiskScore,
+            Integer maxRiskScore,
+            Double amountBelow,
+            Double amountAtLeast,
+            List<String> anyOf,
+            List<String> allOf,
+            List<String> noneOf,
+            List<VelocityCondition> velocity
+    ) {}
+
+    /**
+     * Bounds on a per-account velocity feature, e.g. DEBIT count over "1m" atLeast 10.
+     * {@code eventType} null means all types; {@code metric} is count, sum or max.
+     */
+    public record VelocityCondition(
+            EventType eventType,
+            String window,
+            String metric,
+            Double atLeast,
+            Double below
+    ) {}
+
+    public record ActionSpec(
+            String type,
+            Map<String, Object> args
+    ) {}
+
+    public static RuleTable parse(InputStream in) throws IOException {
+        return MAPPER.readValue(in, RuleTable.class);
+    }
+
+    /** The table bundled with the service, equivalent to the original hard-coded rules. */
+    public static RuleTable defaults() {
+        try (InputStream in = RuleTable.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) throw new IllegalStateException("Missing " + DEFAULT_RESOURCE);
+            return parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + DEFAULT_RESOURCE, e);
+        }
+    }
+}
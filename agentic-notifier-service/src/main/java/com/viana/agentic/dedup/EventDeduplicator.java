@@ -0,0 +1,96 @@
+package com.viana.agentic.dedup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Remembers which {@code EnrichedAccountEvent.eventId}s have already been fully processed so that
+ * Kafka redeliveries are skipped in O(1) without touching a database.
+ *
+ * <p>The most recent ids live in a bounded exact set. Older ids, up to {@code window}, are only
+ * held by a time-bucketed Bloom filter; a hit there is treated as a duplicate, so the configured
+ * false-positive rate is the probability of wrongly skipping a genuinely new event.
+ */
+public class EventDeduplicator {
+
+    private final boolean enabled;
+    private final Clock clock;
+    private final TimeBucketedBloomFilter bloom;
+
+    private final int exactCapacity;
+    private final Set<String> exact;
+    private final String[] ring;
+    private int ringHead;
+
+    private final Counter exactHits;
+    private final Counter bloomHits;
+
+    public EventDeduplicator(boolean enabled,
+                             Duration window,
+                             int buckets,
+                             long expectedPerBucket,
+                             double fpp,
+                             int exactCapacity,
+                             Clock clock,
+                             MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.clock = clock;
+        this.bloom = new TimeBucketedBloomFilter(
+                Math.max(1, window.toMillis() / buckets), buckets, expectedPerBucket, fpp);
+        this.exactCapacity = exactCapacity;
+        this.exact = new HashSet<>(Math.max(16, exactCapacity * 4 / 3 + 1));
+        this.ring = new String[exactCapacity];
+
+        this.exactHits = Counter.builder("agentic.dedup.skipped").tag("match", "exact").register(meterRegistry);
+        this.bloomHits = Counter.builder("agentic.dedup.skipped").tag("match", "bloom").register(meterRegistry);
+        meterRegistry.gauge("agentic.dedup.exact.size", this, EventDeduplicator::exactSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isDuplicate(String eventId) {
+        if (!enabled || eventId == null) return false;
+
+        synchronized (this) {
+            if (exact.contains(eventId)) {
+                exactHits.increment();
+                return true;
+            }
+        }
+        if (bloom.mightContain(eventId, clock.millis())) {
+            bloomHits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public void markProcessed(String eventId) {
+        markProcessed(eventId, clock.millis());
+    }
+
+    public void markProcessed(String eventId, long processedAtMillis) {
+        if (!enabled || eventId == null) return;
+
+        bloom.put(eventId, processedAtMillis, clock.millis());
+        if (exactCapacity == 0) return;
+
+        synchronized (this) {
+            if (!exact.add(eventId)) return;
+            String evicted = ring[ringHead];
+            if (evicted != null) exact.remove(evicted);
+            ring[ringHead] = eventId;
+            ringHead = (ringHead + 1) % exactCapacity;
+        }
+    }
+
+    private synchronized double exactSize() {
+        return exact.size();
+    }
+}
@@ -0,0 +1,167 @@
+package com.viana.agentic.dedup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Rebuilds the dedup index on startup by replaying the audit topics over the dedup window: the
+ * keys of the action-result topic (keyed by eventId), and the {@code eventId} field of the
+ * decision topic (keyed by accountId), which also covers events whose decision had no actions.
+ * Without a result topic only the decision topic is read.
+ * <p>
+ * Runs as a lifecycle phase just before the Kafka listener containers start, so bean creation is
+ * not held up and no event is consumed before the index is warm.
+ */
+public class ResultTopicDedupLoader implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultTopicDedupLoader.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final String resultTopic;
+    private final String decisionTopic;
+    private final Clock clock;
+    private final EventDeduplicator dedup;
+    private final Duration window;
+    private final Duration timeout;
+    private volatile boolean running;
+
+    public ResultTopicDedupLoader(ConsumerFactory<Object, Object> consumerFactory,
+                                  String resultTopic,
+                                  String decisionTopic,
+                                  Clock clock,
+                                  EventDeduplicator dedup,
+                                  Duration window,
+                                  Duration timeout) {
+        this.consumerFactory = consumerFactory;
+        this.resultTopic = resultTopic;
+        this.decisionTopic = decisionTopic;
+        this.clock = clock;
+        this.dedup = dedup;
+        this.window = window;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (dedup.isEnabled()) load();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // just before the listener containers
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+    }
+
+    public long load() {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long loaded = resultTopic == null ? 0 : replay(resultTopic, deadline, r -> r.key() == null ? null : (String) r.key());
+        loaded += replay(decisionTopic, deadline, ResultTopicDedupLoader::decisionEventId);
+        log.info("Dedup warm-up loaded {} eventIds from {}", loaded,
+                resultTopic == null ? decisionTopic : resultTopic + " and " + decisionTopic);
+        return loaded;
+    }
+
+    private interface IdExtractor {
+        String eventId(ConsumerRecord<Object, Object> record);
+    }
+
+    private long replay(String topic, long deadline, IdExtractor ids) {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+
+        long loaded = 0;
+        try (Consumer<Object, Object> consumer = consumerFactory.createConsumer(null, "agentic-dedup-loader", null, props)) {
+            Duration left = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+            List<PartitionInfo> partitions = consumer.partitionsFor(topic, left);
+            if (partitions == null || partitions.isEmpty()) {
+                log.info("Dedup warm-up: topic {} has no partitions yet", topic);
+                return 0;
+            }
+
+            Map<TopicPartition, Long> since = new HashMap<>();
+            long from = clock.millis() - window.toMillis();
+            for (PartitionInfo p : partitions) {
+                since.put(new TopicPartition(p.topic(), p.partition()), from);
+            }
+            consumer.assign(since.keySet());
+
+            Map<TopicPartition, OffsetAndTimestamp> start = consumer.offsetsForTimes(since, left);
+            Map<TopicPartition, Long> end = consumer.endOffsets(since.keySet(), left);
+            Map<TopicPartition, Long> remaining = new HashMap<>();
+            for (TopicPartition tp : since.keySet()) {
+                OffsetAndTimestamp s = start.get(tp);
+                long endOffset = end.getOrDefault(tp, 0L);
+                if (s != null && s.offset() < endOffset) {
+                    consumer.seek(tp, s.offset());
+                    remaining.put(tp, endOffset);
+                }
+            }
+            consumer.pause(new ArrayList<>(consumer.assignment().stream().filter(tp -> !remaining.containsKey(tp)).toList()));
+
+            while (!remaining.isEmpty() && System.nanoTime() < deadline) {
+                for (ConsumerRecord<Object, Object> r : consumer.poll(Duration.ofMillis(200))) {
+                    String eventId = ids.eventId(r);
+                    if (eventId != null) {
+                        dedup.markProcessed(eventId, r.timestamp());
+                        loaded++;
+                    }
+                }
+                remaining.entrySet().removeIf(e -> consumer.position(e.getKey()) >= e.getValue());
+            }
+
+            if (!remaining.isEmpty()) {
+                log.warn("Dedup warm-up of {} timed out after {} with {} partitions unread", topic, timeout, remaining.size());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Dedup warm-up from {} failed, starting with a partial index: {}", topic, ex.getMessage());
+        }
+        return loaded;
+    }
+
+    private static String decisionEventId(ConsumerRecord<Object, Object> record) {
+        if (!(record.value() instanceof byte[] value)) return null;
+        try {
+            JsonNode id = JSON.readTree(value).get("eventId");
+            return id != null && id.isTextual() ? id.asText() : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+}
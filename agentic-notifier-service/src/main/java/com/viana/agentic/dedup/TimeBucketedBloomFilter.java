@@ -0,0 +1,115 @@
+package com.viana.agentic.dedup;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A ring of Bloom filters, one per time bucket. Ids are inserted into the bucket of the time they
+ * were seen; a bucket is cleared and reused once it falls out of the window, so memory stays fixed
+ * while the filter covers {@code buckets × bucketMillis} of history.
+ * <p>
+ * A lookup checks every live bucket, so false positives add up across them; each bucket is sized
+ * for {@code fpp / buckets} to keep the filter as a whole at {@code fpp}.
+ */
+final class TimeBucketedBloomFilter {
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final int bitsPerBucket;
+    private final int hashes;
+
+    private final AtomicLongArray[] bits;
+    private final AtomicLongArray epochs;
+
+    TimeBucketedBloomFilter(long bucketMillis, int buckets, long expectedPerBucket, double fpp) {
+        if (bucketMillis <= 0 || buckets <= 0 || expectedPerBucket <= 0) {
+            throw new IllegalArgumentException("bucketMillis, buckets and expectedPerBucket must be positive");
+        }
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("fpp must be in (0, 1)");
+        }
+        this.bucketMillis = bucketMillis;
+        this.buckets = buckets;
+
+        double bucketFpp = fpp / buckets;
+        long m = (long) Math.ceil(-expectedPerBucket * Math.log(bucketFpp) / (Math.log(2) * Math.log(2)));
+        this.bitsPerBucket = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+        this.hashes = Math.max(1, (int) Math.round((double) bitsPerBucket / expectedPerBucket * Math.log(2)));
+
+        this.bits = new AtomicLongArray[buckets];
+        this.epochs = new AtomicLongArray(buckets);
+        for (int i = 0; i < buckets; i++) {
+            bits[i] = new AtomicLongArray((bitsPerBucket + 63) >>> 6);
+            epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    void put(String id, long atMillis, long nowMillis) {
+        long epoch = atMillis / bucketMillis;
+        if (epoch <= nowMillis / bucketMillis - buckets) return; // already outside the window
+
+        int slot = (int) Math.floorMod(epoch, (long) buckets);
+        AtomicLongArray bucket = epochs.get(slot) == epoch ? bits[slot] : claim(slot, epoch);
+        if (bucket == null) return;
+
+        long h = hash(id);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitsPerBucket);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            if ((bucket.get(word) & mask) == 0) {
+                bucket.getAndAccumulate(word, mask, (a, b) -> a | b);
+            }
+        }
+    }
+
+    boolean mightContain(String id, long nowMillis) {
+        long current = nowMillis / bucketMillis;
+        long h = hash(id);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+
+        for (int slot = 0; slot < buckets; slot++) {
+            long epoch = epochs.get(slot);
+            if (epoch > current || epoch <= current - buckets) continue;
+
+            AtomicLongArray bucket = bits[slot];
+            boolean all = true;
+            for (int i = 0; i < hashes && all; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitsPerBucket);
+                all = (bucket.get(bit >>> 6) & (1L << bit)) != 0;
+            }
+            if (all) return true;
+        }
+        return false;
+    }
+
+    private synchronized AtomicLongArray claim(int slot, long epoch) {
+        long owner = epochs.get(slot);
+        if (owner == epoch) return bits[slot];
+        if (owner > epoch) return null; // slot already recycled for a newer bucket
+
+        AtomicLongArray bucket = bits[slot];
+        for (int i = 0; i < bucket.length(); i++) {
+            bucket.set(i, 0L);
+        }
+        epochs.set(slot, epoch);
+        return bucket;
+    }
+
+    // 64-bit FNV-1a over UTF-16 chars followed by a murmur3 finalizer; no allocation.
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
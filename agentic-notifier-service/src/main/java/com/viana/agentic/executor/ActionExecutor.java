@@ -26,17 +26,27 @@ public class ActionExecutor {
             case "NOTIFY_EMAIL" -> {
                 Map<String, Object> args = action.args();
                 String subject = String.valueOf(args.getOrDefault("subject", "Agentic notification"));
-                String body =
-                        "Account: " + event.accountId() + "\n" +
-                        "EventId: " + event.eventId() + "\n" +
-                        "Summary: " + event.summary() + "\n" +
-                        "Rationale: " + decision.rationale() + "\n";
+                String body = emailBody(decision, event);
 
-                log.info("Sending email subject", subject);
+                String severity = String.valueOf(args.getOrDefault("severity", "MEDIUM"));
 
-                emailNotifier.send(subject, body);
+                log.info("Sending email subject {}", subject);
+
+                emailNotifier.notify(event.accountId(), severity, subject, body);
             }
             default -> throw new IllegalArgumentException("Action not supported: " + action.type());
         }
     }
+
+    /** True when {@link #execute} only queues {@code action} (e-mails in digest mode) rather than carrying it out. */
+    public boolean queuesOnly(AgentAction action) {
+        return "NOTIFY_EMAIL".equals(action.type()) && emailNotifier.queuesNotifications();
+    }
+
+    static String emailBody(AgentDecision decision, EnrichedAccountEvent event) {
+        return "Account: " + event.accountId() + "\n" +
+                "EventId: " + event.eventId() + "\n" +
+                "Summary: " + event.summary() + "\n" +
+                "Rationale: " + decision.rationale() + "\n";
+    }
 }
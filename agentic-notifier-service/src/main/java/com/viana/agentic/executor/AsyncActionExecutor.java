@@ -0,0 +1,294 @@
+package com.viana.agentic.executor;
+
+import com.viana.agentic.model.ActionResult;
+import com.viana.agentic.model.AgentAction;
+import com.viana.agentic.model.AgentDecision;
+import com.viana.common.events.EnrichedAccountEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs actions off the listener thread. Every action type gets its own bulkhead (bounded queue +
+ * concurrency limit) so a slow mail server cannot starve other action types or stall consumption.
+ * Failed attempts are retried from a timer with jittered exponential backoff; nothing sleeps.
+ */
+@Component
+public class AsyncActionExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncActionExecutor.class);
+
+    private record Task(AgentDecision decision,
+                        EnrichedAccountEvent event,
+                        AgentAction action,
+                        int attempt,
+                        long enqueuedAt,
+                        Consumer<ActionResult> onComplete) {
+
+        Task retry() {
+            return new Task(decision, event, action, attempt + 1, System.nanoTime(), onComplete);
+        }
+    }
+
+    private final ActionExecutor delegate;
+    private final boolean enabled;
+    private final int defaultConcurrency;
+    private final int defaultQueueCapacity;
+    private final Map<String, Integer> concurrencyByType;
+    private final Map<String, Integer> queueCapacityByType;
+    private final int maxAttempts;
+    private final long backoffInitialMillis;
+    private final long backoffMaxMillis;
+    private final Duration shutdownTimeout;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService retryTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "action-retry-timer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicInteger outstanding = new AtomicInteger();
+    // retries waiting on the timer; whoever removes a task owns it (the timer or shutdown)
+    private final Set<Task> pendingRetries = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    private final Counter retries;
+    private final Counter failures;
+
+    public AsyncActionExecutor(ActionExecutor delegate,
+                               @Value("${agentic.executor.async.enabled:false}") boolean enabled,
+                               @Value("${agentic.executor.async.concurrency:4}") int defaultConcurrency,
+                               @Value("${agentic.executor.async.queue-capacity:1000}") int defaultQueueCapacity,
+                               @Value("#{${agentic.executor.async.concurrency-by-type:{:}}}") Map<String, Integer> concurrencyByType,
+                               @Value("#{${agentic.executor.async.queue-capacity-by-type:{:}}}") Map<String, Integer> queueCapacityByType,
+                               @Value("${agentic.executor.async.retry.max-attempts:3}") int maxAttempts,
+                               @Value("${agentic.executor.async.retry.initial-backoff:PT1S}") Duration initialBackoff,
+                               @Value("${agentic.executor.async.retry.max-backoff:PT30S}") Duration maxBackoff,
+                               @Value("${agentic.executor.async.shutdown-timeout:PT30S}") Duration shutdownTimeout,
+                               MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.defaultConcurrency = defaultConcurrency;
+        this.defaultQueueCapacity = defaultQueueCapacity;
+        this.concurrencyByType = concurrencyByType;
+        this.queueCapacityByType = queueCapacityByType;
+        this.maxAttempts = maxAttempts;
+        this.backoffInitialMillis = initialBackoff.toMillis();
+        this.backoffMaxMillis = maxBackoff.toMillis();
+        this.shutdownTimeout = shutdownTimeout;
+        this.meterRegistry = meterRegistry;
+
+        this.retries = meterRegistry.counter("agentic.executor.retries");
+        this.failures = meterRegistry.counter("agentic.executor.failures");
+        meterRegistry.gauge("agentic.executor.outstanding", outstanding);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the action on its type's bulkhead; blocks only while that bulkhead's queue is full.
+     * {@code onComplete} receives exactly one result once the action succeeded or ran out of attempts.
+     */
+    public void submit(AgentDecision decision, EnrichedAccountEvent event, AgentAction action,
+                       Consumer<ActionResult> onComplete) {
+        outstanding.incrementAndGet();
+        bulkhead(action.type()).enqueue(new Task(decision, event, action, 1, System.nanoTime(), onComplete));
+    }
+
+    private Bulkhead bulkhead(String type) {
+        return bulkheads.computeIfAbsent(type, t -> new Bulkhead(t,
+                concurrencyByType.getOrDefault(t, defaultConcurrency),
+                queueCapacityByType.getOrDefault(t, defaultQueueCapacity)));
+    }
+
+    private void run(Bulkhead bulkhead, Task task) {
+        try {
+            delegate.execute(task.decision(), task.event(), task.action());
+            String done = delegate.queuesOnly(task.action()) ? "Queued" : "Executed successfully";
+            complete(task, true, task.attempt() == 1
+                    ? done
+                    : done + " after " + task.attempt() + " attempts");
+        } catch (IllegalArgumentException unsupported) {
+            complete(task, false, unsupported.getMessage());
+        } catch (Exception ex) {
+            if (task.attempt() >= maxAttempts) {
+                complete(task, false, ex.getMessage());
+                return;
+            }
+            long delay = backoff(task.attempt());
+            log.warn("Action {} for event {} failed (attempt {}/{}), retrying in {} ms: {}",
+                    task.action().type(), task.event().eventId(), task.attempt(), maxAttempts, delay, ex.getMessage());
+            retries.increment();
+            scheduleRetry(bulkhead, task.retry(), delay);
+        } finally {
+            bulkhead.latency.record(System.nanoTime() - task.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void scheduleRetry(Bulkhead bulkhead, Task task, long delayMillis) {
+        pendingRetries.add(task);
+        try {
+            retryTimer.schedule(() -> {
+                if (!pendingRetries.remove(task)) return;
+                // never block the timer thread: if the bulkhead is saturated, try again a little later
+                if (!bulkhead.offer(task)) {
+                    scheduleRetry(bulkhead, task, Math.max(10, delayMillis / 2));
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException shuttingDown) {
+            if (pendingRetries.remove(task)) {
+                complete(task, false, "Not retried, executor shut down after attempt " + (task.attempt() - 1));
+            }
+        }
+    }
+
+    private long backoff(int attempt) {
+        long exp = backoffInitialMillis << Math.min(attempt - 1, 20);
+        long capped = Math.min(backoffMaxMillis, exp);
+        return (long) (capped * (0.5 + ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private void complete(Task task, boolean success, String message) {
+        if (!success) failures.increment();
+        try {
+            task.onComplete().accept(new ActionResult(
+                    task.decision().decisionId(),
+                    task.event().eventId(),
+                    task.action().type(),
+                    Instant.now(),
+                    success,
+                    message
+            ));
+        } catch (RuntimeException ex) {
+            log.error("Completion callback failed for action {} of event {}",
+                    task.action().type(), task.event().eventId(), ex);
+        } finally {
+            outstanding.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (outstanding.get() > 0) {
+            log.warn("Shutting down with {} actions still queued or retrying", outstanding.get());
+        }
+        closed = true;
+        retryTimer.shutdownNow();
+        // every submitted action reports a result, including retries the timer will no longer run
+        // and tasks still waiting in a bulkhead, which no worker picks up any more
+        for (Task task : pendingRetries) {
+            if (pendingRetries.remove(task)) {
+                complete(task, false, "Not retried, executor shut down after attempt " + (task.attempt() - 1));
+            }
+        }
+        bulkheads.values().forEach(Bulkhead::failQueued);
+        workers.close();
+    }
+
+    private final class Bulkhead {
+
+        private final String type;
+        private final int concurrency;
+        private final BlockingQueue<Task> queue;
+        private final AtomicInteger active = new AtomicInteger();
+        private final Timer latency;
+
+        Bulkhead(String type, int concurrency, int queueCapacity) {
+            this.type = type;
+            this.concurrency = concurrency;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.latency = Timer.builder("agentic.executor.action.latency")
+                    .tag("type", type)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            Gauge.builder("agentic.executor.queue.depth", queue, BlockingQueue::size).tag("type", type).register(meterRegistry);
+            Gauge.builder("agentic.executor.active", active, AtomicInteger::get).tag("type", type).register(meterRegistry);
+        }
+
+        void enqueue(Task task) {
+            try {
+                queue.put(task);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                outstanding.decrementAndGet();
+                throw new IllegalStateException("Interrupted while queueing action " + type, ie);
+            }
+            dispatch();
+        }
+
+        boolean offer(Task task) {
+            if (!queue.offer(task)) return false;
+            dispatch();
+            return true;
+        }
+
+        void failQueued() {
+            Task task;
+            while ((task = queue.poll()) != null) {
+                complete(task, false, "Not run, executor shut down before attempt " + task.attempt());
+            }
+        }
+
+        private void dispatch() {
+            if (closed) {
+                // a task queued while shutting down is not left behind
+                failQueued();
+                return;
+            }
+            while (!queue.isEmpty()) {
+                int a = active.get();
+                if (a >= concurrency) return;
+                if (!active.compareAndSet(a, a + 1)) continue;
+
+                Task task = queue.poll();
+                if (task == null) {
+                    active.decrementAndGet();
+                    continue;
+                }
+                workers.execute(() -> {
+                    try {
+                        run(this, task);
+                    } finally {
+                        active.decrementAndGet();
+                        dispatch();
+                    }
+                });
+            }
+        }
+    }
+}
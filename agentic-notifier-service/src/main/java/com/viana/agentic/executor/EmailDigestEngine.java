@@ -0,0 +1,129 @@
+package com.viana.agentic.executor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces notifications per (recipient, account) over a time window into a single email.
+ * HIGH severity, or a digest reaching {@code maxEntries}, flushes its digest immediately.
+ */
+final class EmailDigestEngine implements AutoCloseable {
+
+    static final String HIGH = "HIGH";
+
+    record Notification(String accountId, String severity, String subject, String body) {}
+
+    private static final class Digest {
+        final String recipient;
+        final List<Notification> entries = new ArrayList<>();
+
+        Digest(String recipient) {
+            this.recipient = recipient;
+        }
+    }
+
+    private final Map<String, Digest> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "email-digest-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String from;
+    private final long windowMillis;
+    private final int maxEntries;
+    private final Consumer<SimpleMailMessage> sink;
+
+    private final Counter messagesIn;
+    private final Counter messagesOut;
+
+    EmailDigestEngine(String from, Duration window, int maxEntries, Consumer<SimpleMailMessage> sink, MeterRegistry meterRegistry) {
+        this.from = from;
+        this.windowMillis = window.toMillis();
+        this.maxEntries = maxEntries;
+        this.sink = sink;
+        this.messagesIn = meterRegistry.counter("agentic.email.digest.in");
+        this.messagesOut = meterRegistry.counter("agentic.email.digest.out");
+        meterRegistry.gauge("agentic.email.digest.pending", pending, Map::size);
+    }
+
+    void offer(String recipient, Notification n) {
+        messagesIn.increment();
+
+        String key = recipient + '\u0000' + n.accountId();
+        Digest[] created = new Digest[1];
+        int[] size = new int[1];
+        Digest digest = pending.compute(key, (k, d) -> {
+            if (d == null) {
+                d = new Digest(recipient);
+                created[0] = d;
+            }
+            d.entries.add(n);
+            size[0] = d.entries.size();
+            return d;
+        });
+
+        if (HIGH.equals(n.severity()) || size[0] >= maxEntries) {
+            flush(key, digest);
+        } else if (created[0] != null) {
+            timer.schedule(() -> flush(key, digest), windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void flushAll() {
+        pending.forEach(this::flush);
+    }
+
+    private void flush(String key, Digest digest) {
+        // only the digest instance that armed this flush may be taken; a newer one keeps its own timer.
+        // Once removed, no compute() can reach it any more, so its entries are final.
+        if (!pending.remove(key, digest)) return;
+
+        messagesOut.increment();
+        sink.accept(compose(digest.recipient, digest.entries));
+    }
+
+    private SimpleMailMessage compose(String recipient, List<Notification> entries) {
+        SimpleMailMessage msg = new SimpleMailMessage();
+        msg.setFrom(from);
+        msg.setTo(recipient);
+
+        if (entries.size() == 1) {
+            msg.setSubject(entries.get(0).subject());
+            msg.setText(entries.get(0).body());
+            return msg;
+        }
+
+        Notification headline = entries.stream()
+                .filter(e -> HIGH.equals(e.severity()))
+                .findFirst()
+                .orElse(entries.get(entries.size() - 1));
+        msg.setSubject("[" + entries.size() + " notifications] " + headline.subject());
+
+        StringBuilder body = new StringBuilder(entries.size() * 256);
+        for (int i = 0; i < entries.size(); i++) {
+            Notification e = entries.get(i);
+            if (i > 0) body.append("\n---\n");
+            body.append("Severity: ").append(e.severity()).append('\n').append(e.body());
+        }
+        msg.setText(body.toString());
+        return msg;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        flushAll();
+    }
+}
@@ -1,33 +1,59 @@
 package com.viana.agentic.executor;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 public class EmailNotifier {
 
+    private static final Logger log = LoggerFactory.getLogger(EmailNotifier.class);
+
     private final JavaMailSender mailSender;
     private final boolean enabled;
     private final String from;
     private final String to;
 
+    private final SmtpSessionPool sessions;
+    private final EmailDigestEngine digest;
+
     @PostConstruct
     void init() {
-        System.out.println("EMAIL CONFIG -> enabled=" + enabled + ", from=" + from + ", to=" + to);
+        log.info("Email config: enabled={}, from={}, to={}, digest={}", enabled, from, to, digest != null);
     }
 
     public EmailNotifier(JavaMailSender mailSender,
                          @Value("${agentic.email.enabled:true}") boolean enabled,
                          @Value("${agentic.email.from:agentic@local.dev}") String from,
-                         @Value("${agentic.email.to:ops@local.dev}") String to
+                         @Value("${agentic.email.to:ops@local.dev}") String to,
+                         @Value("${agentic.email.digest.enabled:false}") boolean digestEnabled,
+                         @Value("${agentic.email.digest.window:PT30S}") Duration digestWindow,
+                         @Value("${agentic.email.digest.max-entries:50}") int digestMaxEntries,
+                         @Value("${agentic.email.digest.smtp-sessions:2}") int smtpSessions,
+                         @Value("${agentic.email.digest.queue-capacity:1000}") int queueCapacity,
+                         @Value("${agentic.email.digest.session-idle:PT60S}") Duration sessionIdle,
+                         MeterRegistry meterRegistry
     ) {
         this.mailSender = mailSender;
         this.enabled = enabled;
         this.from = from;
         this.to = to;
+
+        if (enabled && digestEnabled) {
+            this.sessions = new SmtpSessionPool(mailSender, smtpSessions, queueCapacity, sessionIdle.toMillis(), meterRegistry);
+            this.digest = new EmailDigestEngine(from, digestWindow, digestMaxEntries, sessions::submit, meterRegistry);
+        } else {
+            this.sessions = null;
+            this.digest = null;
+        }
     }
 
     public void send(String subject, String body) {
@@ -40,4 +66,29 @@ public class EmailNotifier {
         msg.setText(body);
         mailSender.send(msg);
     }
+
+    /** Whether {@link #notify} only queues the notification (digest mode) instead of sending it. */
+    public boolean queuesNotifications() {
+        return enabled && digest != null;
+    }
+
+    /**
+     * Account-scoped notification. In digest mode it is coalesced with other notifications for the
+     * same recipient and account (HIGH goes out immediately); otherwise it is sent right away.
+     */
+    public void notify(String accountId, String severity, String subject, String body) {
+        if (!enabled) return;
+
+        if (digest == null) {
+            send(subject, body);
+            return;
+        }
+        digest.offer(to, new EmailDigestEngine.Notification(accountId, severity, subject, body));
+    }
+
+    @PreDestroy
+    void close() {
+        if (digest != null) digest.close();
+        if (sessions != null) sessions.close();
+    }
 }
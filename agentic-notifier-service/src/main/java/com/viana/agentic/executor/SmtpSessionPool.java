@@ -0,0 +1,214 @@
+package com.viana.agentic.executor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A few worker threads, each owning one long-lived SMTP connection, draining a shared queue.
+ * Connections are opened lazily, reused across messages and closed after an idle period.
+ */
+final class SmtpSessionPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SmtpSessionPool.class);
+
+    private static final int MAX_DRAIN = 32;
+    private static final long CLOSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    // queued by close(), one per worker: the worker that takes it stops after the batch in hand
+    private static final SimpleMailMessage STOP = new SimpleMailMessage();
+
+    private final JavaMailSender mailSender;
+    private final BlockingQueue<SimpleMailMessage> queue;
+    private final long idleMillis;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean abandoned;
+
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter unsent;
+
+    SmtpSessionPool(JavaMailSender mailSender, int sessions, int queueCapacity, long idleMillis, MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.idleMillis = idleMillis;
+        this.sent = meterRegistry.counter("agentic.email.smtp.sent");
+        this.failed = meterRegistry.counter("agentic.email.smtp.failed");
+        this.unsent = meterRegistry.counter("agentic.email.smtp.unsent");
+
+        for (int i = 0; i < sessions; i++) {
+            Thread t = new Thread(this::work, "smtp-session-" + i);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+    }
+
+    /**
+     * Queues a message; when the queue is full the caller blocks, which slows producers down to SMTP speed.
+     */
+    void submit(SimpleMailMessage message) {
+        try {
+            queue.put(message);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing email", ie);
+        }
+    }
+
+    private void work() {
+        Session session = new Session();
+        List<SimpleMailMessage> batch = new ArrayList<>(MAX_DRAIN);
+        try {
+            boolean stop = false;
+            while (!stop) {
+                SimpleMailMessage first = queue.poll(idleMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    session.close();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_DRAIN - 1);
+                int left = 0;
+                for (SimpleMailMessage msg : batch) {
+                    if (msg == STOP) {
+                        // another worker's stop goes back for it
+                        if (stop) queue.offer(STOP);
+                        stop = true;
+                    } else if (abandoned) {
+                        left++;
+                    } else {
+                        try {
+                            session.send(msg);
+                        } catch (RuntimeException ex) {
+                            // e.g. a message that cannot be converted; must not take the worker down
+                            failed.increment();
+                            session.close();
+                            log.error("SMTP send failed for subject '{}'", msg.getSubject(), ex);
+                        }
+                    }
+                }
+                batch.clear();
+                if (left > 0) {
+                    unsent.increment(left);
+                    log.warn("SMTP session closed with {} emails of its batch unsent", left);
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Lets the workers send what is queued and finish the batches in hand, for up to 10 s in all.
+     * Idle workers are woken so they stop without waiting out their poll. After that, workers still
+     * sending stop at their next message; whatever was not sent is counted as
+     * {@code agentic.email.smtp.unsent} and logged.
+     */
+    @Override
+    public void close() {
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT_NANOS;
+        try {
+            for (int i = 0; i < workers.size(); i++) {
+                if (!queue.offer(STOP, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) break;
+            }
+            for (Thread t : workers) {
+                t.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (workers.stream().anyMatch(Thread::isAlive)) {
+            abandoned = true;
+            for (Thread t : workers) t.interrupt();
+        }
+        List<SimpleMailMessage> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.removeIf(msg -> msg == STOP);
+        if (!left.isEmpty()) {
+            unsent.increment(left.size());
+            log.warn("Closing SMTP sessions with {} emails unsent", left.size());
+        }
+    }
+
+    private final class Session {
+
+        private Transport transport;
+
+        void send(SimpleMailMessage msg) {
+            if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+                sendWithoutSession(msg);
+                return;
+            }
+            try {
+                sendOver(impl, msg);
+            } catch (MessagingException first) {
+                close(); // stale connection; reconnect once
+                try {
+                    sendOver(impl, msg);
+                } catch (MessagingException second) {
+                    failed.increment();
+                    log.error("SMTP send failed for subject '{}'", msg.getSubject(), second);
+                }
+            }
+        }
+
+        private void sendOver(JavaMailSenderImpl impl, SimpleMailMessage msg) throws MessagingException {
+            MimeMessage mime = impl.createMimeMessage();
+            msg.copyTo(new MimeMailMessage(mime));
+            mime.saveChanges();
+            connected(impl).sendMessage(mime, mime.getAllRecipients());
+            sent.increment();
+        }
+
+        private Transport connected(JavaMailSenderImpl impl) throws MessagingException {
+            if (transport == null || !transport.isConnected()) {
+                transport = impl.getSession().getTransport(impl.getProtocol());
+                transport.connect(impl.getHost(), impl.getPort(), blankToNull(impl.getUsername()), blankToNull(impl.getPassword()));
+            }
+            return transport;
+        }
+
+        private void sendWithoutSession(SimpleMailMessage msg) {
+            try {
+                mailSender.send(msg);
+                sent.increment();
+            } catch (MailException ex) {
+                failed.increment();
+                log.error("SMTP send failed for subject '{}'", msg.getSubject(), ex);
+            }
+        }
+
+        void close() {
+            if (transport == null) return;
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // connection already gone
+            }
+            transport = null;
+        }
+
+        private static String blankToNull(String s) {
+            return (s == null || s.isBlank()) ? null : s;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.viana.agentic.features;
+
+import java.util.Locale;
+
+public enum VelocityMetric {
+    COUNT, SUM, MAX;
+
+    public static VelocityMetric fromName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Unknown velocity metric " + name + " (expected count, sum or max)");
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.viana.agentic.features;
+
+import com.viana.common.events.EnrichedAccountEvent;
+import com.viana.common.events.EventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Per-account sliding-window counters (count, sum and max of {@code amount}) per event type over
+ * 1m / 1h / 24h. Each window is a ring of {@code bucketsPerWindow} sub-buckets, so a window slides
+ * in steps of window/buckets.
+ * <p>
+ * Accounts live in lock-striped open-addressing tables of primitive arrays keyed by a 64-bit hash
+ * of the account id; there are no per-account objects. Tables grow on demand up to
+ * {@code maxAccounts} in total. When full, accounts idle for longer than the largest window are
+ * purged; if there still is no room the new account is not tracked (and reads return 0).
+ * <p>
+ * Each account also keeps the hashes of its last {@value #RECENT_EVENTS} recorded event ids, so an
+ * event redelivered after a rewind, an aborted transaction or a retry is not counted twice.
+ */
+@Component
+public class VelocityStore {
+
+    private static final EventType[] TYPES = EventType.values();
+    private static final VelocityWindow[] WINDOWS = VelocityWindow.values();
+    private static final long IDLE_MILLIS = VelocityWindow.ONE_DAY.millis();
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+    private static final int RECENT_EVENTS = 16;
+
+    private final boolean enabled;
+    private final int buckets;
+    private final int cellsPerAccount;
+    private final long[] bucketMillis = new long[WINDOWS.length];
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final Counter rejected;
+
+    public VelocityStore(@Value("${agentic.features.velocity.enabled:true}") boolean enabled,
+                         @Value("${agentic.features.velocity.max-accounts:50000}") int maxAccounts,
+                         @Value("${agentic.features.velocity.stripes:64}") int stripes,
+                         @Value("${agentic.features.velocity.buckets-per-window:6}") int bucketsPerWindow,
+                         MeterRegistry meterRegistry) {
+        if (bucketsPerWindow < 1) throw new IllegalArgumentException("buckets-per-window must be positive");
+        this.enabled = enabled;
+        this.buckets = bucketsPerWindow;
+        this.cellsPerAccount = TYPES.length * WINDOWS.length * bucketsPerWindow;
+        for (int w = 0; w < WINDOWS.length; w++) {
+            bucketMillis[w] = Math.max(1, WINDOWS[w].millis() / bucketsPerWindow);
+        }
+
+        int stripeCount = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        int perStripe = Math.max(1, (maxAccounts + stripeCount - 1) / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) this.stripes[i] = new Stripe(perStripe);
+        this.stripeMask = stripeCount - 1;
+
+        this.rejected = meterRegistry.counter("agentic.features.velocity.rejected");
+        Gauge.builder("agentic.features.velocity.accounts", this, VelocityStore::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Stable 64-bit key for an account id; compute once per event and reuse for every lookup. */
+    public static long key(String accountId) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < accountId.length(); i++) {
+            h ^= accountId.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * The instant an event counts at: its own timestamp, capped at {@code nowMillis} so a skewed
+     * producer clock cannot push buckets into the future.
+     */
+    public static long eventTime(EnrichedAccountEvent e, long nowMillis) {
+        return e.timestamp() == null ? nowMillis : Math.min(e.timestamp().toEpochMilli(), nowMillis);
+    }
+
+    public void record(EnrichedAccountEvent e, long nowMillis) {
+        record(e.accountId(), e.eventId(), e.eventType(), e.amount() == null ? 0 : e.amount(),
+                eventTime(e, nowMillis));
+    }
+
+    public void record(String accountId, EventType type, double amount, long atMillis) {
+        record(accountId, null, type, amount, atMillis);
+    }
+
+    /**
+     * Counts an event unless {@code eventId} is among the account's recently recorded ones; a
+     * {@code null} id is always counted.
+     */
+    public void record(String accountId, String eventId, EventType type, double amount, long atMillis) {
+        if (!enabled || accountId == null || type == null) return;
+        long key = key(accountId);
+        long eventKey = eventId == null ? 0 : key(eventId);
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.findOrInsert(key, atMillis);
+            if (slot < 0) {
+                rejected.increment();
+                return;
+            }
+            if (eventKey != 0 && !stripe.remember(slot, eventKey)) return;
+            stripe.add(slot, type.ordinal(), amount, atMillis);
+        }
+    }
+
+    /**
+     * Current value of a feature for the account {@code key} (see {@link #key}); {@code type == null}
+     * aggregates over all event types. Unknown accounts and empty windows read as 0.
+     */
+    public double value(long key, EventType type, VelocityWindow window, VelocityMetric metric, long nowMillis) {
+        if (!enabled) return 0;
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot < 0) return 0;
+            if (type != null) return stripe.read(slot, type.ordinal(), window.ordinal(), metric, nowMillis, 1);
+            return stripe.read(slot, 0, window.ordinal(), metric, nowMillis, TYPES.length);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe s : stripes) size += s.size;
+        return size;
+    }
+
+    private Stripe stripe(long key) {
+        return stripes[(int) (key >>> 40) & stripeMask];
+    }
+
+    private final class Stripe {
+
+        private final int maxSize;
+        private final int maxCapacity;
+
+        private int size;
+        private int mask;
+        private long noRoomUntil;
+        private long[] keys;
+        private long[] lastSeen;
+        private long[] recent;
+        private int[] recentNext;
+        private long[] epochs;
+        private int[] counts;
+        private double[] sums;
+        private double[] maxes;
+
+        Stripe(int maxSize) {
+            this.maxSize = maxSize;
+            this.maxCapacity = Integer.highestOneBit(Math.max(1, maxSize * 4 / 3)) << 1;
+            allocate(Math.min(INITIAL_STRIPE_CAPACITY, maxCapacity));
+        }
+
+        private void allocate(int capacity) {
+            mask = capacity - 1;
+            keys = new long[capacity];
+            lastSeen = new long[capacity];
+            recent = new long[capacity * RECENT_EVENTS];
+            recentNext = new int[capacity];
+            epochs = new long[capacity * cellsPerAccount];
+            counts = new int[capacity * cellsPerAccount];
+            sums = new double[capacity * cellsPerAccount];
+            maxes = new double[capacity * cellsPerAccount];
+        }
+
+        int find(long key) {
+            for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) return i;
+                if (k == 0) return -1;
+            }
+        }
+
+        int findOrInsert(long key, long now) {
+            int stale = -1;
+            int i = (int) key & mask;
+            for (; ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) return i;
+                if (k == 0) break;
+                if (stale < 0 && now - lastSeen[i] > IDLE_MILLIS) stale = i;
+            }
+            if (stale >= 0) {
+                claim(stale, key, now);
+                return stale;
+            }
+            if (size >= maxSize || size + 1 > keys.length * 3 / 4) {
+                int capacity = keys.length;
+                if (size + 1 > capacity * 3 / 4 && capacity < maxCapacity) {
+                    capacity <<= 1;
+                } else if (now < noRoomUntil) {
+                    return -1;      // purged recently and nothing was idle; don't rescan on every event
+                }
+                rehash(capacity, now);
+                if (size >= maxSize || size + 1 > keys.length * 3 / 4) {
+                    noRoomUntil = now + bucketMillis[0];
+                    return -1;
+                }
+                i = emptySlot(key);
+            }
+            size++;
+            claim(i, key, now);
+            return i;
+        }
+
+        private int emptySlot(long key) {
+            int i = (int) key & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            return i;
+        }
+
+        private void claim(int slot, long key, long now) {
+            keys[slot] = key;
+            lastSeen[slot] = now;
+            int base = slot * cellsPerAccount;
+            Arrays.fill(epochs, base, base + cellsPerAccount, -1L);
+            Arrays.fill(recent, slot * RECENT_EVENTS, (slot + 1) * RECENT_EVENTS, 0L);
+            recentNext[slot] = 0;
+        }
+
+        /** Rebuilds the table at {@code capacity}, dropping accounts idle for longer than a day. */
+        private void rehash(int capacity, long now) {
+            long[] oldKeys = keys, oldSeen = lastSeen, oldRecent = recent, oldEpochs = epochs;
+            int[] oldNext = recentNext, oldCounts = counts;
+            double[] oldSums = sums, oldMaxes = maxes;
+
+            allocate(capacity);
+            size = 0;
+            for (int s = 0; s < oldKeys.length; s++) {
+                if (oldKeys[s] == 0 || now - oldSeen[s] > IDLE_MILLIS) continue;
+                int t = emptySlot(oldKeys[s]);
+                keys[t] = oldKeys[s];
+                lastSeen[t] = oldSeen[s];
+                System.arraycopy(oldRecent, s * RECENT_EVENTS, recent, t * RECENT_EVENTS, RECENT_EVENTS);
+                recentNext[t] = oldNext[s];
+                int from = s * cellsPerAccount, to = t * cellsPerAccount;
+                System.arraycopy(oldEpochs, from, epochs, to, cellsPerAccount);
+                System.arraycopy(oldCounts, from, counts, to, cellsPerAccount);
+                System.arraycopy(oldSums, from, sums, to, cellsPerAccount);
+                System.arraycopy(oldMaxes, from, maxes, to, cellsPerAccount);
+                size++;
+            }
+        }
+
+        /** Adds {@code eventKey} to the account's recent events; false if it already was there. */
+        boolean remember(int slot, long eventKey) {
+            int base = slot * RECENT_EVENTS;
+            for (int i = base; i < base + RECENT_EVENTS; i++) {
+                if (recent[i] == eventKey) return false;
+            }
+            recent[base + recentNext[slot]] = eventKey;
+            recentNext[slot] = (recentNext[slot] + 1) % RECENT_EVENTS;
+            return true;
+        }
+
+        void add(int slot, int type, double amount, long at) {
+            if (at > lastSeen[slot]) lastSeen[slot] = at;
+            for (int w = 0; w < WINDOWS.length; w++) {
+                long epoch = at / bucketMillis[w];
+                int cell = slot * cellsPerAccount + (type * WINDOWS.length + w) * buckets + (int) (epoch % buckets);
+                long current = epochs[cell];
+                if (current == epoch) {
+                    counts[cell]++;
+                    sums[cell] += amount;
+                    if (amount > maxes[cell]) maxes[cell] = amount;
+                } else if (current < epoch) {
+                    epochs[cell] = epoch;
+                    counts[cell] = 1;
+                    sums[cell] = amount;
+                    maxes[cell] = amount;
+                }
+                // current > epoch: the event is older than the window, ignore it
+            }
+        }
+
+        double read(int slot, int firstType, int w, VelocityMetric metric, long now, int types) {
+            long nowEpoch = now / bucketMillis[w];
+            long oldest = nowEpoch - buckets;
+            long count = 0;
+            double sum = 0;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int t = firstType; t < firstType + types; t++) {
+                int base = slot * cellsPerAccount + (t * WINDOWS.length + w) * buckets;
+                for (int b = 0; b < buckets; b++) {
+                    long e = epochs[base + b];
+                    if (e <= oldest || e > nowEpoch) continue;
+                    count += counts[base + b];
+                    sum += sums[base + b];
+                    if (maxes[base + b] > max) max = maxes[base + b];
+                }
+            }
+            return switch (metric) {
+                case COUNT -> count;
+                case SUM -> sum;
+                case MAX -> count == 0 ? 0 : max;
+            };
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.viana.agentic.features;
+
+import java.time.Duration;
+
+public enum VelocityWindow {
+    ONE_MINUTE("1m", Duration.ofMinutes(1)),
+    ONE_HOUR("1h", Duration.ofHours(1)),
+    ONE_DAY("24h", Duration.ofHours(24));
+
+    private final String label;
+    private final long millis;
+
+    VelocityWindow(String label, Duration length) {
+        this.label = label;
+        this.millis = length.toMillis();
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public long millis() {
+        return millis;
+    }
+
+    public static VelocityWindow fromLabel(String label) {
+        for (VelocityWindow w : values()) {
+            if (w.label.equals(label)) return w;
+        }
+        throw new IllegalArgumentException("Unknown velocity window " + label + " (expected 1m, 1h or 24h)");
+    }
+}
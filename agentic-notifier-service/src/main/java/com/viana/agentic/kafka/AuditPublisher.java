@@ -1,35 +1,178 @@
 package com.viana.agentic.kafka;
 
 import com.viana.agentic.KafkaTopics;
-import com.viana.agentic.executor.ActionExecutor;
 import com.viana.agentic.model.ActionResult;
 import com.viana.agentic.model.AgentDecision;
+import com.viana.agentic.model.AgentOutcome;
 import com.viana.common.events.EnrichedAccountEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking audit stage. Sends are tracked asynchronously inside a bounded in-flight window;
+ * callers block only when the window is full, which back-pressures the listener.
+ */
 @Component
 public class AuditPublisher {
 
-    private static final Logger log = LoggerFactory.getLogger(ActionExecutor.class);
+    private static final Logger log = LoggerFactory.getLogger(AuditPublisher.class);
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final int windowSize;
+    private final Semaphore window;
+
+    private final Timer decisionLatency;
+    private final Timer resultLatency;
+    private final Counter decisionFailures;
+    private final Counter resultFailures;
+    private final Counter abortedTransactions;
 
-    public AuditPublisher(KafkaTemplate<String, Object> kafkaTemplate) {
+    public AuditPublisher(KafkaTemplate<String, Object> kafkaTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${agentic.audit.max-in-flight:1024}") int maxInFlight) {
         this.kafkaTemplate = kafkaTemplate;
+        this.windowSize = maxInFlight;
+        this.window = new Semaphore(maxInFlight);
+
+        this.decisionLatency = sendTimer(meterRegistry, KafkaTopics.OUT_DECISION);
+        this.resultLatency = sendTimer(meterRegistry, KafkaTopics.OUT_RESULT);
+        this.decisionFailures = failureCounter(meterRegistry, KafkaTopics.OUT_DECISION);
+        this.resultFailures = failureCounter(meterRegistry, KafkaTopics.OUT_RESULT);
+        this.abortedTransactions = meterRegistry.counter("agentic.audit.tx.aborted");
+        meterRegistry.gauge("agentic.audit.in_flight", window, w -> windowSize - w.availablePermits());
+    }
+
+    /**
+     * Emits a decision together with all of its results so they share one producer batch.
+     */
+    public CompletableFuture<Void> publish(AgentDecision decision, List<ActionResult> results) {
+        int records = 1 + results.size();
+        int upfront = Math.min(records, windowSize);
+        acquire(upfront);
+
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[records];
+        sends[0] = sendDecision(decision);
+        for (int i = 1; i < records; i++) {
+            if (i >= upfront) acquire(1);
+            sends[i] = sendResult(results.get(i - 1));
+        }
+        return CompletableFuture.allOf(sends);
+    }
+
+    public CompletableFuture<Void> publishDecision(EnrichedAccountEvent event, AgentDecision decision) {
+        acquire(1);
+        return sendDecision(decision);
+    }
+
+    public CompletableFuture<Void> publishResult(ActionResult result) {
+        acquire(1);
+        return sendResult(result);
     }
 
-    public void publishDecision(EnrichedAccountEvent event, AgentDecision decision) {
-        log.info("Publishing decision to topic {}", KafkaTopics.OUT_DECISION);
+    /**
+     * Read-process-write commit: all audit records of a batch plus the consumer offsets go out in
+     * one Kafka transaction, so either both become visible or neither does.
+     */
+    public void publishInTransaction(List<AgentOutcome> outcomes,
+                                     Map<TopicPartition, OffsetAndMetadata> offsets,
+                                     ConsumerGroupMetadata groupMetadata) {
+        try {
+            kafkaTemplate.executeInTransaction(ops -> {
+                for (AgentOutcome outcome : outcomes) {
+                    AgentDecision decision = outcome.decision();
+                    ops.send(KafkaTopics.OUT_DECISION, decision.accountId(), decision);
+                    for (ActionResult result : outcome.results()) {
+                        ops.send(KafkaTopics.OUT_RESULT, result.eventId(), result);
+                    }
+                }
+                if (!offsets.isEmpty()) {
+                    ops.sendOffsetsToTransaction(offsets, groupMetadata);
+                }
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            abortedTransactions.increment();
+            throw ex;
+        }
+    }
+
+    /**
+     * Blocks until every record handed to the producer so far has been acknowledged or failed.
+     */
+    public void flush() {
+        kafkaTemplate.flush();
+    }
+
+    private CompletableFuture<Void> sendDecision(AgentDecision decision) {
+        return track(KafkaTopics.OUT_DECISION, decision.accountId(), decision, decisionLatency, decisionFailures);
+    }
 
-        kafkaTemplate.send(KafkaTopics.OUT_DECISION, decision.accountId(), decision);
+    private CompletableFuture<Void> sendResult(ActionResult result) {
+        return track(KafkaTopics.OUT_RESULT, result.eventId(), result, resultLatency, resultFailures);
     }
 
-    public void publishResult(ActionResult result) {
-        log.info("Publishing result to topic {}", KafkaTopics.OUT_RESULT);
+    private CompletableFuture<Void> track(String topic, String key, Object value, Timer latency, Counter failures) {
+        long start = System.nanoTime();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            kafkaTemplate.send(topic, key, value).whenComplete((res, ex) -> {
+                window.release();
+                latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (ex != null) {
+                    failures.increment();
+                    log.error("Audit send to {} failed for key {}", topic, key, ex);
+                    done.completeExceptionally(ex);
+                } else {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Audit record for key {} acked on {}-{}@{}", key, topic,
+                                res.getRecordMetadata().partition(), res.getRecordMetadata().offset());
+                    }
+                    done.complete(null);
+                }
+            });
+        } catch (RuntimeException ex) {
+            window.release();
+            failures.increment();
+            log.error("Audit send to {} rejected for key {}", topic, key, ex);
+            done.completeExceptionally(ex);
+        }
+        return done;
+    }
+
+    private void acquire(int permits) {
+        try {
+            window.acquire(permits);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for audit window", ie);
+        }
+    }
+
+    private static Timer sendTimer(MeterRegistry registry, String topic) {
+        return Timer.builder("agentic.audit.send.latency")
+                .tag("topic", topic)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
 
-        kafkaTemplate.send(KafkaTopics.OUT_RESULT, result.eventId(), result);
+    private static Counter failureCounter(MeterRegistry registry, String topic) {
+        return Counter.builder("agentic.audit.send.failures")
+                .tag("topic", topic)
+                .register(registry);
     }
 }
@@ -0,0 +1,179 @@
+package com.viana.agentic.kafka;
+
+import com.viana.agentic.config.KafkaListenerConfig;
+import com.viana.agentic.config.KafkaTopics;
+import com.viana.agentic.dedup.EventDeduplicator;
+import com.viana.agentic.model.AgentOutcome;
+import com.viana.agentic.service.AgentPipeline;
+import com.viana.common.events.EnrichedAccountEvent;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Batch mode for {@code account.enriched.v1}: one poll is processed in parallel, ordered per
+ * accountId, and offsets are committed only up to the lowest fully processed offset per partition.
+ * A record counts as processed once its audit records are acked; if a send failed, the partition
+ * is rewound to it.
+ *
+ * <p>With {@code agentic.exactly-once.enabled} the audit records of the batch and its offsets are
+ * committed in a single Kafka transaction instead of being pipelined. Actions such as e-mails are
+ * outside that transaction; when it aborts, the batch is evaluated again but actions that already
+ * ran are not repeated (see {@link AgentPipeline}).
+ *
+ * <p>With the async action executor, a partition is committed only up to its lowest record whose
+ * actions have not all reported, so a crash redelivers events whose queued actions never ran. The
+ * listener does not wait for them; what they held back is committed on a later poll (see
+ * {@link PendingActionOffsets}).
+ */
+@Component
+@ConditionalOnProperty(name = "agentic.listener.batch.enabled", havingValue = "true")
+public class EnrichedEventBatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrichedEventBatchListener.class);
+
+    private final AgentPipeline pipeline;
+    private final AuditPublisher auditPublisher;
+    private final EventDeduplicator deduplicator;
+    private final KeyOrderedBatchProcessor processor;
+    private final boolean exactlyOnce;
+    private final Map<Consumer<?, ?>, PendingActionOffsets> pendingActions = new ConcurrentHashMap<>();
+
+    public EnrichedEventBatchListener(AgentPipeline pipeline,
+                                      AuditPublisher auditPublisher,
+                                      EventDeduplicator deduplicator,
+                                      @Value("${agentic.listener.batch.max-concurrency:256}") int maxConcurrency,
+                                      @Value("${agentic.listener.batch.max-attempts:3}") int maxAttempts,
+                                      @Value("${agentic.exactly-once.enabled:false}") boolean exactlyOnce) {
+        this.pipeline = pipeline;
+        this.auditPublisher = auditPublisher;
+        this.deduplicator = deduplicator;
+        this.processor = new KeyOrderedBatchProcessor(maxConcurrency, maxAttempts);
+        this.exactlyOnce = exactlyOnce;
+    }
+
+    @KafkaListener(id = "agentic-notifier-batch", topics = KafkaTopics.INPUT_ENRICHED,
+            groupId = "agentic-notifier-service", containerFactory = KafkaListenerConfig.BATCH_FACTORY,
+            properties = "max.poll.records=${agentic.listener.batch.max-poll-records:500}")
+    public void onBatch(List<ConsumerRecord<String, EnrichedAccountEvent>> records, Consumer<?, ?> consumer) {
+        log.debug("Received batch of {} enriched events", records.size());
+
+        if (exactlyOnce) {
+            onBatchTransactional(records, consumer);
+            return;
+        }
+
+        Map<ConsumerRecord<String, EnrichedAccountEvent>, CompletableFuture<Void>> audits = new ConcurrentHashMap<>();
+        Map<ConsumerRecord<String, EnrichedAccountEvent>, CompletableFuture<Void>> actions = new ConcurrentHashMap<>();
+        var outcome = processor.process(records, EnrichedEventBatchListener::orderingKey,
+                record -> handle(record, audits, actions));
+
+        // audit sends are pipelined; make sure they are acked before the offsets move past them
+        auditPublisher.flush();
+
+        // a record whose audit records were not acked is redelivered, and the partition after it
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>(outcome.commits());
+        Map<TopicPartition, Long> rewinds = new HashMap<>(outcome.rewinds());
+        unaudited(audits).forEach((tp, offset) -> {
+            OffsetAndMetadata commit = commits.get(tp);
+            if (commit == null || commit.offset() > offset) commits.put(tp, new OffsetAndMetadata(offset));
+            rewinds.merge(tp, offset, Math::min);
+        });
+
+        // one tracker per consumer: each container thread has its own partitions
+        PendingActionOffsets pending = pendingActions.computeIfAbsent(consumer, c -> new PendingActionOffsets());
+        actions.forEach((record, done) ->
+                pending.track(new TopicPartition(record.topic(), record.partition()), record.offset(), done));
+        rewinds.forEach(pending::rewind);
+
+        Map<TopicPartition, OffsetAndMetadata> committable = pending.committable(commits, consumer.assignment());
+        if (!committable.isEmpty()) {
+            consumer.commitSync(committable);
+        }
+        rewinds.forEach(consumer::seek);
+    }
+
+    private void onBatchTransactional(List<ConsumerRecord<String, EnrichedAccountEvent>> records, Consumer<?, ?> consumer) {
+        List<AgentOutcome> outcomes = Collections.synchronizedList(new ArrayList<>());
+
+        var outcome = processor.process(records, EnrichedEventBatchListener::orderingKey, record -> {
+            if (record.value() == null) return;
+            AgentOutcome o = pipeline.evaluate(record.value());
+            if (o != null) outcomes.add(o);
+        });
+
+        try {
+            auditPublisher.publishInTransaction(outcomes, outcome.commits(), consumer.groupMetadata());
+        } catch (RuntimeException ex) {
+            log.error("Audit transaction for batch of {} aborted, rewinding", records.size(), ex);
+            firstOffsets(records).forEach(consumer::seek);
+            return;
+        }
+
+        for (AgentOutcome o : outcomes) {
+            deduplicator.markProcessed(o.decision().eventId());
+        }
+        outcome.rewinds().forEach(consumer::seek);
+    }
+
+    private void handle(ConsumerRecord<String, EnrichedAccountEvent> record,
+                        Map<ConsumerRecord<String, EnrichedAccountEvent>, CompletableFuture<Void>> audits,
+                        Map<ConsumerRecord<String, EnrichedAccountEvent>, CompletableFuture<Void>> actions) {
+        if (record.value() == null) {
+            log.warn("Skipping empty enriched event at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            return;
+        }
+        AgentPipeline.Submitted submitted = pipeline.submit(record.value());
+        audits.put(record, submitted.audited());
+        if (!submitted.actionsDone().isDone()) actions.put(record, submitted.actionsDone());
+    }
+
+    // Lowest offset per partition whose audit records failed; after a flush every send has settled.
+    private static Map<TopicPartition, Long> unaudited(
+            Map<ConsumerRecord<String, EnrichedAccountEvent>, CompletableFuture<Void>> audits) {
+        Map<TopicPartition, Long> lowest = new HashMap<>();
+        audits.forEach((record, audited) -> {
+            if (!audited.isDone() || audited.isCompletedExceptionally()) {
+                log.warn("Audit records for {}-{}@{} were not acked, redelivering it",
+                        record.topic(), record.partition(), record.offset());
+                lowest.merge(new TopicPartition(record.topic(), record.partition()), record.offset(), Math::min);
+            }
+        });
+        return lowest;
+    }
+
+    private static String orderingKey(ConsumerRecord<String, EnrichedAccountEvent> record) {
+        EnrichedAccountEvent e = record.value();
+        if (e != null && e.accountId() != null) return e.accountId();
+        return record.key() != null ? record.key() : "";
+    }
+
+    private static Map<TopicPartition, Long> firstOffsets(List<ConsumerRecord<String, EnrichedAccountEvent>> records) {
+        Map<TopicPartition, Long> first = new HashMap<>();
+        for (ConsumerRecord<String, EnrichedAccountEvent> r : records) {
+            first.putIfAbsent(new TopicPartition(r.topic(), r.partition()), r.offset());
+        }
+        return first;
+    }
+
+    @PreDestroy
+    void close() {
+        processor.close();
+    }
+}
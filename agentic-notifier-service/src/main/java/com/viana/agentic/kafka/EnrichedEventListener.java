@@ -1,64 +1,75 @@
 package com.viana.agentic.kafka;
 
+import com.viana.agentic.config.KafkaListenerConfig;
 import com.viana.agentic.config.KafkaTopics;
-import com.viana.agentic.decision.DecisionEngine;
+import com.viana.agentic.dedup.EventDeduplicator;
 import com.viana.agentic.executor.ActionExecutor;
-import com.viana.agentic.model.ActionResult;
-import com.viana.agentic.model.AgentAction;
-import com.viana.agentic.model.AgentDecision;
+import com.viana.agentic.model.AgentOutcome;
+import com.viana.agentic.service.AgentPipeline;
 import com.viana.common.events.EnrichedAccountEvent;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class EnrichedEventListener {
 
     private static final Logger log = LoggerFactory.getLogger(ActionExecutor.class);
 
-    private final DecisionEngine decisionEngine;
-    private final ActionExecutor actionExecutor;
+    private final AgentPipeline pipeline;
     private final AuditPublisher auditPublisher;
+    private final EventDeduplicator deduplicator;
+    private final boolean exactlyOnce;
 
-    public EnrichedEventListener(DecisionEngine decisionEngine, ActionExecutor actionExecutor, AuditPublisher auditPublisher) {
-        this.decisionEngine = decisionEngine;
-        this.actionExecutor = actionExecutor;
+    public EnrichedEventListener(AgentPipeline pipeline,
+                                 AuditPublisher auditPublisher,
+                                 EventDeduplicator deduplicator,
+                                 @Value("${agentic.exactly-once.enabled:false}") boolean exactlyOnce) {
+        this.pipeline = pipeline;
         this.auditPublisher = auditPublisher;
+        this.deduplicator = deduplicator;
+        this.exactlyOnce = exactlyOnce;
     }
 
-    @KafkaListener(topics = KafkaTopics.INPUT_ENRICHED, groupId = "agentic-notifier-service")
-    public void onMessage(EnrichedAccountEvent event) {
+    // Record-at-a-time mode; stays idle when the batch listener owns the topic. With async actions
+    // the offset is committed before they run, so actions are at-most-once here; use batch mode
+    // for at-least-once.
+    @KafkaListener(topics = KafkaTopics.INPUT_ENRICHED, groupId = "agentic-notifier-service",
+            containerFactory = KafkaListenerConfig.RECORD_FACTORY,
+            autoStartup = "#{!${agentic.listener.batch.enabled:false}}")
+    public void onMessage(ConsumerRecord<String, EnrichedAccountEvent> record, Consumer<?, ?> consumer) {
 
-        log.info("Received enriched event: {}", event);
+        log.info("Received enriched event: {}", record.value());
 
-        AgentDecision decision = decisionEngine.decide(event);
-
-        auditPublisher.publishDecision(event, decision);
+        if (exactlyOnce) {
+            onMessageTransactional(record, consumer);
+            return;
+        }
+        // the container commits the offset once this returns, so wait for the audit records; a
+        // failed send reaches its error handler, which seeks back and the record is evaluated again
+        pipeline.submit(record.value()).audited().join();
+    }
 
-        for (AgentAction action : decision.actions()) {
-            try {
-                actionExecutor.execute(decision, event, action);
-                auditPublisher.publishResult(new ActionResult(
-                        decision.decisionId(),
-                        event.eventId(),
-                        action.type(),
-                        Instant.now(),
-                        true,
-                        "Executed successfully"
-                ));
-            } catch (Exception ex) {
-                auditPublisher.publishResult(new ActionResult(
-                        decision.decisionId(),
-                        event.eventId(),
-                        action.type(),
-                        Instant.now(),
-                        false,
-                        ex.getMessage()
-                ));
-            }
+    // The audit records and the offset go out in one Kafka transaction, as in batch mode. The event
+    // is marked processed only once that has committed; if it aborts the exception reaches the
+    // container's error handler, which seeks back so the record is evaluated again.
+    private void onMessageTransactional(ConsumerRecord<String, EnrichedAccountEvent> record, Consumer<?, ?> consumer) {
+        AgentOutcome outcome = record.value() == null ? null : pipeline.evaluate(record.value());
+        auditPublisher.publishInTransaction(
+                outcome == null ? List.of() : List.of(outcome),
+                Map.of(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1)),
+                consumer.groupMetadata());
+        if (outcome != null) {
+            deduplicator.markProcessed(outcome.decision().eventId());
         }
     }
 }
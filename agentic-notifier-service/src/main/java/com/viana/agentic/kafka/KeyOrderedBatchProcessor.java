@@ -0,0 +1,172 @@
+package com.viana.agentic.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Fans a polled batch out across virtual threads while keeping records that share an
+ * ordering key (the account) strictly sequential.
+ *
+ * <p>Each key becomes a lane. A failing record stops its lane so later records for the same
+ * key are never applied out of order; the batch outcome then tells the caller which offsets
+ * are safe to commit (everything below the lowest unprocessed offset per partition) and where
+ * to rewind so the rest is redelivered. Not thread-safe: call from the consumer thread only.
+ */
+public class KeyOrderedBatchProcessor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyOrderedBatchProcessor.class);
+
+    @FunctionalInterface
+    public interface RecordHandler<K, V> {
+        void handle(ConsumerRecord<K, V> record) throws Exception;
+    }
+
+    public record BatchOutcome(
+            Map<TopicPartition, OffsetAndMetadata> commits,
+            Map<TopicPartition, Long> rewinds
+    ) {}
+
+    private record FailedOffset(long offset, int attempts) {}
+
+    private final ExecutorService lanes = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore concurrency;
+    private final int maxAttempts;
+
+    // consecutive failures of the head-of-line offset, per partition
+    private final Map<TopicPartition, FailedOffset> failures = new HashMap<>();
+
+    public KeyOrderedBatchProcessor(int maxConcurrency, int maxAttempts) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be >= 1");
+        if (maxAttempts < 1) throw new IllegalArgumentException("maxAttempts must be >= 1");
+        this.concurrency = new Semaphore(maxConcurrency);
+        this.maxAttempts = maxAttempts;
+    }
+
+    public <K, V> BatchOutcome process(List<ConsumerRecord<K, V>> records,
+                                       Function<ConsumerRecord<K, V>, String> orderingKey,
+                                       RecordHandler<K, V> handler) {
+        int n = records.size();
+        boolean[] processed = new boolean[n];
+        boolean[] lastAttempt = markLastAttempts(records);
+
+        Map<String, List<Integer>> byKey = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            byKey.computeIfAbsent(orderingKey.apply(records.get(i)), k -> new ArrayList<>()).add(i);
+        }
+
+        List<Future<?>> running = new ArrayList<>(byKey.size());
+        for (List<Integer> lane : byKey.values()) {
+            running.add(lanes.submit(() -> runLane(records, lane, handler, processed, lastAttempt)));
+        }
+        awaitAll(running);
+
+        return outcome(records, processed);
+    }
+
+    private <K, V> void runLane(List<ConsumerRecord<K, V>> records, List<Integer> lane,
+                                RecordHandler<K, V> handler, boolean[] processed, boolean[] lastAttempt) {
+        concurrency.acquireUninterruptibly();
+        try {
+            for (int idx : lane) {
+                ConsumerRecord<K, V> record = records.get(idx);
+                try {
+                    handler.handle(record);
+                    processed[idx] = true;
+                } catch (Exception ex) {
+                    if (lastAttempt[idx]) {
+                        log.error("Giving up on {}-{}@{} after {} attempts",
+                                record.topic(), record.partition(), record.offset(), maxAttempts, ex);
+                        processed[idx] = true;
+                        continue;
+                    }
+                    log.warn("Failed {}-{}@{}, holding back the rest of its lane: {}",
+                            record.topic(), record.partition(), record.offset(), ex.getMessage());
+                    return;
+                }
+            }
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    private <K, V> boolean[] markLastAttempts(List<ConsumerRecord<K, V>> records) {
+        boolean[] last = new boolean[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<K, V> r = records.get(i);
+            FailedOffset f = failures.get(new TopicPartition(r.topic(), r.partition()));
+            int attempt = (f != null && f.offset() == r.offset()) ? f.attempts() + 1 : 1;
+            last[i] = attempt >= maxAttempts;
+        }
+        return last;
+    }
+
+    private <K, V> BatchOutcome outcome(List<ConsumerRecord<K, V>> records, boolean[] processed) {
+        Map<TopicPartition, Long> firstOffset = new HashMap<>();
+        Map<TopicPartition, Long> nextOffset = new HashMap<>();
+        Map<TopicPartition, Long> firstUnprocessed = new HashMap<>();
+
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<K, V> r = records.get(i);
+            TopicPartition tp = new TopicPartition(r.topic(), r.partition());
+            firstOffset.putIfAbsent(tp, r.offset());
+            nextOffset.put(tp, r.offset() + 1);
+            if (!processed[i]) {
+                firstUnprocessed.merge(tp, r.offset(), Math::min);
+            }
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        Map<TopicPartition, Long> rewinds = new HashMap<>();
+
+        for (Map.Entry<TopicPartition, Long> e : nextOffset.entrySet()) {
+            TopicPartition tp = e.getKey();
+            Long stuck = firstUnprocessed.get(tp);
+            if (stuck == null) {
+                commits.put(tp, new OffsetAndMetadata(e.getValue()));
+                failures.remove(tp);
+                continue;
+            }
+            if (stuck > firstOffset.get(tp)) {
+                commits.put(tp, new OffsetAndMetadata(stuck));
+            }
+            rewinds.put(tp, stuck);
+            failures.compute(tp, (k, prev) -> prev != null && prev.offset() == stuck
+                    ? new FailedOffset(stuck, prev.attempts() + 1)
+                    : new FailedOffset(stuck, 1));
+        }
+        return new BatchOutcome(commits, rewinds);
+    }
+
+    private static void awaitAll(List<Future<?>> running) {
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for batch lanes", ie);
+            } catch (ExecutionException ee) {
+                throw new IllegalStateException("Batch lane crashed", ee.getCause());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        lanes.close();
+    }
+}
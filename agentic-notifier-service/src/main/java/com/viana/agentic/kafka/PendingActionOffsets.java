@@ -0,0 +1,67 @@
+package com.viana.agentic.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One consumer's records whose async actions have not all reported yet, by partition. A partition
+ * is committed only up to the lowest of them, so a crash redelivers events whose queued actions
+ * never ran, while the poll thread never waits for an action. Offsets held back this way are
+ * committed on a later poll, once the actions are done. Not thread-safe: used from the consumer's
+ * poll thread only.
+ */
+final class PendingActionOffsets {
+
+    private static final class Partition {
+        final NavigableMap<Long, CompletableFuture<Void>> pending = new TreeMap<>();
+        long processed = -1;
+        long committed = -1;
+    }
+
+    private final Map<TopicPartition, Partition> partitions = new HashMap<>();
+
+    /** {@code done} completes once every action of the record at {@code offset} has reported. */
+    void track(TopicPartition tp, long offset, CompletableFuture<Void> done) {
+        partitions.computeIfAbsent(tp, k -> new Partition()).pending.put(offset, done);
+    }
+
+    /** The records from {@code offset} on are delivered again and tracked anew. */
+    void rewind(TopicPartition tp, long offset) {
+        Partition p = partitions.get(tp);
+        if (p != null) p.pending.tailMap(offset, true).clear();
+    }
+
+    /**
+     * Given the offsets a poll processed through, what may be committed now: per assigned
+     * partition, the processed offset or the lowest record with actions outstanding, whichever is
+     * lower, where that moved on since the last commit. Partitions no longer assigned are dropped.
+     */
+    Map<TopicPartition, OffsetAndMetadata> committable(Map<TopicPartition, OffsetAndMetadata> processed,
+                                                       Set<TopicPartition> assigned) {
+        partitions.keySet().retainAll(assigned);
+        processed.forEach((tp, offset) -> {
+            if (assigned.contains(tp)) partitions.computeIfAbsent(tp, k -> new Partition()).processed = offset.offset();
+        });
+
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        partitions.forEach((tp, p) -> {
+            // an action that failed, or whose audit send failed, has still reported
+            while (!p.pending.isEmpty() && p.pending.firstEntry().getValue().isDone()) {
+                p.pending.pollFirstEntry();
+            }
+            long upTo = p.pending.isEmpty() ? p.processed : Math.min(p.processed, p.pending.firstKey());
+            if (upTo > p.committed) {
+                commits.put(tp, new OffsetAndMetadata(upTo));
+                p.committed = upTo;
+            }
+        });
+        return commits;
+    }
+}
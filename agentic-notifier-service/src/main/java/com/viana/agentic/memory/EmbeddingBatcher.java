@@ -0,0 +1,164 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single-text embedding calls into batched requests. A batch is sent once it
+ * holds {@code maxBatchSize} texts or {@code maxDelay} after its first text arrived, whichever
+ * comes first. Identical texts within a batch are embedded once. Up to {@code maxInFlight} batches
+ * are sent concurrently while the next one is being collected.
+ */
+final class EmbeddingBatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingBatcher.class);
+
+    private record Pending(String text, CompletableFuture<float[]> result, long enqueuedAt) {}
+
+    private final Function<List<String>, List<float[]>> transport;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Pending> queue;
+    private final Semaphore inFlight;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread collector;
+    private volatile boolean closed;
+
+    private final DistributionSummary batchSize;
+    private final Timer requestLatency;
+    private final Timer callerLatency;
+
+    EmbeddingBatcher(Function<List<String>, List<float[]>> transport,
+                     int maxBatchSize,
+                     Duration maxDelay,
+                     int maxInFlight,
+                     int queueCapacity,
+                     MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.inFlight = new Semaphore(maxInFlight);
+
+        this.batchSize = DistributionSummary.builder("agentic.embeddings.batch.size")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.requestLatency = Timer.builder("agentic.embeddings.request.latency")
+                .description("Embedding service round trip per batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.callerLatency = Timer.builder("agentic.embeddings.latency")
+                .description("Time from embed call to result, including batching delay")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        this.collector = new Thread(this::collect, "embeddings-batcher");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    CompletableFuture<float[]> submit(String text) {
+        CompletableFuture<float[]> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new IllegalStateException("Embedding batcher is closed"));
+            return result;
+        }
+        try {
+            queue.put(new Pending(text, result, System.nanoTime()));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(ie);
+        }
+        return result;
+    }
+
+    private void collect() {
+        while (!closed) {
+            List<Pending> batch = new ArrayList<>(maxBatchSize);
+            try {
+                batch.add(queue.take());
+
+                long deadline = System.nanoTime() + maxDelayNanos;
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+
+                inFlight.acquire();
+                senders.execute(() -> {
+                    try {
+                        send(batch);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (InterruptedException ie) {
+                // close() drains the queue, but a batch taken from it is only held here
+                Thread.currentThread().interrupt();
+                batch.forEach(p -> p.result().completeExceptionally(new IllegalStateException("Embedding batcher is closed")));
+                return;
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        Map<String, Integer> distinct = new LinkedHashMap<>();
+        for (Pending p : batch) distinct.putIfAbsent(p.text(), distinct.size());
+        List<String> texts = new ArrayList<>(distinct.keySet());
+        batchSize.record(texts.size());
+
+        List<float[]> vectors;
+        long start = System.nanoTime();
+        try {
+            vectors = transport.apply(texts);
+            if (vectors == null || vectors.size() != texts.size()) {
+                throw new IllegalStateException("Embedding service returned "
+                        + (vectors == null ? 0 : vectors.size()) + " vectors for " + texts.size() + " texts");
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Embedding batch of {} texts failed: {}", texts.size(), ex.getMessage());
+            batch.forEach(p -> p.result().completeExceptionally(ex));
+            return;
+        } finally {
+            requestLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        long now = System.nanoTime();
+        for (Pending p : batch) {
+            p.result().complete(vectors.get(distinct.get(p.text())));
+            callerLatency.record(now - p.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        collector.interrupt();
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(p -> p.result().completeExceptionally(new IllegalStateException("Embedding batcher is closed")));
+        senders.close();
+    }
+}
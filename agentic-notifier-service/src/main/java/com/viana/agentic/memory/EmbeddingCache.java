@@ -0,0 +1,220 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Content-addressed embedding cache: entries are keyed by the SHA-256 of the normalized text
+ * (NFC, trimmed, whitespace runs collapsed) and stored as {@code float[]}. The memory tier is an
+ * LRU bounded by entry count with a TTL; the optional disk tier is a memory-mapped file that
+ * outlives the process, so a restarted pod does not have to re-embed everything it has seen.
+ */
+@Component
+public class EmbeddingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCache.class);
+
+    record Key(long hi, long lo) {}
+
+    private record Entry(float[] vector, long writtenAt) {}
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<Key, Entry> memory;
+    private final MappedEmbeddingStore disk;
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+
+    @Autowired
+    public EmbeddingCache(@Value("${agentic.embeddings.cache.enabled:true}") boolean enabled,
+                          @Value("${agentic.embeddings.cache.max-entries:50000}") int maxEntries,
+                          @Value("${agentic.embeddings.cache.ttl:PT24H}") Duration ttl,
+                          @Value("${agentic.embeddings.cache.disk.enabled:false}") boolean diskEnabled,
+                          @Value("${agentic.embeddings.cache.disk.path:embedding-cache.bin}") Path diskPath,
+                          @Value("${agentic.embeddings.cache.disk.max-entries:100000}") int diskMaxEntries,
+                          @Value("${agentic.embeddings.dimension:384}") int dimension,
+                          MeterRegistry meterRegistry) throws IOException {
+        this(enabled, maxEntries, ttl,
+                enabled && diskEnabled ? new MappedEmbeddingStore(diskPath, dimension, diskMaxEntries) : null,
+                Clock.systemUTC(), meterRegistry);
+        if (disk != null) log.info("Embedding disk cache at {} ({} dims)", diskPath, dimension);
+    }
+
+    EmbeddingCache(boolean enabled, int maxEntries, Duration ttl, MappedEmbeddingStore disk,
+                   Clock clock, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.disk = disk;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        this.memoryHits = meterRegistry.counter("agentic.embeddings.cache.hits", "tier", "memory");
+        this.diskHits = meterRegistry.counter("agentic.embeddings.cache.hits", "tier", "disk");
+        this.misses = meterRegistry.counter("agentic.embeddings.cache.misses");
+        Gauge.builder("agentic.embeddings.cache.size", this, EmbeddingCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Cached vector for {@code text}, or the result of {@code loader} which is then cached.
+     * The returned array is shared with the cache and must not be modified.
+     */
+    public float[] get(String text, Function<String, float[]> loader) {
+        if (!enabled) return loader.apply(text);
+
+        Key key = key(text);
+        long now = clock.millis();
+        float[] hit = lookup(key, now);
+        if (hit != null) return hit;
+
+        misses.increment();
+        float[] vector = loader.apply(text);
+        put(key, vector, now);
+        return vector;
+    }
+
+    /** Batch variant of {@link #get}: all misses are loaded with a single {@code loader} call. */
+    public List<float[]> getAll(List<String> texts, Function<List<String>, List<float[]>> loader) {
+        if (!enabled) return loader.apply(texts);
+
+        long now = clock.millis();
+        float[][] out = new float[texts.size()][];
+        List<Key> missKeys = new ArrayList<>();
+        List<String> missTexts = new ArrayList<>();
+        List<Integer> missAt = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            Key key = key(texts.get(i));
+            out[i] = lookup(key, now);
+            if (out[i] == null) {
+                missKeys.add(key);
+                missTexts.add(texts.get(i));
+                missAt.add(i);
+            }
+        }
+        if (!missTexts.isEmpty()) {
+            misses.increment(missTexts.size());
+            List<float[]> loaded = loader.apply(missTexts);
+            for (int m = 0; m < missTexts.size(); m++) {
+                out[missAt.get(m)] = loaded.get(m);
+                put(missKeys.get(m), loaded.get(m), now);
+            }
+        }
+        return Arrays.asList(out);
+    }
+
+    /** Cached vector for {@code text}, or null (counted as a miss); must not be modified. */
+    public float[] getIfPresent(String text) {
+        if (!enabled) return null;
+        float[] hit = lookup(key(text), clock.millis());
+        if (hit == null) misses.increment();
+        return hit;
+    }
+
+    public void put(String text, float[] vector) {
+        if (enabled) put(key(text), vector, clock.millis());
+    }
+
+    private float[] lookup(Key key, long now) {
+        synchronized (memory) {
+            Entry e = memory.get(key);
+            if (e != null) {
+                if (now - e.writtenAt() < ttlMillis) {
+                    memoryHits.increment();
+                    return e.vector();
+                }
+                memory.remove(key);
+            }
+        }
+        if (disk != null) {
+            MappedEmbeddingStore.Hit hit = disk.get(key.hi(), key.lo(), now - ttlMillis);
+            if (hit != null) {
+                diskHits.increment();
+                // keeps the disk entry's age, so promotion does not extend its TTL
+                synchronized (memory) {
+                    memory.put(key, new Entry(hit.vector(), hit.writtenAt()));
+                }
+                return hit.vector();
+            }
+        }
+        return null;
+    }
+
+    private void put(Key key, float[] vector, long now) {
+        synchronized (memory) {
+            memory.put(key, new Entry(vector, now));
+        }
+        if (disk != null) disk.put(key.hi(), key.lo(), vector, now);
+    }
+
+    public int size() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    static String normalize(String text) {
+        String nfc = Normalizer.normalize(text, Normalizer.Form.NFC);
+        StringBuilder sb = new StringBuilder(nfc.length());
+        boolean space = false;
+        for (int i = 0; i < nfc.length(); i++) {
+            char c = nfc.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) sb.append(' ');
+                sb.append(c);
+                space = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    static Key key(String text) {
+        byte[] d;
+        try {
+            d = MessageDigest.getInstance("SHA-256").digest(normalize(text).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        long hi = 0, lo = 0;
+        for (int i = 0; i < 8; i++) {
+            hi = (hi << 8) | (d[i] & 0xff);
+            lo = (lo << 8) | (d[i + 8] & 0xff);
+        }
+        return new Key(hi == 0 ? 1 : hi, lo);    // 0 marks an empty disk slot
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (disk != null) disk.close();
+    }
+}
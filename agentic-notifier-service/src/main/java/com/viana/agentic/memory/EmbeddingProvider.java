@@ -0,0 +1,31 @@
+package com.viana.agentic.memory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Turns texts into embeddings. One provider is active per deployment
+ * ({@code agentic.embeddings.provider}): vectors of different providers live in different spaces,
+ * so every memory in {@code account_memory} has to come from the same one.
+ */
+public interface EmbeddingProvider {
+
+    /** Short name for logs, e.g. {@code http}. */
+    String name();
+
+    /** Vectors for {@code texts}, in the same order. */
+    List<float[]> embedAll(List<String> texts);
+
+    default float[] embed(String text) {
+        return embedAll(List.of(text)).get(0);
+    }
+
+    default CompletableFuture<float[]> embedAsync(String text) {
+        return CompletableFuture.completedFuture(embed(text));
+    }
+
+    /** True when vectors are computed in process and cheaper to recompute than to look up. */
+    default boolean local() {
+        return false;
+    }
+}
@@ -1,31 +1,194 @@
 package com.viana.agentic.memory;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Embeddings for the memory subsystem: the active {@link EmbeddingProvider} behind the
+ * {@link EmbeddingCache}. Local providers bypass the cache.
+ */
 @Component
 public class EmbeddingsClient {
 
-    private final RestClient restClient;
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingsClient.class);
+    private static final double HEDGE_BURST = 10;
 
-    public EmbeddingsClient(@Value("${agentic.embeddings.baseUrl}") String baseUrl) {
-        this.restClient = RestClient.builder().baseUrl(baseUrl).build();
+    private final EmbeddingProvider provider;
+    private final EmbeddingCache cache;
+    private final boolean hedge;
+    private final long minHedgeDelayNanos;
+    private final double maxHedgeRatio;
+    private final RecentLatencies latencies = new RecentLatencies(128);
+    private final ExecutorService hedges = Executors.newVirtualThreadPerTaskExecutor();
+    private double hedgeTokens;     // guarded by this
+
+    private final Counter hedged;
+    private final Counter hedgeWins;
+    private final Counter hedgeThrottled;
+
+    public EmbeddingsClient(EmbeddingProvider provider,
+                            EmbeddingCache cache,
+                            @Value("${agentic.embeddings.hedge.enabled:true}") boolean hedge,
+                            @Value("${agentic.embeddings.hedge.min-delay:PT0.005S}") Duration minHedgeDelay,
+                            @Value("${agentic.embeddings.hedge.max-ratio:0.05}") double maxHedgeRatio,
+                            MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.cache = cache;
+        this.hedge = hedge && !provider.local();
+        this.minHedgeDelayNanos = minHedgeDelay.toNanos();
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.hedged = meterRegistry.counter("agentic.embeddings.hedge", "outcome", "sent");
+        this.hedgeWins = meterRegistry.counter("agentic.embeddings.hedge", "outcome", "won");
+        this.hedgeThrottled = meterRegistry.counter("agentic.embeddings.hedge", "outcome", "throttled");
+        log.info("Embeddings from the {} provider", provider.name());
     }
 
-    public List<Double> embedOne(String text) {
-        EmbeddingRequest req = new EmbeddingRequest(List.of(text));
-        EmbeddingResponse resp = restClient.post()
-                .uri("/embed")
-                .body(req)
-                .retrieve()
-                .body(EmbeddingResponse.class);
+    /** Cached, otherwise fetched (batched with concurrent calls). Must not be modified. */
+    public float[] embed(String text) {
+        if (provider.local()) return provider.embed(text);
+        return cache.get(text, provider::embed);
+    }
+
+    /** Cached where possible; all misses are fetched in one request. Vectors must not be modified. */
+    public List<float[]> embedBatch(List<String> texts) {
+        if (provider.local()) return provider.embedAll(texts);
+        return cache.getAll(texts, provider::embedAll);
+    }
+
+    /** Coalesced with other concurrent calls into one request when batching is enabled; not cached. */
+    public CompletableFuture<float[]> embedAsync(String text) {
+        return provider.embedAsync(text);
+    }
+
+    /** One provider call for all {@code texts}, bypassing the cache. */
+    public List<float[]> embedAll(List<String> texts) {
+        return provider.embedAll(texts);
+    }
+
+    /** The cached vector for {@code text}, or null; never waits for a remote provider. Must not be modified. */
+    public float[] embedIfCached(String text) {
+        if (provider.local()) return provider.embed(text);
+        return cache.getIfPresent(text);
+    }
+
+    /**
+     * Like {@link #embed} but without blocking: on a cache miss the text goes to the provider and,
+     * if no vector has arrived after the recent p95 latency (at least {@code hedge.min-delay}), a
+     * second, unbatched request is sent. The first vector to arrive wins and is cached; the future
+     * fails only if every request failed. Nothing is hedged until the p95 is known, and hedges are
+     * limited to {@code hedge.max-ratio} of the requests (with a burst of {@value #HEDGE_BURST}).
+     */
+    public CompletableFuture<float[]> embedHedged(String text) {
+        if (provider.local()) return CompletableFuture.completedFuture(provider.embed(text));
+        float[] cached = cache.getIfPresent(text);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        CompletableFuture<float[]> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        long start = System.nanoTime();
+        provider.embedAsync(text).whenComplete((v, ex) -> {
+            if (v != null) latencies.record(System.nanoTime() - start);
+            settle(result, outstanding, v, ex, false);
+        });
+        long p95 = latencies.p95();
+        if (hedge && p95 > 0) {
+            earnHedge();
+            long delay = Math.max(minHedgeDelayNanos, p95);
+            CompletableFuture.runAsync(() -> {
+                if (result.isDone()) return;
+                if (!spendHedge()) {
+                    hedgeThrottled.increment();
+                    return;
+                }
+                outstanding.incrementAndGet();
+                hedged.increment();
+                try {
+                    settle(result, outstanding, provider.embedAll(List.of(text)).get(0), null, true);
+                } catch (RuntimeException ex) {
+                    settle(result, outstanding, null, ex, true);
+                }
+            }, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, this::runHedge));
+        }
+        return result.thenApply(v -> {
+            cache.put(text, v);
+            return v;
+        });
+    }
+
+    private synchronized void earnHedge() {
+        hedgeTokens = Math.min(HEDGE_BURST, hedgeTokens + maxHedgeRatio);
+    }
+
+    private synchronized boolean spendHedge() {
+        if (hedgeTokens < 1) return false;
+        hedgeTokens--;
+        return true;
+    }
+
+    private void runHedge(Runnable hedgeRequest) {
+        try {
+            hedges.execute(hedgeRequest);
+        } catch (RejectedExecutionException closed) {
+            // closed while the hedge was waiting; the primary request still settles the result
+        }
+    }
+
+    private void settle(CompletableFuture<float[]> result, AtomicInteger outstanding, float[] v, Throwable ex,
+                        boolean hedgeRequest) {
+        if (v != null) {
+            if (result.complete(v) && hedgeRequest) hedgeWins.increment();
+        } else if (outstanding.decrementAndGet() == 0) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        hedges.shutdownNow();
+    }
+
+    /** The last {@code size} successful provider latencies; the p95 is recomputed every 16 samples. */
+    static final class RecentLatencies {
+
+        private final long[] samples;
+        private int count;
+        private int next;
+        private long recorded;
+        private volatile long p95;
+
+        RecentLatencies(int size) {
+            samples = new long[size];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) count++;
+            if (++recorded % 16 == 0) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                p95 = sorted[(int) Math.ceil(0.95 * count) - 1];
+            }
+        }
 
-        if (resp == null || resp.vectors() == null || resp.vectors().isEmpty()) {
-            throw new IllegalStateException("Embedding service returned empty vectors");
+        /** 0 until 16 samples were recorded. */
+        long p95() {
+            return p95;
         }
-        return resp.vectors().get(0);
     }
 }
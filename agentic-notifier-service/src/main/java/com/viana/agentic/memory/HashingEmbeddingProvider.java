@@ -0,0 +1,112 @@
+package com.viana.agentic.memory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-JVM {@link EmbeddingProvider} ({@code agentic.embeddings.provider=hashing}) using signed
+ * feature hashing: lower-cased words (weight 1), adjacent word pairs (0.5) and character trigrams
+ * of each word padded with boundary marks (0.5) are hashed into {@code dimension} buckets with a
+ * hash-derived sign, then the vector is scaled to unit length. Texts sharing words or word
+ * fragments end up close; there is no notion of synonyms, so recall quality is below the model
+ * served by {@code embedding-service}. Deterministic across runs and JVMs, computed on the
+ * calling thread, and the only allocation is the returned vector.
+ */
+@Component
+@ConditionalOnProperty(name = "agentic.embeddings.provider", havingValue = "hashing")
+public class HashingEmbeddingProvider implements EmbeddingProvider {
+
+    private static final long WORD = 0x9E3779B97F4A7C15L;
+    private static final long PAIR = 0xC2B2AE3D27D4EB4FL;
+    private static final long GRAM = 0x165667B19E3779F9L;
+    private static final char BOUNDARY = '\u0002';
+
+    private final int dimension;
+
+    public HashingEmbeddingProvider(@Value("${agentic.embeddings.dimension:384}") int dimension) {
+        if (dimension < 2) throw new IllegalArgumentException("Embedding dimension must be at least 2");
+        this.dimension = dimension;
+    }
+
+    @Override
+    public String name() {
+        return "hashing";
+    }
+
+    @Override
+    public boolean local() {
+        return true;
+    }
+
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) vectors.add(embed(text));
+        return vectors;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] v = new float[dimension];
+        long word = 0;
+        long previousWord = 0;
+        int wordLength = 0;
+        char c1 = BOUNDARY;
+        char c2 = BOUNDARY;
+        int n = text.length();
+        for (int i = 0; i <= n; i++) {
+            char c = i < n ? Character.toLowerCase(text.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (wordLength == 0) {
+                    word = 0xCBF29CE484222325L;
+                    c1 = BOUNDARY;
+                    c2 = BOUNDARY;
+                }
+                word = (word ^ c) * 0x100000001B3L;  // FNV-1a
+                wordLength++;
+                if (wordLength >= 2) add(v, gram(c1, c2, c), 0.5f);
+                c1 = c2;
+                c2 = c;
+            } else if (wordLength > 0) {
+                if (wordLength >= 2) add(v, gram(c1, c2, BOUNDARY), 0.5f);
+                else add(v, gram(BOUNDARY, c2, BOUNDARY), 0.5f);
+                add(v, word ^ WORD, 1f);
+                if (previousWord != 0) add(v, (previousWord * 31 + word) ^ PAIR, 0.5f);
+                previousWord = word;
+                wordLength = 0;
+            }
+        }
+
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        if (norm == 0) {
+            // no words at all: a fixed direction keeps the cosine distance defined
+            v[0] = 1;
+            return v;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) v[i] *= scale;
+        return v;
+    }
+
+    private static long gram(char a, char b, char c) {
+        return (((long) a << 32) | ((long) b << 16) | c) ^ GRAM;
+    }
+
+    private void add(float[] v, long feature, float weight) {
+        long h = mix(feature);
+        int bucket = (int) (((h >>> 32) * dimension) >>> 32);
+        v[bucket] += (h & 1) == 0 ? weight : -weight;
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
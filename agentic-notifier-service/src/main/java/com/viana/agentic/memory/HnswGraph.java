@@ -0,0 +1,324 @@
+package com.viana.agentic.memory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * HNSW graph (Malkov and Yashunin) over the unit-length embeddings of one account, so cosine
+ * distance is {@code 1 - dot}. Nodes are only ever added; expired ones are dropped by building a
+ * new graph without them ({@link #retainSince}). Layer {@code l} keeps up to {@code m}
+ * links per node ({@code 2m} on layer 0) in {@code int[]} rows whose first cell is the count.
+ * Searches share a read lock; inserts take the write lock.
+ */
+final class HnswGraph {
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMult;
+    private final SplittableRandom random;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private StoredMemory[] memories = new StoredMemory[16];
+    private float[][] vectors = new float[16][];
+    private int[][][] links = new int[16][][];
+    private final Map<Long, Integer> byId = new HashMap<>();
+    private int size;
+    private int entry = -1;
+    private int topLevel = -1;
+    private long oldestMillis = Long.MAX_VALUE;
+
+    HnswGraph(int m, int efConstruction, long seed) {
+        if (m < 2) throw new IllegalArgumentException("HNSW m must be at least 2");
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMult = 1 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Adds {@code memory} under the unit vector {@code unit}; false if its id is already present. */
+    boolean add(StoredMemory memory, float[] unit) {
+        lock.writeLock().lock();
+        try {
+            if (byId.containsKey(memory.id())) return false;
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMult);
+            int node = size;
+            grow(node + 1);
+            memories[node] = memory;
+            vectors[node] = unit;
+            links[node] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) links[node][l] = new int[1 + (l == 0 ? maxM0 : m)];
+            byId.put(memory.id(), node);
+            size++;
+            oldestMillis = Math.min(oldestMillis, memory.createdAt().toEpochMilli());
+
+            if (entry < 0) {
+                entry = node;
+                topLevel = level;
+                return true;
+            }
+
+            int ep = entry;
+            for (int l = topLevel; l > level; l--) ep = greedy(unit, ep, l);
+            for (int l = Math.min(level, topLevel); l >= 0; l--) {
+                long[] nearest = searchLayer(unit, ep, efConstruction, l).drainAscending();
+                int keep = Math.min(nearest.length, l == 0 ? maxM0 : m);
+                int[] row = links[node][l];
+                for (int i = 0; i < keep; i++) {
+                    int nb = node(nearest[i]);
+                    row[++row[0]] = nb;
+                    connect(nb, node, l);
+                }
+                ep = node(nearest[0]);
+            }
+            if (level > topLevel) {
+                entry = node;
+                topLevel = level;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Creation time of the oldest memory in the graph, or null when it is empty. */
+    Instant oldest() {
+        lock.readLock().lock();
+        try {
+            return size == 0 ? null : Instant.ofEpochMilli(oldestMillis);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** A new graph with the memories created at or after {@code floor}, re-linked from scratch. */
+    HnswGraph retainSince(Instant floor, long seed) {
+        lock.readLock().lock();
+        try {
+            HnswGraph kept = new HnswGraph(m, efConstruction, seed);
+            for (int n = 0; n < size; n++) {
+                if (!memories[n].createdAt().isBefore(floor)) kept.add(memories[n], vectors[n]);
+            }
+            return kept;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code k} nearest memories to the unit vector {@code query}, skipping
+     * {@code excludeEventId} and, when {@code since} is set, memories created before it;
+     * {@code ef} is the layer-0 candidate list size.
+     */
+    List<MemoryHit> search(float[] query, int k, int ef, String excludeEventId, Instant since) {
+        lock.readLock().lock();
+        try {
+            if (size == 0) return List.of();
+            ef = Math.max(ef, k + 1);
+            List<MemoryHit> hits = collect(query, k, excludeEventId, since,
+                    size <= ef ? scan(query) : walk(query, ef));
+            if (hits.size() < k && since != null && size > ef) {
+                // the window filtered out too much of the walk; scan it exactly instead
+                hits = collect(query, k, excludeEventId, since, scan(query));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] scan(float[] query) {
+        // the graph walk would visit every node anyway
+        long[] found = new long[size];
+        for (int n = 0; n < size; n++) found[n] = encode(distance(query, n), n);
+        Arrays.sort(found);
+        return found;
+    }
+
+    private long[] walk(float[] query, int ef) {
+        int ep = entry;
+        for (int l = topLevel; l > 0; l--) ep = greedy(query, ep, l);
+        return searchLayer(query, ep, ef, 0).drainAscending();
+    }
+
+    private List<MemoryHit> collect(float[] query, int k, String excludeEventId, Instant since, long[] found) {
+        List<MemoryHit> hits = new ArrayList<>(Math.min(k, found.length));
+        for (int i = 0; i < found.length && hits.size() < k; i++) {
+            StoredMemory mem = memories[node(found[i])];
+            if (excludeEventId != null && Objects.equals(excludeEventId, mem.eventId())) continue;
+            if (since != null && mem.createdAt().isBefore(since)) continue;
+            hits.add(new MemoryHit(mem.id(), mem.accountId(), mem.eventId(), mem.content(), mem.createdAt(),
+                    1 - VectorMath.dot(query, vectors[node(found[i])])));
+        }
+        return hits;
+    }
+
+    private int greedy(float[] q, int ep, int level) {
+        double best = distance(q, ep);
+        for (boolean moved = true; moved; ) {
+            moved = false;
+            int[] row = links[ep][level];
+            for (int i = 1; i <= row[0]; i++) {
+                double d = distance(q, row[i]);
+                if (d < best) {
+                    best = d;
+                    ep = row[i];
+                    moved = true;
+                }
+            }
+        }
+        return ep;
+    }
+
+    /** Best-first search of one layer; returns the {@code ef} closest as a max-heap. */
+    private LongHeap searchLayer(float[] q, int ep, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        LongHeap candidates = new LongHeap(false);
+        LongHeap results = new LongHeap(true);
+        long start = encode(distance(q, ep), ep);
+        visited.set(ep);
+        candidates.push(start);
+        results.push(start);
+
+        while (candidates.size() > 0) {
+            long c = candidates.pop();
+            if (results.size() >= ef && dist(c) > dist(results.peek())) break;
+            int[] row = links[node(c)][level];
+            for (int i = 1; i <= row[0]; i++) {
+                int nb = row[i];
+                if (visited.get(nb)) continue;
+                visited.set(nb);
+                long e = encode(distance(q, nb), nb);
+                if (results.size() < ef || dist(e) < dist(results.peek())) {
+                    candidates.push(e);
+                    results.push(e);
+                    if (results.size() > ef) results.pop();
+                }
+            }
+        }
+        return results;
+    }
+
+    /** Links {@code nb -> node}; a full row drops its farthest link if {@code node} is closer. */
+    private void connect(int nb, int node, int level) {
+        int[] row = links[nb][level];
+        if (row[0] < row.length - 1) {
+            row[++row[0]] = node;
+            return;
+        }
+        float[] v = vectors[nb];
+        int worst = -1;
+        double worstDist = distance(v, node);
+        for (int i = 1; i <= row[0]; i++) {
+            double d = distance(v, row[i]);
+            if (d > worstDist) {
+                worstDist = d;
+                worst = i;
+            }
+        }
+        if (worst > 0) row[worst] = node;
+    }
+
+    private double distance(float[] q, int node) {
+        return 1 - VectorMath.dot(q, vectors[node]);
+    }
+
+    private void grow(int needed) {
+        if (needed <= memories.length) return;
+        int capacity = Math.max(needed, memories.length * 2);
+        memories = Arrays.copyOf(memories, capacity);
+        vectors = Arrays.copyOf(vectors, capacity);
+        links = Arrays.copyOf(links, capacity);
+    }
+
+    // (distance, node) packed into a long that orders like the distance: distances are >= 0,
+    // and non-negative floats order like their bit patterns
+    private static long encode(double distance, int node) {
+        return ((long) Float.floatToRawIntBits((float) Math.max(0, distance)) << 32) | node;
+    }
+
+    private static float dist(long e) {
+        return Float.intBitsToFloat((int) (e >>> 32));
+    }
+
+    private static int node(long e) {
+        return (int) e;
+    }
+
+    private static final class LongHeap {
+
+        private final boolean max;
+        private long[] heap = new long[32];
+        private int n;
+
+        LongHeap(boolean max) {
+            this.max = max;
+        }
+
+        int size() {
+            return n;
+        }
+
+        long peek() {
+            return heap[0];
+        }
+
+        void push(long v) {
+            if (n == heap.length) heap = Arrays.copyOf(heap, n * 2);
+            int i = n++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(v, heap[parent])) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = v;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--n];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= n) break;
+                if (child + 1 < n && before(heap[child + 1], heap[child])) child++;
+                if (!before(heap[child], last)) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+
+        /** Empties the heap into an array sorted nearest first. */
+        long[] drainAscending() {
+            long[] out = Arrays.copyOf(heap, n);
+            n = 0;
+            Arrays.sort(out);
+            return out;
+        }
+
+        private boolean before(long a, long b) {
+            return max ? a > b : a < b;
+        }
+    }
+}
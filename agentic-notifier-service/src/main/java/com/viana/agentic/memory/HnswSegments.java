@@ -0,0 +1,221 @@
+package com.viana.agentic.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of indexed memories in fixed-size memory-mapped segment files
+ * ({@code segment-000000.seg}, ...), replayed to rebuild the HNSW partitions on startup.
+ * A record is {@code [int bodyLength][long id][long createdAt][account][event][content][floats]},
+ * strings as {@code int length + UTF-8} (length -1 for null). The length is written after the
+ * body, and the int behind every record is zeroed first, so a crash mid-append ends the log at
+ * the torn record. Segments written for another dimension or segment size are discarded.
+ * Segments whose memories have all passed the retention period are deleted by
+ * {@link #dropBefore}; the one being appended to is always kept.
+ */
+final class HnswSegments implements AutoCloseable {
+
+    private static final int MAGIC = 0x484E5331;  // "HNS1"
+    private static final int HEADER = 16;
+
+    private final Path dir;
+    private final int dimension;
+    private final int segmentBytes;
+
+    private FileChannel channel;
+    private MappedByteBuffer current;
+    private int segment = -1;
+    private int position;
+    // creation time of the newest memory in each segment, by segment index
+    private final Map<Integer, Long> newest = new HashMap<>();
+
+    HnswSegments(Path dir, int dimension, int segmentBytes) throws IOException {
+        if (segmentBytes <= HEADER + 1024) throw new IllegalArgumentException("HNSW segment size too small");
+        this.dir = dir;
+        this.dimension = dimension;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(dir);
+    }
+
+    /** Feeds every logged memory to {@code sink} in append order and positions the log at its end. */
+    synchronized long replay(Consumer<StoredMemory> sink) throws IOException {
+        List<Path> files = segments();
+        for (Path file : files) {
+            if (!compatible(file)) {
+                for (Path f : files) Files.deleteIfExists(f);
+                return 0;
+            }
+        }
+        long count = 0;
+        for (Path file : files) {
+            FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            int pos = HEADER;
+            long last = Long.MIN_VALUE;
+            while (pos + 4 <= segmentBytes) {
+                int length = buf.getInt(pos);
+                if (length <= 0 || pos + 4 + length > segmentBytes) break;
+                StoredMemory memory = read(buf, pos + 4);
+                last = Math.max(last, memory.createdAt().toEpochMilli());
+                sink.accept(memory);
+                pos += 4 + length;
+                count++;
+            }
+            newest.put(index(file), last);
+            switchTo(ch, buf, index(file), pos);
+        }
+        return count;
+    }
+
+    synchronized void append(StoredMemory memory) throws IOException {
+        byte[] account = utf8(memory.accountId());
+        byte[] event = utf8(memory.eventId());
+        byte[] content = utf8(memory.content());
+        int length = 16 + 12 + len(account) + len(event) + len(content) + dimension * Float.BYTES;
+        if (HEADER + 4 + length > segmentBytes) {
+            throw new IllegalArgumentException("Memory " + memory.id() + " does not fit in an HNSW segment");
+        }
+        if (current == null || position + 4 + length > segmentBytes) roll();
+
+        int p = position + 4;
+        current.putLong(p, memory.id());
+        current.putLong(p + 8, memory.createdAt().toEpochMilli());
+        p = putString(p + 16, account);
+        p = putString(p, event);
+        p = putString(p, content);
+        for (float f : memory.embedding()) {
+            current.putFloat(p, f);
+            p += Float.BYTES;
+        }
+        // terminate the log behind this record first: the space may hold a torn earlier attempt
+        if (p + 4 <= segmentBytes) current.putInt(p, 0);
+        current.putInt(position, length);
+        position += 4 + length;
+        newest.merge(segment, memory.createdAt().toEpochMilli(), Math::max);
+    }
+
+    /**
+     * Deletes the segments, other than the one being appended to, whose memories were all created
+     * before {@code floor}; returns how many.
+     */
+    synchronized int dropBefore(Instant floor) throws IOException {
+        int dropped = 0;
+        for (Path file : segments()) {
+            int index = index(file);
+            Long last = newest.get(index);
+            if (index == segment || last == null || last >= floor.toEpochMilli()) continue;
+            Files.deleteIfExists(file);
+            newest.remove(index);
+            dropped++;
+        }
+        return dropped;
+    }
+
+    private StoredMemory read(MappedByteBuffer buf, int p) {
+        long id = buf.getLong(p);
+        Instant createdAt = Instant.ofEpochMilli(buf.getLong(p + 8));
+        p += 16;
+        String account = getString(buf, p);
+        p += 4 + Math.max(0, buf.getInt(p));
+        String event = getString(buf, p);
+        p += 4 + Math.max(0, buf.getInt(p));
+        String content = getString(buf, p);
+        p += 4 + Math.max(0, buf.getInt(p));
+        float[] v = new float[dimension];
+        for (int i = 0; i < dimension; i++, p += Float.BYTES) v[i] = buf.getFloat(p);
+        return new StoredMemory(id, account, event, content, createdAt, v);
+    }
+
+    private int putString(int p, byte[] bytes) {
+        if (bytes == null) {
+            current.putInt(p, -1);
+            return p + 4;
+        }
+        current.putInt(p, bytes.length);
+        current.put(p + 4, bytes);
+        return p + 4 + bytes.length;
+    }
+
+    private static String getString(MappedByteBuffer buf, int p) {
+        int n = buf.getInt(p);
+        if (n < 0) return null;
+        byte[] bytes = new byte[n];
+        buf.get(p + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int len(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private void roll() throws IOException {
+        int next = segment + 1;
+        Path file = dir.resolve(String.format("segment-%06d.seg", next));
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(4, dimension).putInt(0, MAGIC);
+        switchTo(ch, buf, next, HEADER);
+    }
+
+    private void switchTo(FileChannel ch, MappedByteBuffer buf, int index, int pos) throws IOException {
+        if (channel != null) {
+            current.force();
+            channel.close();
+        }
+        channel = ch;
+        current = buf;
+        segment = index;
+        position = pos;
+    }
+
+    private boolean compatible(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() != segmentBytes) return false;
+            ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            ch.read(header, 0);
+            return header.getInt(0) == MAGIC && header.getInt(4) == dimension;
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return new ArrayList<>(s.filter(p -> p.getFileName().toString().matches("segment-\\d{6}\\.seg"))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    private static int index(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(8, 14));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null) return;
+        current.force();
+        channel.close();
+        channel = null;
+        current = null;
+    }
+}
@@ -0,0 +1,264 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VectorStore} answering searches from in-process HNSW graphs, one per account, so an
+ * account's neighbours are never crowded out by other accounts' rows. Writes go to
+ * {@link PgVectorStore} first; the index then catches up from {@code account_memory} by id
+ * (after every local write and every {@code catch-up-interval}, which also picks up other
+ * instances' writes) and appends what it indexed to memory-mapped segment files. On startup the
+ * segments are replayed and only rows newer than the last logged id are read from Postgres.
+ * <p>
+ * Ids from concurrent transactions can commit out of order, so every catch-up re-reads the last
+ * {@code catch-up-overlap} ids and skips the ones already indexed. Memories older than the
+ * retention period are neither indexed nor returned, matching the partitions
+ * {@link MemoryPartitionMaintainer} drops. Every {@code compact-interval} (and on startup) graphs
+ * holding expired memories are rebuilt without them and fully expired segments are deleted.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "agentic.memory.store", havingValue = "hnsw")
+public class HnswVectorStore implements VectorStore {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswVectorStore.class);
+    private static final int CATCH_UP_PAGE = 1000;
+
+    private final PgVectorStore db;
+    private final int dimension;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final long overlap;
+    private final Duration catchUpInterval;
+    private final Path dir;
+    private final int segmentBytes;
+    private final Duration retention;
+    private final Duration compactInterval;
+
+    private final Map<String, HnswGraph> partitions = new ConcurrentHashMap<>();
+    private final Timer searchLatency;
+    private HnswSegments segments;
+    private ScheduledExecutorService poller;
+    private long watermark;
+    private boolean segmentsBroken;
+    private long lastCompaction;
+
+    public HnswVectorStore(PgVectorStore db,
+                           @Value("${agentic.embeddings.dimension:384}") int dimension,
+                           @Value("${agentic.memory.hnsw.m:16}") int m,
+                           @Value("${agentic.memory.hnsw.ef-construction:100}") int efConstruction,
+                           @Value("${agentic.memory.hnsw.ef-search:64}") int efSearch,
+                           @Value("${agentic.memory.hnsw.catch-up-interval:PT5S}") Duration catchUpInterval,
+                           @Value("${agentic.memory.hnsw.catch-up-overlap:64}") long overlap,
+                           @Value("${agentic.memory.hnsw.path:/tmp/agentic/hnsw}") String path,
+                           @Value("${agentic.memory.hnsw.segment-size:64MB}") DataSize segmentSize,
+                           @Value("${agentic.memory.retention.period:0}") Duration retention,
+                           @Value("${agentic.memory.hnsw.compact-interval:PT1H}") Duration compactInterval,
+                           MeterRegistry meterRegistry) {
+        this.db = db;
+        this.dimension = dimension;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.catchUpInterval = catchUpInterval;
+        this.overlap = overlap;
+        this.dir = Path.of(path);
+        this.segmentBytes = (int) Math.min(Integer.MAX_VALUE, segmentSize.toBytes());
+        this.retention = retention;
+        this.compactInterval = compactInterval;
+
+        this.searchLatency = Timer.builder("agentic.memory.hnsw.search.latency")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("agentic.memory.hnsw.partitions", partitions, Map::size).register(meterRegistry);
+        Gauge.builder("agentic.memory.hnsw.size", this, HnswVectorStore::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        segments = new HnswSegments(dir, dimension, segmentBytes);
+        long replayed = segments.replay(this::index);
+        int added = catchUp();
+        compact();
+        log.info("HNSW memory index ready: {} memories from segments, {} from account_memory, {} accounts",
+                replayed, added, partitions.size());
+
+        if (!catchUpInterval.isZero()) {
+            poller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "hnsw-catch-up");
+                t.setDaemon(true);
+                return t;
+            });
+            long every = catchUpInterval.toMillis();
+            poller.scheduleWithFixedDelay(this::poll, every, every, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void insertMemory(String accountId, String eventId, String content, float[] embedding) {
+        db.insertMemory(accountId, eventId, content, embedding);
+        catchUpQuietly();
+    }
+
+    @Override
+    public void insertMemories(List<MemoryRecord> memories) {
+        db.insertMemories(memories);
+        catchUpQuietly();
+    }
+
+    @Override
+    public List<MemoryHit> searchSimilar(String accountId, String excludeEventId, float[] queryEmbedding,
+                                         int topK, Instant since) {
+        HnswGraph graph = partitions.get(accountId);
+        if (graph == null) return List.of();
+        if (queryEmbedding.length != dimension) {
+            throw new IllegalArgumentException("Query has dimension " + queryEmbedding.length + ", index has " + dimension);
+        }
+        float[] q = VectorMath.normalize(queryEmbedding);
+        if (q == null) return List.of();
+
+        long start = System.nanoTime();
+        Instant floor = retentionFloor();
+        if (floor != null && (since == null || since.isBefore(floor))) since = floor;
+        List<MemoryHit> hits = graph.search(q, topK, efSearch, excludeEventId, since);
+        searchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return hits;
+    }
+
+    @Override
+    public List<StoredMemory> recentMemories(String accountId, int limit) {
+        return db.recentMemories(accountId, limit);
+    }
+
+    /** Indexes rows added to {@code account_memory} since the last catch-up; returns how many. */
+    synchronized int catchUp() {
+        int added = 0;
+        long after = Math.max(0, watermark - overlap);
+        while (true) {
+            List<StoredMemory> page = db.scanAfter(after, CATCH_UP_PAGE);
+            for (StoredMemory mem : page) {
+                after = mem.id();
+                if (index(mem)) {
+                    added++;
+                    persist(mem);
+                }
+            }
+            if (page.size() < CATCH_UP_PAGE) return added;
+        }
+    }
+
+    /**
+     * {@link #catchUp} that only logs a failure: after a write the rows are committed, so failing
+     * the write would make callers retry it into duplicate rows. The next catch-up indexes them.
+     */
+    private void catchUpQuietly() {
+        try {
+            catchUp();
+        } catch (RuntimeException ex) {
+            log.warn("HNSW catch-up from account_memory failed: {}", ex.getMessage());
+        }
+    }
+
+    private void poll() {
+        catchUpQuietly();
+        if (System.nanoTime() - lastCompaction >= compactInterval.toNanos()) compact();
+    }
+
+    /**
+     * Rebuilds the graphs that hold memories past the retention period without them, drops the
+     * accounts left empty and deletes segments holding only expired memories; returns the number
+     * of memories dropped from the index.
+     */
+    synchronized int compact() {
+        lastCompaction = System.nanoTime();
+        Instant floor = retentionFloor();
+        if (floor == null) return 0;
+        int dropped = 0;
+        for (Map.Entry<String, HnswGraph> e : partitions.entrySet()) {
+            Instant oldest = e.getValue().oldest();
+            if (oldest == null || !oldest.isBefore(floor)) continue;
+            HnswGraph kept = e.getValue().retainSince(floor, e.getKey().hashCode());
+            dropped += e.getValue().size() - kept.size();
+            if (kept.size() == 0) partitions.remove(e.getKey());
+            else partitions.put(e.getKey(), kept);
+        }
+        int segmentsDropped = 0;
+        if (!segmentsBroken) {
+            try {
+                segmentsDropped = segments.dropBefore(floor);
+            } catch (IOException ex) {
+                log.warn("Deleting expired HNSW segments failed: {}", ex.getMessage());
+            }
+        }
+        if (dropped > 0 || segmentsDropped > 0) {
+            log.info("HNSW compaction dropped {} expired memories and {} segments", dropped, segmentsDropped);
+        }
+        return dropped;
+    }
+
+    private boolean index(StoredMemory mem) {
+        watermark = Math.max(watermark, mem.id());
+        Instant floor = retentionFloor();
+        if (floor != null && mem.createdAt().isBefore(floor)) return false;
+        if (mem.embedding() == null || mem.embedding().length != dimension) {
+            log.warn("Not indexing memory {}: embedding dimension is not {}", mem.id(), dimension);
+            return false;
+        }
+        float[] unit = VectorMath.normalize(mem.embedding());
+        if (unit == null) return false;
+        HnswGraph graph = partitions.computeIfAbsent(mem.accountId(),
+                a -> new HnswGraph(m, efConstruction, a.hashCode()));
+        return graph.add(mem, unit);
+    }
+
+    private void persist(StoredMemory mem) {
+        if (segmentsBroken) return;
+        try {
+            segments.append(mem);
+        } catch (IOException | RuntimeException ex) {
+            // stop logging so the log stays a prefix of account_memory: the next startup replays
+            // up to here and reads everything after it from Postgres
+            segmentsBroken = true;
+            log.error("HNSW segment log stopped at memory {}: {}", mem.id(), ex.getMessage());
+        }
+    }
+
+    private Instant retentionFloor() {
+        return retention.isZero() ? null : Instant.now().minus(retention);
+    }
+
+    int size() {
+        int size = 0;
+        for (HnswGraph g : partitions.values()) size += g.size();
+        return size;
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (poller != null) poller.shutdownNow();
+        if (segments != null) segments.close();
+    }
+}
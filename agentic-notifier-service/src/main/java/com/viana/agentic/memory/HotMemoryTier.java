@@ -0,0 +1,358 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Complete memory histories of recently active accounts with at most {@code max-per-account}
+ * memories, held as unit vectors in one contiguous {@code float[]} slab per account and scored
+ * by brute force with {@link VectorMath#dot}. For those accounts a recall costs no Postgres round
+ * trip. The first recall of an account loads its history. If it has more memories than fit, the
+ * account is marked large and always searched in the {@link VectorStore}. Committed writes are
+ * appended with id -1, the same convention as not yet committed memories in
+ * {@link MemoryWriteBehind}.
+ * <p>
+ * Only writes made through this instance are seen, which holds while an account's events are
+ * consumed by a single instance (they are keyed by account). A slab is reloaded once it is older
+ * than {@code max-staleness}, which bounds how long writes from another instance (after a
+ * partition rebalance) or rows dropped by retention go unnoticed. Accounts are evicted least recently
+ * used once the slabs hold more than {@code max-vectors} in total, or more than
+ * {@code max-accounts} accounts (large ones included) are tracked.
+ */
+@Component
+public class HotMemoryTier {
+
+    private static final Slab LARGE = new Slab(0);
+
+    static final class Slab {
+
+        float[] vectors;
+        long[] ids;
+        String[] eventIds;
+        String[] contents;
+        Instant[] createdAt;
+        int count;
+        List<MemoryRecord> appendedWhileLoading;
+        int accounted;          // vectors counted in vectorCount; guarded by the tier's map
+        boolean evicted;        // guarded by the tier's map
+        long loadedAt;          // System.nanoTime() when the load started
+
+        Slab(int capacity) {
+            vectors = new float[0];
+            ids = new long[capacity];
+            eventIds = new String[capacity];
+            contents = new String[capacity];
+            createdAt = new Instant[capacity];
+        }
+    }
+
+    private final VectorStore store;
+    private final boolean enabled;
+    private final int maxPerAccount;
+    private final long maxVectors;
+    private final int maxAccounts;
+    private final int dimension;
+    private final long maxStalenessNanos;
+
+    private final LinkedHashMap<String, Slab> slabs = new LinkedHashMap<>(256, 0.75f, true);
+    private long vectorCount;
+
+    private final Counter hot;
+    private final Counter cold;
+    private final Counter large;
+
+    public HotMemoryTier(VectorStore store,
+                         @Value("${agentic.memory.hot.enabled:true}") boolean enabled,
+                         @Value("${agentic.memory.hot.max-per-account:256}") int maxPerAccount,
+                         @Value("${agentic.memory.hot.max-vectors:100000}") long maxVectors,
+                         @Value("${agentic.memory.hot.max-accounts:50000}") int maxAccounts,
+                         @Value("${agentic.memory.hot.max-staleness:PT5M}") Duration maxStaleness,
+                         @Value("${agentic.embeddings.dimension:384}") int dimension,
+                         MeterRegistry meterRegistry) {
+        this.store = store;
+        this.enabled = enabled;
+        this.maxPerAccount = maxPerAccount;
+        this.maxVectors = maxVectors;
+        this.maxAccounts = maxAccounts;
+        this.dimension = dimension;
+        this.maxStalenessNanos = maxStaleness.isZero() ? Long.MAX_VALUE : maxStaleness.toNanos();
+
+        this.hot = meterRegistry.counter("agentic.memory.recall", "tier", "hot", "reason", "resident");
+        this.cold = meterRegistry.counter("agentic.memory.recall", "tier", "store", "reason", "cold");
+        this.large = meterRegistry.counter("agentic.memory.recall", "tier", "store", "reason", "large");
+        Gauge.builder("agentic.memory.hot.accounts", this, HotMemoryTier::accounts).register(meterRegistry);
+        Gauge.builder("agentic.memory.hot.vectors", this, HotMemoryTier::vectors).register(meterRegistry);
+    }
+
+    /**
+     * Nearest memories of the account from its slab, loading the slab on first use. Falls back
+     * to {@link VectorStore#searchSimilar} for large accounts, or while another recall is loading
+     * the account. A non-null {@code since} skips memories created before it.
+     */
+    public List<MemoryHit> search(String accountId, String excludeEventId, float[] query, int topK, Instant since) {
+        if (!enabled) return store.searchSimilar(accountId, excludeEventId, query, topK, since);
+        List<MemoryHit> hits = resident(accountId, excludeEventId, query, topK, since, true);
+        return hits != null ? hits : store.searchSimilar(accountId, excludeEventId, query, topK, since);
+    }
+
+    /**
+     * {@link #search} for many queries. Accounts that are not resident yet are not loaded; their
+     * queries go to {@link VectorStore#searchSimilarBatch} together.
+     */
+    public List<List<MemoryHit>> searchBatch(List<VectorQuery> queries, int topK, Instant since) {
+        if (!enabled) return store.searchSimilarBatch(queries, topK, since);
+        List<List<MemoryHit>> results = new ArrayList<>(queries.size());
+        List<VectorQuery> misses = new ArrayList<>();
+        List<Integer> missAt = new ArrayList<>();
+        for (VectorQuery q : queries) {
+            List<MemoryHit> hits = resident(q.accountId(), q.excludeEventId(), q.embedding(), topK, since, false);
+            if (hits == null) {
+                misses.add(q);
+                missAt.add(results.size());
+            }
+            results.add(hits);
+        }
+        if (!misses.isEmpty()) {
+            List<List<MemoryHit>> stored = store.searchSimilarBatch(misses, topK, since);
+            for (int i = 0; i < misses.size(); i++) results.set(missAt.get(i), stored.get(i));
+        }
+        return results;
+    }
+
+    /** Hits from the account's slab, or null if the store has to answer. */
+    private List<MemoryHit> resident(String accountId, String excludeEventId, float[] query, int topK,
+                                     Instant since, boolean loadCold) {
+        Slab slab;
+        boolean load = false;
+        synchronized (slabs) {
+            slab = slabs.get(accountId);
+            if (slab != null && slab != LARGE && System.nanoTime() - slab.loadedAt > maxStalenessNanos) {
+                slabs.remove(accountId);
+                slab.evicted = true;
+                vectorCount -= slab.accounted;
+                slab = null;
+            }
+            if (slab == null && loadCold) {
+                slab = new Slab(0);
+                slab.appendedWhileLoading = new ArrayList<>();
+                slab.loadedAt = System.nanoTime();
+                slabs.put(accountId, slab);
+                load = true;
+            }
+        }
+        if (slab == null) {
+            cold.increment();
+            return null;
+        }
+        if (slab == LARGE) {
+            large.increment();
+            return null;
+        }
+        if (load) {
+            cold.increment();
+            if (!load(accountId, slab)) return null;
+        } else {
+            synchronized (slab) {
+                if (slab.appendedWhileLoading != null) {
+                    cold.increment();
+                    return null;
+                }
+            }
+            hot.increment();
+        }
+        return score(accountId, slab, excludeEventId, query, topK, since);
+    }
+
+    /** Records a committed memory; ignored for accounts that are not resident. */
+    public void append(MemoryRecord memory) {
+        if (!enabled) return;
+        Slab slab;
+        synchronized (slabs) {
+            slab = slabs.get(memory.accountId());
+        }
+        if (slab == null || slab == LARGE) return;
+        boolean overflow;
+        int added;
+        synchronized (slab) {
+            if (slab.appendedWhileLoading != null) {
+                slab.appendedWhileLoading.add(memory);
+                return;
+            }
+            int before = slab.count;
+            overflow = !add(slab, -1, memory.eventId(), memory.content(), Instant.now(), memory.embedding());
+            added = slab.count - before;
+        }
+        if (overflow) markLarge(memory.accountId(), slab);
+        else accountFor(slab, added);
+    }
+
+    /** Drops every resident account, e.g. after their stored memories were rewritten. */
+    public void clear() {
+        synchronized (slabs) {
+            for (Slab s : slabs.values()) s.evicted = true;
+            slabs.clear();
+            vectorCount = 0;
+        }
+    }
+
+    private boolean load(String accountId, Slab slab) {
+        List<StoredMemory> rows;
+        try {
+            rows = store.recentMemories(accountId, maxPerAccount + 1);
+        } catch (RuntimeException ex) {
+            synchronized (slabs) {
+                slabs.remove(accountId, slab);
+            }
+            throw ex;
+        }
+        if (rows.size() > maxPerAccount) {
+            markLarge(accountId, slab);
+            return false;
+        }
+
+        boolean overflow = false;
+        int added;
+        synchronized (slab) {
+            // rows are newest first; keep the slab oldest first like the appends that follow
+            for (int i = rows.size() - 1; i >= 0 && !overflow; i--) {
+                StoredMemory m = rows.get(i);
+                overflow = !add(slab, m.id(), m.eventId(), m.content(), m.createdAt(), m.embedding());
+            }
+            for (MemoryRecord m : slab.appendedWhileLoading) {
+                if (overflow || contains(slab, m.eventId(), m.content())) continue;
+                overflow = !add(slab, -1, m.eventId(), m.content(), Instant.now(), m.embedding());
+            }
+            slab.appendedWhileLoading = null;
+            added = slab.count;
+        }
+        if (overflow) {
+            markLarge(accountId, slab);
+            return false;
+        }
+        accountFor(slab, added);
+        return true;
+    }
+
+    /** Adds a memory unless it is already there; false when the slab is full. */
+    private boolean add(Slab slab, long id, String eventId, String content, Instant createdAt, float[] embedding) {
+        if (embedding == null || embedding.length != dimension || contains(slab, eventId, content)) return true;
+        if (slab.count == maxPerAccount) return false;
+        float[] unit = VectorMath.normalize(embedding);
+        if (unit == null) return true;
+
+        int n = slab.count;
+        if (n == slab.ids.length) {
+            int capacity = Math.min(maxPerAccount, Math.max(8, n * 2));
+            slab.ids = Arrays.copyOf(slab.ids, capacity);
+            slab.eventIds = Arrays.copyOf(slab.eventIds, capacity);
+            slab.contents = Arrays.copyOf(slab.contents, capacity);
+            slab.createdAt = Arrays.copyOf(slab.createdAt, capacity);
+            slab.vectors = Arrays.copyOf(slab.vectors, capacity * dimension);
+        }
+        System.arraycopy(unit, 0, slab.vectors, n * dimension, dimension);
+        slab.ids[n] = id;
+        slab.eventIds[n] = eventId;
+        slab.contents[n] = content;
+        slab.createdAt[n] = createdAt;
+        slab.count = n + 1;
+        return true;
+    }
+
+    private static boolean contains(Slab slab, String eventId, String content) {
+        for (int i = 0; i < slab.count; i++) {
+            if (Objects.equals(slab.eventIds[i], eventId) && Objects.equals(slab.contents[i], content)) return true;
+        }
+        return false;
+    }
+
+    private List<MemoryHit> score(String accountId, Slab slab, String excludeEventId, float[] query, int topK,
+                                  Instant since) {
+        float[] q = VectorMath.normalize(query);
+        if (q == null || q.length != dimension) return List.of();
+
+        synchronized (slab) {
+            int n = slab.count;
+            int k = Math.min(topK, n);
+            int[] best = new int[k];
+            double[] bestDist = new double[k];
+            int found = 0;
+            for (int i = 0; i < n; i++) {
+                if (excludeEventId != null && excludeEventId.equals(slab.eventIds[i])) continue;
+                if (since != null && slab.createdAt[i].isBefore(since)) continue;
+                double d = 1 - VectorMath.dot(slab.vectors, i * dimension, q, 0, dimension);
+                if (found == k && d >= bestDist[k - 1]) continue;
+                int at = found < k ? found++ : k - 1;
+                while (at > 0 && bestDist[at - 1] > d) {
+                    best[at] = best[at - 1];
+                    bestDist[at] = bestDist[at - 1];
+                    at--;
+                }
+                best[at] = i;
+                bestDist[at] = d;
+            }
+
+            List<MemoryHit> hits = new ArrayList<>(found);
+            for (int j = 0; j < found; j++) {
+                int i = best[j];
+                hits.add(new MemoryHit(slab.ids[i], accountId, slab.eventIds[i], slab.contents[i],
+                        slab.createdAt[i], bestDist[j]));
+            }
+            return hits;
+        }
+    }
+
+    private void markLarge(String accountId, Slab slab) {
+        synchronized (slabs) {
+            if (slab.evicted) return;
+            slab.evicted = true;
+            vectorCount -= slab.accounted;
+            slabs.put(accountId, LARGE);
+            evictEldest();
+        }
+    }
+
+    private void accountFor(Slab slab, int added) {
+        synchronized (slabs) {
+            if (slab.evicted) return;
+            slab.accounted += added;
+            vectorCount += added;
+            evictEldest();
+        }
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<String, Slab>> eldest = slabs.entrySet().iterator();
+        while ((vectorCount > maxVectors || slabs.size() > maxAccounts) && eldest.hasNext()) {
+            Slab s = eldest.next().getValue();
+            eldest.remove();
+            if (s == LARGE) continue;
+            s.evicted = true;
+            vectorCount -= s.accounted;
+        }
+    }
+
+    int accounts() {
+        synchronized (slabs) {
+            return slabs.size();
+        }
+    }
+
+    long vectors() {
+        synchronized (slabs) {
+            return vectorCount;
+        }
+    }
+}
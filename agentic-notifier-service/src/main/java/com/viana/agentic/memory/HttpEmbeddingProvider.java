@@ -0,0 +1,156 @@
+package com.viana.agentic.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link EmbeddingProvider} backed by the Python {@code embedding-service}
+ * ({@code agentic.embeddings.provider=http}, the default). Concurrent single-text calls are
+ * coalesced into one {@code /embed} request by an {@link EmbeddingBatcher}.
+ */
+@Component
+@ConditionalOnProperty(name = "agentic.embeddings.provider", havingValue = "http", matchIfMissing = true)
+public class HttpEmbeddingProvider implements EmbeddingProvider {
+
+    static final MediaType FLOAT32 = MediaType.APPLICATION_OCTET_STREAM;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final RestClient restClient;
+    private final boolean binary;
+    private final EmbeddingBatcher batcher;
+    private final long waitTimeoutMillis;
+
+    public HttpEmbeddingProvider(@Value("${agentic.embeddings.baseUrl}") String baseUrl,
+                                 @Value("${agentic.embeddings.binary:true}") boolean binary,
+                                 @Value("${agentic.embeddings.batch.enabled:true}") boolean batchEnabled,
+                                 @Value("${agentic.embeddings.batch.max-size:32}") int maxBatchSize,
+                                 @Value("${agentic.embeddings.batch.max-delay:PT0.005S}") Duration maxDelay,
+                                 @Value("${agentic.embeddings.batch.max-in-flight:4}") int maxInFlight,
+                                 @Value("${agentic.embeddings.batch.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${agentic.embeddings.batch.wait-timeout:PT10S}") Duration waitTimeout,
+                                 MeterRegistry meterRegistry) {
+        this.restClient = RestClient.builder().baseUrl(baseUrl).build();
+        this.binary = binary;
+        this.batcher = batchEnabled
+                ? new EmbeddingBatcher(this::embedAll, maxBatchSize, maxDelay, maxInFlight, queueCapacity, meterRegistry)
+                : null;
+        this.waitTimeoutMillis = waitTimeout.toMillis();
+    }
+
+    @Override
+    public String name() {
+        return "http";
+    }
+
+    /** Coalesced with other concurrent calls into one request when batching is enabled. */
+    @Override
+    public CompletableFuture<float[]> embedAsync(String text) {
+        if (batcher == null) {
+            return CompletableFuture.supplyAsync(() -> embedAll(List.of(text)).get(0));
+        }
+        return batcher.submit(text);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        if (batcher == null) {
+            return embedAll(List.of(text)).get(0);
+        }
+        CompletableFuture<float[]> result = batcher.submit(text);
+        try {
+            return result.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Embedding failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            result.cancel(false);
+            throw new IllegalStateException("Embedding not returned within " + waitTimeoutMillis + " ms");
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an embedding", ie);
+        }
+    }
+
+    /**
+     * One request for all {@code texts}; vectors are returned in the same order. Asks for raw
+     * little-endian float32 and falls back to JSON when the service answers with JSON.
+     */
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        ResponseEntity<byte[]> resp = restClient.post()
+                .uri("/embed")
+                .accept(binary ? FLOAT32 : MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON)
+                .body(new EmbeddingRequest(texts))
+                .retrieve()
+                .toEntity(byte[].class);
+
+        byte[] body = resp.getBody();
+        if (body == null || body.length == 0) {
+            throw new IllegalStateException("Embedding service returned empty vectors");
+        }
+        MediaType type = resp.getHeaders().getContentType();
+        if (type != null && FLOAT32.isCompatibleWith(type)) {
+            return decodeFloat32(body, texts.size());
+        }
+        return decodeJson(body);
+    }
+
+    static List<float[]> decodeFloat32(byte[] body, int count) {
+        if (count == 0 || body.length % (count * Float.BYTES) != 0) {
+            throw new IllegalStateException("Embedding payload of " + body.length + " bytes does not hold " + count + " vectors");
+        }
+        int dim = body.length / Float.BYTES / count;
+        FloatBuffer floats = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] v = new float[dim];
+            floats.get(v);
+            vectors.add(v);
+        }
+        return vectors;
+    }
+
+    private static List<float[]> decodeJson(byte[] body) {
+        EmbeddingResponse resp;
+        try {
+            resp = JSON.readValue(body, EmbeddingResponse.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable embedding response", e);
+        }
+        if (resp.vectors() == null || resp.vectors().isEmpty()) {
+            throw new IllegalStateException("Embedding service returned empty vectors");
+        }
+        List<float[]> vectors = new ArrayList<>(resp.vectors().size());
+        for (List<Double> v : resp.vectors()) {
+            float[] out = new float[v.size()];
+            for (int i = 0; i < out.length; i++) out[i] = v.get(i).floatValue();
+            vectors.add(out);
+        }
+        return vectors;
+    }
+
+    @PreDestroy
+    void close() {
+        if (batcher != null) batcher.close();
+    }
+}
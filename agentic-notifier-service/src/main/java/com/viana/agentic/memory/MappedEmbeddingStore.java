@@ -0,0 +1,112 @@
+package com.viana.agentic.memory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-size, memory-mapped hash table of embeddings that survives restarts. Slots hold
+ * {@code [keyHi, keyLo, writtenAt, vector...]}; a key probes {@value #PROBES} consecutive slots
+ * and, when all are taken, replaces the oldest. {@code keyHi} is cleared before a slot is
+ * rewritten and set last, so a crash mid-write leaves a miss rather than a wrong vector.
+ * A file written for another dimension or slot count is discarded.
+ */
+final class MappedEmbeddingStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x454D4231;  // "EMB1"
+    private static final int HEADER = 16;
+    private static final int PROBES = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buf;
+    private final int dimension;
+    private final int slots;
+    private final int slotBytes;
+
+    MappedEmbeddingStore(Path file, int dimension, int maxEntries) throws IOException {
+        this.dimension = dimension;
+        this.slots = Integer.highestOneBit(Math.max(PROBES, maxEntries - 1)) << 1;
+        this.slotBytes = 24 + dimension * Float.BYTES;
+        long size = HEADER + (long) slots * slotBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Embedding disk cache of " + slots + " x " + dimension
+                    + " floats exceeds 2 GB; lower max-entries");
+        }
+
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean compatible = channel.size() == size;
+        this.buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        if (!compatible || buf.getInt(0) != MAGIC || buf.getInt(4) != dimension || buf.getInt(8) != slots) {
+            for (int s = 0; s < slots; s++) buf.putLong(offset(s), 0L);
+            buf.putInt(0, MAGIC).putInt(4, dimension).putInt(8, slots);
+        }
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    record Hit(float[] vector, long writtenAt) {}
+
+    /** The vector stored for the key with the time it was written, or null if absent or older than {@code notBefore}. */
+    synchronized Hit get(long hi, long lo, long notBefore) {
+        for (int p = 0; p < PROBES; p++) {
+            int at = offset(slot(hi, p));
+            if (buf.getLong(at) == hi && buf.getLong(at + 8) == lo) {
+                long writtenAt = buf.getLong(at + 16);
+                if (writtenAt < notBefore) return null;
+                float[] v = new float[dimension];
+                for (int i = 0; i < dimension; i++) v[i] = buf.getFloat(at + 24 + i * Float.BYTES);
+                return new Hit(v, writtenAt);
+            }
+        }
+        return null;
+    }
+
+    synchronized void put(long hi, long lo, float[] vector, long now) {
+        if (vector.length != dimension) return;
+        int target = -1;
+        long oldest = Long.MAX_VALUE;
+        for (int p = 0; p < PROBES; p++) {
+            int s = slot(hi, p);
+            int at = offset(s);
+            long k = buf.getLong(at);
+            if (k == 0 || (k == hi && buf.getLong(at + 8) == lo)) {
+                target = s;
+                break;
+            }
+            long written = buf.getLong(at + 16);
+            if (written < oldest) {
+                oldest = written;
+                target = s;
+            }
+        }
+
+        int at = offset(target);
+        buf.putLong(at, 0L);
+        buf.putLong(at + 8, lo);
+        buf.putLong(at + 16, now);
+        for (int i = 0; i < dimension; i++) buf.putFloat(at + 24 + i * Float.BYTES, vector[i]);
+        buf.putLong(at, hi);
+    }
+
+    private int slot(long hi, int probe) {
+        return (int) (hi + probe) & (slots - 1);
+    }
+
+    private int offset(int slot) {
+        return HEADER + slot * slotBytes;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buf.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,311 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the time partitions of {@code account_memory} (see
+ * {@code infra/postgres/init/004_partitioned_account_memory.sql}) rolling: every
+ * {@code check-interval} it creates the partitions for the next {@code precreate} periods, so
+ * writes never land in the default partition, and removes partitions that ended more than
+ * {@code retention.period} ago. In {@code summarize} mode each account's expired memories are
+ * first folded into one summary row (newest contents first, mean embedding) dated when written.
+ * <p>
+ * Maintenance starts once the application is ready. Every partition is created or removed in its
+ * own transaction holding a transaction-scoped advisory lock, so with several instances only one
+ * maintains the table at a time, and a failed step does not roll back the others; failures are
+ * counted in {@code agentic.memory.partitions.failures{step}}. Rows that landed in the default
+ * partition within a new partition's range are moved into it, since Postgres refuses to create a
+ * partition that the default partition already holds rows for. If {@code account_memory} is not
+ * partitioned, it logs once and does nothing.
+ */
+@Component
+public class MemoryPartitionMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryPartitionMaintainer.class);
+    private static final Pattern NAME = Pattern.compile("account_memory_p(\\d{8})_(\\d{8})");
+    private static final DateTimeFormatter BASIC = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final long LOCK_KEY = 0x6D656D6F7279L;  // "memory"
+    private static final String DEFAULT_PARTITION = "account_memory_default";
+
+    enum Granularity {
+        DAY, WEEK, MONTH;
+
+        LocalDate start(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate next(LocalDate day) {
+            LocalDate start = start(day);
+            return switch (this) {
+                case DAY -> start.plusDays(1);
+                case WEEK -> start.plusWeeks(1);
+                case MONTH -> start.plusMonths(1);
+            };
+        }
+    }
+
+    enum Mode { DROP, SUMMARIZE }
+
+    /** A partition covering {@code [from, to)} in UTC days. */
+    record Partition(LocalDate from, LocalDate to) {
+
+        String name() {
+            return "account_memory_p" + BASIC.format(from) + "_" + BASIC.format(to);
+        }
+
+        static Partition parse(String name) {
+            Matcher m = NAME.matcher(name);
+            if (!m.matches()) return null;
+            return new Partition(LocalDate.parse(m.group(1), BASIC), LocalDate.parse(m.group(2), BASIC));
+        }
+    }
+
+    record Plan(List<Partition> create, List<Partition> expire) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final HotMemoryTier hot;
+    private final Granularity granularity;
+    private final int precreate;
+    private final Duration retention;
+    private final Mode mode;
+    private final boolean enabled;
+    private final Duration checkInterval;
+    private final Counter expired;
+    private final Counter createFailures;
+    private final Counter expireFailures;
+    private final AtomicInteger partitionCount = new AtomicInteger();
+    private ScheduledExecutorService poller;
+
+    private boolean warnedUnpartitioned;
+
+    public MemoryPartitionMaintainer(JdbcTemplate jdbc,
+                                     TransactionTemplate tx,
+                                     HotMemoryTier hot,
+                                     @Value("${agentic.memory.partitions.enabled:true}") boolean enabled,
+                                     @Value("${agentic.memory.partitions.granularity:month}") String granularity,
+                                     @Value("${agentic.memory.partitions.precreate:2}") int precreate,
+                                     @Value("${agentic.memory.partitions.check-interval:PT1H}") Duration checkInterval,
+                                     @Value("${agentic.memory.retention.period:0}") Duration retention,
+                                     @Value("${agentic.memory.retention.mode:drop}") String mode,
+                                     MeterRegistry meterRegistry) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.hot = hot;
+        this.granularity = Granularity.valueOf(granularity.trim().toUpperCase(Locale.ROOT));
+        this.precreate = precreate;
+        this.retention = retention;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.enabled = enabled;
+        this.checkInterval = checkInterval;
+        this.expired = meterRegistry.counter("agentic.memory.partitions.expired", "mode", this.mode.name().toLowerCase(Locale.ROOT));
+        this.createFailures = meterRegistry.counter("agentic.memory.partitions.failures", "step", "create");
+        this.expireFailures = meterRegistry.counter("agentic.memory.partitions.failures", "step", "expire");
+        Gauge.builder("agentic.memory.partitions.count", partitionCount, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // not from the constructor: DDL would otherwise race the rest of startup for connections and locks
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (!enabled || checkInterval.isZero() || poller != null) return;
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "memory-partitions");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::poll, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Partitions to create so that the current and the next {@code precreate} periods are covered,
+     * continuing from the newest existing partition, and existing partitions that ended at or
+     * before {@code now - retention} (none when {@code retention} is zero).
+     */
+    static Plan plan(List<Partition> existing, Instant now, Granularity granularity, int precreate, Duration retention) {
+        LocalDate today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        LocalDate from = granularity.start(today);
+        for (Partition p : existing) {
+            if (p.to().isAfter(from)) from = p.to();
+        }
+        LocalDate until = granularity.start(today);
+        for (int i = 0; i <= precreate; i++) until = granularity.next(until);
+
+        List<Partition> create = new ArrayList<>();
+        while (from.isBefore(until)) {
+            LocalDate to = granularity.next(from);
+            create.add(new Partition(from, to));
+            from = to;
+        }
+
+        List<Partition> expire = new ArrayList<>();
+        if (!retention.isZero()) {
+            Instant cutoff = now.minus(retention);
+            for (Partition p : existing) {
+                if (!p.to().atStartOfDay(ZoneOffset.UTC).toInstant().isAfter(cutoff)) expire.add(p);
+            }
+        }
+        return new Plan(create, expire);
+    }
+
+    void poll() {
+        try {
+            maintain();
+        } catch (RuntimeException ex) {
+            log.warn("account_memory partition maintenance failed: {}", ex.getMessage());
+        }
+    }
+
+    void maintain() {
+        if (!partitioned()) {
+            if (!warnedUnpartitioned) {
+                warnedUnpartitioned = true;
+                log.warn("account_memory is not partitioned; apply 004_partitioned_account_memory.sql to enable retention");
+            }
+            return;
+        }
+        Plan plan = plan(partitions(), Instant.now(), granularity, precreate, retention);
+
+        boolean summarized = false;
+        boolean locked = true;
+        for (Partition p : plan.expire()) {
+            Boolean done = step(p, expireFailures, () -> expire(p));
+            if (done == null) {
+                locked = false;
+                break;
+            }
+            summarized |= done && mode == Mode.SUMMARIZE;
+        }
+        // resident histories do not contain the new summary rows
+        if (summarized) hot.clear();
+        if (!locked) return;
+
+        for (Partition p : plan.create()) {
+            if (step(p, createFailures, () -> create(p)) == null) return;
+        }
+        partitionCount.set(partitions().size());
+    }
+
+    /**
+     * Runs {@code work} in its own transaction under the advisory lock. True when it ran, false
+     * when it failed (logged and counted in {@code failures}), null when another instance holds
+     * the lock.
+     */
+    private Boolean step(Partition p, Counter failures, Runnable work) {
+        try {
+            return tx.execute(status -> {
+                Boolean locked = jdbc.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+                if (!Boolean.TRUE.equals(locked)) return null;
+                work.run();
+                return true;
+            });
+        } catch (RuntimeException ex) {
+            failures.increment();
+            log.error("account_memory partition {} could not be maintained: {}", p.name(), ex.getMessage());
+            return false;
+        }
+    }
+
+    private void create(Partition p) {
+        if (exists(p.name())) return;
+        String bounds = "FOR VALUES FROM ('" + p.from() + " 00:00:00+00') TO ('" + p.to() + " 00:00:00+00')";
+        String range = "created_at >= '" + p.from() + " 00:00:00+00' AND created_at < '" + p.to() + " 00:00:00+00'";
+        if (!exists(DEFAULT_PARTITION) || !Boolean.TRUE.equals(jdbc.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE " + range + ")", Boolean.class))) {
+            jdbc.execute("CREATE TABLE " + p.name() + " PARTITION OF account_memory " + bounds);
+            log.info("Created account_memory partition {}", p.name());
+            return;
+        }
+        // build it detached, move the default partition's rows in, then attach it
+        jdbc.execute("CREATE TABLE " + p.name() + " (LIKE account_memory INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbc.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range
+                + " RETURNING *) INSERT INTO " + p.name() + " SELECT * FROM moved");
+        jdbc.execute("ALTER TABLE account_memory ATTACH PARTITION " + p.name() + " " + bounds);
+        log.warn("Created account_memory partition {} and moved {} rows into it from {}",
+                p.name(), moved, DEFAULT_PARTITION);
+    }
+
+    private void expire(Partition p) {
+        if (!exists(p.name())) return;
+        if (mode == Mode.SUMMARIZE) {
+            int accounts = summarize(p);
+            log.info("Summarized {} accounts' memories from partition {}", accounts, p.name());
+        }
+        jdbc.execute("ALTER TABLE account_memory DETACH PARTITION " + p.name());
+        jdbc.execute("DROP TABLE " + p.name());
+        expired.increment();
+        log.info("Dropped expired account_memory partition {}", p.name());
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private boolean partitioned() {
+        List<String> kind = jdbc.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('account_memory')", String.class);
+        return kind.size() == 1 && "p".equals(kind.get(0));
+    }
+
+    private List<Partition> partitions() {
+        List<Partition> partitions = new ArrayList<>();
+        for (String name : jdbc.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'account_memory'::regclass
+                """, String.class)) {
+            Partition p = Partition.parse(name);
+            if (p != null) partitions.add(p);
+        }
+        return partitions;
+    }
+
+    private int summarize(Partition p) {
+        return jdbc.update("""
+                INSERT INTO account_memory (account_id, event_id, content, embedding)
+                SELECT account_id, NULL,
+                       'Summary of ' || count(*) || ' memories ('
+                           || to_char(min(created_at) AT TIME ZONE 'UTC', 'YYYY-MM-DD') || ' to '
+                           || to_char(max(created_at) AT TIME ZONE 'UTC', 'YYYY-MM-DD') || '): '
+                           || left(string_agg(content, ' | ' ORDER BY created_at DESC), 2000),
+                       avg(embedding)
+                FROM %s
+                GROUP BY account_id
+                """.formatted(p.name()));
+    }
+
+    @PreDestroy
+    void close() {
+        if (poller != null) poller.shutdownNow();
+    }
+}
@@ -0,0 +1,7 @@
+package com.viana.agentic.memory;
+
+public record MemoryQuery(
+        String accountId,
+        String excludeEventId,
+        String query
+) {}
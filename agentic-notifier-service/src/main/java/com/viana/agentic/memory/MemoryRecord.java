@@ -0,0 +1,8 @@
+package com.viana.agentic.memory;
+
+public record MemoryRecord(
+        String accountId,
+        String eventId,
+        String content,
+        float[] embedding
+) {}
@@ -1,39 +1,219 @@
 package com.viana.agentic.memory;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class MemoryService {
 
+    private static final Logger log = LoggerFactory.getLogger(MemoryService.class);
+
     private final boolean enabled;
     private final int topK;
     private final EmbeddingsClient embeddings;
     private final VectorStore store;
+    private final HotMemoryTier hot;
+    private final MemoryWriteBehind writeBehind;
+    private final Duration retention;
+    private final Semaphore searchPermits;
+    private final ExecutorService searches = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Timer budgetedLatency;
+    private final Counter embedExceeded;
+    private final Counter searchExceeded;
+    private final Counter saturated;
+    private final Counter embedErrors;
+    private final Counter searchErrors;
 
     public MemoryService(
             @Value("${agentic.memory.enabled:true}") boolean enabled,
             @Value("${agentic.memory.topK:5}") int topK,
             EmbeddingsClient embeddings,
-            VectorStore store
+            VectorStore store,
+            HotMemoryTier hot,
+            MemoryWriteBehind writeBehind,
+            @Value("${agentic.memory.retention.period:0}") Duration retention,
+            @Value("${agentic.memory.recall.max-in-flight:32}") int maxSearchesInFlight,
+            MeterRegistry meterRegistry
     ) {
         this.enabled = enabled;
         this.topK = topK;
         this.embeddings = embeddings;
         this.store = store;
+        this.hot = hot;
+        this.writeBehind = writeBehind;
+        this.retention = retention;
+        this.searchPermits = new Semaphore(maxSearchesInFlight);
+
+        this.budgetedLatency = Timer.builder("agentic.memory.recall.budgeted.latency")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.embedExceeded = meterRegistry.counter("agentic.memory.recall.budget.exceeded", "stage", "embed");
+        this.searchExceeded = meterRegistry.counter("agentic.memory.recall.budget.exceeded", "stage", "search");
+        this.saturated = meterRegistry.counter("agentic.memory.recall.budget.exceeded", "stage", "saturated");
+        this.embedErrors = meterRegistry.counter("agentic.memory.recall.errors", "stage", "embed");
+        this.searchErrors = meterRegistry.counter("agentic.memory.recall.errors", "stage", "search");
     }
 
     public void remember(String accountId, String eventId, String content) {
         if (!enabled) return;
-        List<Double> vec = embeddings.embedOne(content);
+        if (writeBehind.isEnabled()) {
+            writeBehind.submit(accountId, eventId, content);
+            return;
+        }
+        float[] vec = embeddings.embed(content);
         store.insertMemory(accountId, eventId, content, vec);
+        hot.append(new MemoryRecord(accountId, eventId, content, vec));
     }
 
     public List<MemoryHit> recallSimilar(String accountId, String excludeEventId, String queryText) {
+        return recallSimilar(accountId, excludeEventId, queryText, null);
+    }
+
+    /**
+     * Nearest memories created within {@code window} (any age when null). Memories past the
+     * retention period are never returned, even before their partition has been dropped.
+     */
+    public List<MemoryHit> recallSimilar(String accountId, String excludeEventId, String queryText, Duration window) {
+        if (!enabled) return List.of();
+        float[] q = embeddings.embed(queryText);
+        Instant since = since(window);
+        if (!writeBehind.isEnabled()) {
+            return hot.search(accountId, excludeEventId, q, topK, since);
+        }
+        // pending first: a memory committed between the two reads then shows up in both and is merged
+        List<MemoryHit> pending = writeBehind.pending(accountId, excludeEventId, q);
+        List<MemoryHit> stored = hot.search(accountId, excludeEventId, q, topK, since);
+        return MemoryWriteBehind.merge(stored, pending, topK);
+    }
+
+    /**
+     * {@link #recallSimilar(String, String, String, Duration)} that returns within {@code budget}
+     * whatever it has by then, for callers on a latency-critical path. The query is embedded with
+     * {@link EmbeddingsClient#embedHedged}. If that has not answered in time, the result is empty.
+     * If the store search has not, only the not yet committed memories are returned, and of those
+     * only the ones already embedded or cached; the search keeps running in the background, but
+     * at most {@code recall.max-in-flight} of them, beyond which the store is skipped right away.
+     * Failures are counted and also yield what is there.
+     */
+    public List<MemoryHit> recallSimilar(String accountId, String excludeEventId, String queryText, Duration window,
+                                         Duration budget) {
         if (!enabled) return List.of();
-        List<Double> q = embeddings.embedOne(queryText);
-        return store.searchSimilar(accountId, excludeEventId, q, topK);
+        long start = System.nanoTime();
+        long deadline = start + budget.toNanos();
+        try {
+            float[] q;
+            try {
+                q = embeddings.embedHedged(queryText).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                embedExceeded.increment();
+                return List.of();
+            } catch (ExecutionException ex) {
+                embedErrors.increment();
+                log.debug("Recall for {} without memories, embedding failed: {}", accountId, ex.getCause().getMessage());
+                return List.of();
+            }
+
+            Instant since = since(window);
+            // only what is already embedded: embedding the rest would block past the deadline
+            List<MemoryHit> pending = writeBehind.isEnabled()
+                    ? writeBehind.pending(accountId, excludeEventId, q, false)
+                    : List.of();
+            if (!searchPermits.tryAcquire()) {
+                saturated.increment();
+                return MemoryWriteBehind.merge(List.of(), pending, topK);
+            }
+            Future<List<MemoryHit>> search;
+            try {
+                search = searches.submit(() -> {
+                    try {
+                        return hot.search(accountId, excludeEventId, q, topK, since);
+                    } finally {
+                        searchPermits.release();
+                    }
+                });
+            } catch (RuntimeException ex) {
+                searchPermits.release();
+                throw ex;
+            }
+            List<MemoryHit> stored;
+            try {
+                stored = search.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                searchExceeded.increment();
+                stored = List.of();
+            } catch (ExecutionException ex) {
+                searchErrors.increment();
+                log.debug("Recall for {} without stored memories, search failed: {}", accountId, ex.getCause().getMessage());
+                stored = List.of();
+            }
+            return MemoryWriteBehind.merge(stored, pending, topK);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } finally {
+            budgetedLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * {@link #recallSimilar} for many queries at once: one embedding request for all query texts,
+     * and one store round trip for the accounts that are not resident in the hot tier.
+     */
+    public List<List<MemoryHit>> recallSimilarBatch(List<MemoryQuery> queries, Duration window) {
+        if (!enabled || queries.isEmpty()) return queries.stream().map(q -> List.<MemoryHit>of()).toList();
+        List<float[]> vectors = embeddings.embedBatch(queries.stream().map(MemoryQuery::query).toList());
+        List<VectorQuery> vectorQueries = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            MemoryQuery q = queries.get(i);
+            vectorQueries.add(new VectorQuery(q.accountId(), q.excludeEventId(), vectors.get(i)));
+        }
+        Instant since = since(window);
+        if (!writeBehind.isEnabled()) {
+            return hot.searchBatch(vectorQueries, topK, since);
+        }
+        List<List<MemoryHit>> pending = new ArrayList<>(queries.size());
+        for (VectorQuery q : vectorQueries) {
+            pending.add(writeBehind.pending(q.accountId(), q.excludeEventId(), q.embedding()));
+        }
+        List<List<MemoryHit>> stored = hot.searchBatch(vectorQueries, topK, since);
+        List<List<MemoryHit>> merged = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            merged.add(MemoryWriteBehind.merge(stored.get(i), pending.get(i), topK));
+        }
+        return merged;
+    }
+
+    private Instant since(Duration window) {
+        Instant now = Instant.now();
+        Instant since = window == null ? null : now.minus(window);
+        if (!retention.isZero()) {
+            Instant floor = now.minus(retention);
+            if (since == null || since.isBefore(floor)) since = floor;
+        }
+        return since;
+    }
+
+    @PreDestroy
+    void close() {
+        searches.shutdownNow();
     }
 }
@@ -0,0 +1,278 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind stage for {@link MemoryService#remember}: callers only enqueue; a background thread
+ * drains up to {@code batchSize} memories (or whatever arrived within {@code flushInterval}),
+ * embeds them in one request and inserts them in one JDBC batch. Memories stay visible to
+ * {@link #pending} for their account until the batch is committed, so recall does not miss them.
+ */
+@Component
+public class MemoryWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryWriteBehind.class);
+
+    static final class Pending {
+        final String accountId;
+        final String eventId;
+        final String content;
+        final Instant createdAt;
+        final long enqueuedAt;
+        volatile float[] embedding;
+
+        Pending(String accountId, String eventId, String content) {
+            this.accountId = accountId;
+            this.eventId = eventId;
+            this.content = content;
+            this.createdAt = Instant.now();
+            this.enqueuedAt = System.nanoTime();
+        }
+    }
+
+    private final EmbeddingsClient embeddings;
+    private final VectorStore store;
+    private final HotMemoryTier hot;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int maxAttempts;
+    private final Duration shutdownTimeout;
+
+    private final BlockingQueue<Pending> queue;
+    private final Map<String, List<Pending>> byAccount = new ConcurrentHashMap<>();
+    private final Thread writer;
+    private volatile boolean closing;
+
+    private final Timer lag;
+    private final DistributionSummary batchSizes;
+    private final Counter dropped;
+
+    public MemoryWriteBehind(EmbeddingsClient embeddings,
+                             VectorStore store,
+                             HotMemoryTier hot,
+                             @Value("${agentic.memory.write-behind.enabled:true}") boolean enabled,
+                             @Value("${agentic.memory.write-behind.queue-capacity:10000}") int queueCapacity,
+                             @Value("${agentic.memory.write-behind.batch-size:64}") int batchSize,
+                             @Value("${agentic.memory.write-behind.flush-interval:PT0.05S}") Duration flushInterval,
+                             @Value("${agentic.memory.write-behind.max-attempts:3}") int maxAttempts,
+                             @Value("${agentic.memory.write-behind.shutdown-timeout:PT30S}") Duration shutdownTimeout,
+                             MeterRegistry meterRegistry) {
+        this.embeddings = embeddings;
+        this.store = store;
+        this.hot = hot;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.maxAttempts = maxAttempts;
+        this.shutdownTimeout = shutdownTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.lag = Timer.builder("agentic.memory.write-behind.lag")
+                .description("Time from remember() to the memory being committed")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("agentic.memory.write-behind.batch.size").register(meterRegistry);
+        this.dropped = meterRegistry.counter("agentic.memory.write-behind.dropped");
+        Gauge.builder("agentic.memory.write-behind.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("agentic.memory.write-behind.oldest.age.seconds", this, MemoryWriteBehind::oldestAgeSeconds)
+                .register(meterRegistry);
+
+        if (enabled) {
+            this.writer = new Thread(this::run, "memory-write-behind");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        } else {
+            this.writer = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Queues the memory; blocks only while the queue is full. */
+    public void submit(String accountId, String eventId, String content) {
+        if (closing) throw new IllegalStateException("Memory write-behind is shutting down");
+        Pending p = new Pending(accountId, eventId, content);
+        // add inside compute: forget() may be removing this account's emptied list concurrently
+        byAccount.compute(accountId, (a, list) -> {
+            List<Pending> mine = list != null ? list : new CopyOnWriteArrayList<>();
+            mine.add(p);
+            return mine;
+        });
+        try {
+            queue.put(p);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            forget(List.of(p));
+            throw new IllegalStateException("Interrupted while queueing memory for " + accountId, ie);
+        }
+    }
+
+    /**
+     * Not yet committed memories of {@code accountId} scored against {@code query}, as hits with
+     * id -1. Embeds the ones the writer has not embedded yet (through the cache, so it is not
+     * paid twice).
+     */
+    List<MemoryHit> pending(String accountId, String excludeEventId, float[] query) {
+        return pending(accountId, excludeEventId, query, true);
+    }
+
+    /**
+     * {@link #pending(String, String, float[])} that, unless {@code mayEmbed}, leaves out the
+     * memories whose vector is neither computed nor cached instead of waiting for the embedding
+     * service.
+     */
+    List<MemoryHit> pending(String accountId, String excludeEventId, float[] query, boolean mayEmbed) {
+        List<Pending> mine = byAccount.get(accountId);
+        if (mine == null || mine.isEmpty()) return List.of();
+
+        List<MemoryHit> hits = new ArrayList<>(mine.size());
+        for (Pending p : mine) {
+            if (excludeEventId != null && excludeEventId.equals(p.eventId)) continue;
+            float[] v = p.embedding != null ? p.embedding
+                    : mayEmbed ? embeddings.embed(p.content) : embeddings.embedIfCached(p.content);
+            if (v == null) continue;
+            hits.add(new MemoryHit(-1, p.accountId, p.eventId, p.content, p.createdAt,
+                    VectorMath.cosineDistance(query, v)));
+        }
+        return hits;
+    }
+
+    /** Merges committed and pending hits by distance, dropping pending ones that got committed meanwhile. */
+    static List<MemoryHit> merge(List<MemoryHit> stored, List<MemoryHit> pending, int topK) {
+        if (pending.isEmpty()) return stored;
+        List<MemoryHit> all = new ArrayList<>(stored);
+        for (MemoryHit p : pending) {
+            boolean committed = stored.stream().anyMatch(s ->
+                    Objects.equals(s.eventId(), p.eventId()) && Objects.equals(s.content(), p.content()));
+            if (!committed) all.add(p);
+        }
+        all.sort(Comparator.comparingDouble(MemoryHit::distance));
+        return all.size() > topK ? List.copyOf(all.subList(0, topK)) : all;
+    }
+
+    private void run() {
+        while (true) {
+            List<Pending> batch = new ArrayList<>(batchSize);
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closing) return;
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || closing) break;
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException ie) {
+                // shutdown: whatever was taken still gets written below, the rest by close()
+                Thread.currentThread().interrupt();
+            }
+            if (!batch.isEmpty()) flush(batch);
+            if (Thread.currentThread().isInterrupted()) return;
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write(batch);
+                long now = System.nanoTime();
+                batch.forEach(p -> lag.record(now - p.enqueuedAt, TimeUnit.NANOSECONDS));
+                batchSizes.record(batch.size());
+                forget(batch);
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt >= maxAttempts) {
+                    log.error("Dropping {} memories after {} attempts: {}", batch.size(), attempt, ex.getMessage());
+                    dropped.increment(batch.size());
+                    forget(batch);
+                    return;
+                }
+                log.warn("Memory batch of {} failed (attempt {}/{}): {}", batch.size(), attempt, maxAttempts, ex.getMessage());
+                try {
+                    Thread.sleep(200L << attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Pending p : batch) texts.add(p.content);
+        List<float[]> vectors = embeddings.embedBatch(texts);
+
+        List<MemoryRecord> records = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Pending p = batch.get(i);
+            p.embedding = vectors.get(i);
+            records.add(new MemoryRecord(p.accountId, p.eventId, p.content, p.embedding));
+        }
+        store.insertMemories(records);
+        records.forEach(hot::append);
+    }
+
+    private void forget(List<Pending> written) {
+        for (Pending p : written) {
+            byAccount.computeIfPresent(p.accountId, (a, list) -> {
+                list.remove(p);
+                return list.isEmpty() ? null : list;
+            });
+        }
+    }
+
+    private double oldestAgeSeconds() {
+        Pending head = queue.peek();
+        return head == null ? 0 : (System.nanoTime() - head.enqueuedAt) / 1e9;
+    }
+
+    /** Stops accepting, then writes everything still queued (bounded by shutdown-timeout). */
+    @PreDestroy
+    void close() throws InterruptedException {
+        if (writer == null) return;
+        closing = true;
+        writer.join(shutdownTimeout.toMillis());
+        if (writer.isAlive()) {
+            writer.interrupt();
+            writer.join(1_000);
+        }
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        if (!left.isEmpty()) {
+            log.warn("Memory write-behind shut down with {} memories not written", left.size());
+            dropped.increment(left.size());
+        }
+    }
+}
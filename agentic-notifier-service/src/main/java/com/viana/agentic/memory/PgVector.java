@@ -0,0 +1,122 @@
+package com.viana.agentic.memory;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGobject;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * pgvector {@code vector} parameter sent in the type's binary wire format
+ * ({@code int16 dim, int16 unused, dim x float4}, network byte order) instead of a decimal
+ * literal. The driver only sends a PGobject in binary once the type's OID is registered for
+ * binary send on the connection, which {@link #bind} takes care of.
+ */
+final class PgVector extends PGobject implements PGBinaryObject {
+
+    private float[] values;
+
+    PgVector() {
+        setType("vector");
+    }
+
+    PgVector(float[] values) {
+        this();
+        this.values = values;
+    }
+
+    float[] values() {
+        return values;
+    }
+
+    /** Binds {@code vector} at {@code index}, in binary when the connection is a PgJDBC one. */
+    static void bind(PreparedStatement ps, int index, float[] vector) throws SQLException {
+        enableBinarySend(ps.getConnection());
+        ps.setObject(index, new PgVector(vector));
+    }
+
+    /** Parses pgvector's text form, {@code [1,2,3]}. */
+    static float[] parse(String text) throws SQLException {
+        PgVector v = new PgVector();
+        v.setValue(text);
+        return v.values();
+    }
+
+    private static void enableBinarySend(Connection connection) throws SQLException {
+        if (!connection.isWrapperFor(BaseConnection.class)) return;
+        BaseConnection pg = connection.unwrap(BaseConnection.class);
+        int oid = pg.getTypeInfo().getPGType("vector");   // cached by the driver after the first lookup
+        if (oid != 0 && !pg.binaryTransferSend(oid)) {
+            pg.getQueryExecutor().addBinarySendOid(oid);
+        }
+    }
+
+    @Override
+    public int lengthInBytes() {
+        return values == null ? 0 : 4 + values.length * Float.BYTES;
+    }
+
+    @Override
+    public void toBytes(byte[] bytes, int offset) {
+        int n = values.length;
+        bytes[offset] = (byte) (n >>> 8);
+        bytes[offset + 1] = (byte) n;
+        bytes[offset + 2] = 0;
+        bytes[offset + 3] = 0;
+        int p = offset + 4;
+        for (float f : values) {
+            int bits = Float.floatToRawIntBits(f);
+            bytes[p] = (byte) (bits >>> 24);
+            bytes[p + 1] = (byte) (bits >>> 16);
+            bytes[p + 2] = (byte) (bits >>> 8);
+            bytes[p + 3] = (byte) bits;
+            p += 4;
+        }
+    }
+
+    @Override
+    public void setByteValue(byte[] bytes, int offset) {
+        int n = ((bytes[offset] & 0xff) << 8) | (bytes[offset + 1] & 0xff);
+        values = new float[n];
+        int p = offset + 4;
+        for (int i = 0; i < n; i++, p += 4) {
+            values[i] = Float.intBitsToFloat(((bytes[p] & 0xff) << 24) | ((bytes[p + 1] & 0xff) << 16)
+                    | ((bytes[p + 2] & 0xff) << 8) | (bytes[p + 3] & 0xff));
+        }
+    }
+
+    /** Text form, used by the driver when binary send is not enabled. */
+    @Override
+    public String getValue() {
+        if (values == null) return null;
+        StringBuilder sb = new StringBuilder(values.length * 12).append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(values[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    @Override
+    public void setValue(String value) throws SQLException {
+        if (value == null) {
+            values = null;
+            return;
+        }
+        String body = value.trim();
+        if (body.startsWith("[")) body = body.substring(1, body.length() - 1);
+        if (body.isBlank()) {
+            values = new float[0];
+            return;
+        }
+        String[] parts = body.split(",");
+        values = new float[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) values[i] = Float.parseFloat(parts[i].trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException("Invalid vector literal: " + value, e);
+        }
+    }
+}
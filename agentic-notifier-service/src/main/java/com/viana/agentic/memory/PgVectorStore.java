@@ -0,0 +1,272 @@
+package com.viana.agentic.memory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * pgvector-backed {@link VectorStore}. With {@code agentic.memory.quantization} set to
+ * {@code halfvec} or {@code bit}, the nearest-neighbour scan orders by the quantized expression
+ * that the indexes in {@code 003_quantized_embedding_indexes.sql} are built on. The
+ * {@code topK * rerank-factor} candidates it returns are then re-ranked by their exact
+ * full-precision distance.
+ */
+@Repository
+public class PgVectorStore implements VectorStore {
+
+    enum Quantization { NONE, HALFVEC, BIT }
+
+    private static final int BATCH_QUERIES = 256;
+
+    private static final String SEARCH_SQL = searchSql(false);
+    private static final String SEARCH_SINCE_SQL = searchSql(true);
+
+    private static final RowMapper<MemoryHit> HIT = (ResultSet rs, int rowNum) -> new MemoryHit(
+            rs.getLong("id"),
+            rs.getString("account_id"),
+            rs.getString("event_id"),
+            rs.getString("content"),
+            rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+            rs.getDouble("distance")
+    );
+
+    private final JdbcTemplate jdbc;
+    private final Quantization quantization;
+    private final int rerankFactor;
+    private final String quantizedSearchSql;
+    private final String quantizedSearchSinceSql;
+    private final int dimension;
+
+    @Autowired
+    public PgVectorStore(JdbcTemplate jdbc,
+                         @Value("${agentic.memory.quantization:none}") String quantization,
+                         @Value("${agentic.memory.rerank-factor:4}") int rerankFactor,
+                         @Value("${agentic.embeddings.dimension:384}") int dimension) {
+        this.jdbc = jdbc;
+        this.quantization = Quantization.valueOf(quantization.trim().toUpperCase(Locale.ROOT));
+        this.rerankFactor = Math.max(1, rerankFactor);
+        this.dimension = dimension;
+        this.quantizedSearchSql = quantizedSearchSql(this.quantization, dimension, false);
+        this.quantizedSearchSinceSql = quantizedSearchSql(this.quantization, dimension, true);
+    }
+
+    PgVectorStore(JdbcTemplate jdbc) {
+        this(jdbc, "none", 4, 384);
+    }
+
+    @Override
+    public void insertMemory(String accountId, String eventId, String content, float[] embedding) {
+        jdbc.update("""
+            INSERT INTO account_memory(account_id, event_id, content, embedding)
+            VALUES (?, ?, ?, ?)
+        """, ps -> {
+            ps.setString(1, accountId);
+            ps.setString(2, eventId);
+            ps.setString(3, content);
+            PgVector.bind(ps, 4, embedding);
+        });
+    }
+
+    /** One JDBC batch; with {@code reWriteBatchedInserts} the driver sends it as multi-row INSERTs. */
+    @Override
+    public void insertMemories(List<MemoryRecord> memories) {
+        jdbc.batchUpdate("""
+            INSERT INTO account_memory(account_id, event_id, content, embedding)
+            VALUES (?, ?, ?, ?)
+        """, memories, memories.size(), (ps, m) -> {
+            ps.setString(1, m.accountId());
+            ps.setString(2, m.eventId());
+            ps.setString(3, m.content());
+            PgVector.bind(ps, 4, m.embedding());
+        });
+    }
+
+    @Override
+    public List<MemoryHit> searchSimilar(String accountId, String excludeEventId, float[] queryEmbedding,
+                                         int topK, Instant since) {
+        boolean quantized = quantization != Quantization.NONE;
+        String sql = since == null
+                ? (quantized ? quantizedSearchSql : SEARCH_SQL)
+                : (quantized ? quantizedSearchSinceSql : SEARCH_SINCE_SQL);
+        return jdbc.query(sql, ps -> {
+            int i = 1;
+            PgVector.bind(ps, i++, queryEmbedding);
+            ps.setString(i++, accountId);
+            ps.setString(i++, excludeEventId);
+            ps.setString(i++, excludeEventId);
+            if (since != null) ps.setObject(i++, OffsetDateTime.ofInstant(since, ZoneOffset.UTC));
+            PgVector.bind(ps, i++, queryEmbedding);
+            if (quantized) ps.setInt(i++, topK * rerankFactor);
+            ps.setInt(i, topK);
+        }, HIT);
+    }
+
+    /**
+     * Exact search. With a {@code since} bound the planner prunes partitions that end before it,
+     * so a recency window only scans (and uses the ANN indexes of) the partitions it covers.
+     */
+    static String searchSql(boolean since) {
+        return """
+            SELECT id, account_id, event_id, content, created_at,
+                   (embedding <=> ?) AS distance
+            FROM account_memory
+            WHERE account_id = ?
+              AND (?::text IS NULL OR event_id IS DISTINCT FROM ?::text)%s
+            ORDER BY embedding <=> ?
+            LIMIT ?
+        """.formatted(since ? "\n      AND created_at >= ?" : "");
+    }
+
+    /**
+     * Candidates by quantized distance (index scan), exact {@code <=>} on the full-precision
+     * column for the final order. The casts must match the index expressions exactly.
+     */
+    static String quantizedSearchSql(Quantization quantization, int dimension, boolean since) {
+        String candidateOrder = candidateOrder(quantization, dimension, "?");
+        if (candidateOrder == null) return null;
+        return """
+            SELECT id, account_id, event_id, content, created_at,
+                   (embedding <=> ?) AS distance
+            FROM (
+                SELECT id, account_id, event_id, content, created_at, embedding
+                FROM account_memory
+                WHERE account_id = ?
+                  AND (?::text IS NULL OR event_id IS DISTINCT FROM ?::text)%s
+                ORDER BY %s
+                LIMIT ?
+            ) candidates
+            ORDER BY distance
+            LIMIT ?
+        """.formatted(since ? "\n          AND created_at >= ?" : "", candidateOrder);
+    }
+
+    private static String candidateOrder(Quantization quantization, int dimension, String query) {
+        return switch (quantization) {
+            case NONE -> null;
+            case HALFVEC -> "embedding::halfvec(" + dimension + ") <=> " + query + "::halfvec(" + dimension + ")";
+            case BIT -> "binary_quantize(embedding)::bit(" + dimension + ") <~> binary_quantize(" + query + "::vector)::bit(" + dimension + ")";
+        };
+    }
+
+    /**
+     * All queries in one statement per {@value #BATCH_QUERIES}: the queries are a {@code VALUES}
+     * list, and a {@code LATERAL} subquery runs the single-query search once per row, so every
+     * query still gets its own index scan.
+     */
+    @Override
+    public List<List<MemoryHit>> searchSimilarBatch(List<VectorQuery> queries, int topK, Instant since) {
+        List<List<MemoryHit>> results = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) results.add(new ArrayList<>());
+        for (int from = 0; from < queries.size(); from += BATCH_QUERIES) {
+            List<VectorQuery> chunk = queries.subList(from, Math.min(queries.size(), from + BATCH_QUERIES));
+            int offset = from;
+            jdbc.query(batchSearchSql(quantization, dimension, chunk.size(), since != null), ps -> {
+                int i = 1;
+                for (VectorQuery q : chunk) {
+                    ps.setString(i++, q.accountId());
+                    ps.setString(i++, q.excludeEventId());
+                    PgVector.bind(ps, i++, q.embedding());
+                }
+                if (since != null) ps.setObject(i++, OffsetDateTime.ofInstant(since, ZoneOffset.UTC));
+                if (quantization != Quantization.NONE) ps.setInt(i++, topK * rerankFactor);
+                ps.setInt(i, topK);
+            }, rs -> {
+                results.get(offset + rs.getInt("ord")).add(HIT.mapRow(rs, 0));
+            });
+        }
+        return results;
+    }
+
+    static String batchSearchSql(Quantization quantization, int dimension, int queries, boolean since) {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < queries; i++) {
+            if (i > 0) values.append(", ");
+            values.append('(').append(i).append(", ?::text, ?::text, ?::vector)");
+        }
+        String candidateOrder = candidateOrder(quantization, dimension, "q_embedding");
+        if (candidateOrder == null) {
+            return """
+                SELECT q.ord, h.*
+                FROM (VALUES %s) AS q(ord, q_account, q_exclude, q_embedding)
+                CROSS JOIN LATERAL (
+                    SELECT id, account_id, event_id, content, created_at,
+                           (embedding <=> q_embedding) AS distance
+                    FROM account_memory
+                    WHERE account_id = q_account
+                      AND (q_exclude IS NULL OR event_id IS DISTINCT FROM q_exclude)%s
+                    ORDER BY embedding <=> q_embedding
+                    LIMIT ?
+                ) h
+                ORDER BY q.ord, h.distance
+            """.formatted(values, since ? "\n          AND created_at >= ?" : "");
+        }
+        return """
+            SELECT q.ord, h.*
+            FROM (VALUES %s) AS q(ord, q_account, q_exclude, q_embedding)
+            CROSS JOIN LATERAL (
+                SELECT id, account_id, event_id, content, created_at,
+                       (embedding <=> q_embedding) AS distance
+                FROM (
+                    SELECT id, account_id, event_id, content, created_at, embedding
+                    FROM account_memory
+                    WHERE account_id = q_account
+                      AND (q_exclude IS NULL OR event_id IS DISTINCT FROM q_exclude)%s
+                    ORDER BY %s
+                    LIMIT ?
+                ) candidates
+                ORDER BY distance
+                LIMIT ?
+            ) h
+            ORDER BY q.ord, h.distance
+        """.formatted(values, since ? "\n              AND created_at >= ?" : "", candidateOrder);
+    }
+
+    @Override
+    public List<StoredMemory> recentMemories(String accountId, int limit) {
+        return jdbc.query("""
+            SELECT id, account_id, event_id, content, created_at, embedding::text AS embedding
+            FROM account_memory
+            WHERE account_id = ?
+            ORDER BY id DESC
+            LIMIT ?
+        """, ps -> {
+            ps.setString(1, accountId);
+            ps.setInt(2, limit);
+        }, PgVectorStore::storedMemory);
+    }
+
+    /** Memories with {@code id > afterId} in id order, embeddings included; feeds local indexes. */
+    public List<StoredMemory> scanAfter(long afterId, int limit) {
+        return jdbc.query("""
+            SELECT id, account_id, event_id, content, created_at, embedding::text AS embedding
+            FROM account_memory
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+        """, ps -> {
+            ps.setLong(1, afterId);
+            ps.setInt(2, limit);
+        }, PgVectorStore::storedMemory);
+    }
+
+    private static StoredMemory storedMemory(ResultSet rs, int rowNum) throws SQLException {
+        return new StoredMemory(
+                rs.getLong("id"),
+                rs.getString("account_id"),
+                rs.getString("event_id"),
+                rs.getString("content"),
+                rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+                PgVector.parse(rs.getString("embedding")));
+    }
+}
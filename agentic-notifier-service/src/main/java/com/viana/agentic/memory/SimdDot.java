@@ -0,0 +1,38 @@
+package com.viana.agentic.memory;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API dot product. Only referenced when {@link VectorMath#SIMD} is true, so the class is
+ * never loaded on a JVM without the incubator module.
+ */
+final class SimdDot {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private SimdDot() {
+    }
+
+    static double dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        FloatVector acc0 = FloatVector.zero(SPECIES);
+        FloatVector acc1 = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i + step < bound; i += 2 * step) {
+            acc0 = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i), acc0);
+            acc1 = FloatVector.fromArray(SPECIES, a, aOffset + i + step)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i + step), acc1);
+        }
+        for (; i < bound; i += step) {
+            acc0 = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i), acc0);
+        }
+        float sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) sum += a[aOffset + i] * b[bOffset + i];
+        return sum;
+    }
+}
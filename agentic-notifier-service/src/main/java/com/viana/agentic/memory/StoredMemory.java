@@ -0,0 +1,12 @@
+package com.viana.agentic.memory;
+
+import java.time.Instant;
+
+public record StoredMemory(
+        long id,
+        String accountId,
+        String eventId,
+        String content,
+        Instant createdAt,
+        float[] embedding
+) {}
@@ -0,0 +1,56 @@
+package com.viana.agentic.memory;
+
+final class VectorMath {
+
+    /** Whether the JVM was started with {@code --add-modules jdk.incubator.vector}. */
+    static final boolean SIMD = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private VectorMath() {
+    }
+
+    /** pgvector's {@code <=>}: 1 - cosine similarity. */
+    static double cosineDistance(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        if (na == 0 || nb == 0) return Double.NaN;
+        return 1 - dot / Math.sqrt(na * nb);
+    }
+
+    static double dot(float[] a, float[] b) {
+        return dot(a, 0, b, 0, a.length);
+    }
+
+    /** Dot product of {@code a[aOffset..+length)} and {@code b[bOffset..+length)}. */
+    static double dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        return SIMD ? SimdDot.dot(a, aOffset, b, bOffset, length) : scalarDot(a, aOffset, b, bOffset, length);
+    }
+
+    /** Four independent accumulators, so the loop is not bound by the latency of one add chain. */
+    static double scalarDot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) s0 += a[aOffset + i] * b[bOffset + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** {@code v} scaled to unit length, or {@code null} for the zero vector. */
+    static float[] normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        if (norm == 0) return null;
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] out = new float[v.length];
+        for (int i = 0; i < v.length; i++) out[i] = v[i] * scale;
+        return out;
+    }
+}
@@ -0,0 +1,7 @@
+package com.viana.agentic.memory;
+
+public record VectorQuery(
+        String accountId,
+        String excludeEventId,
+        float[] embedding
+) {}
@@ -1,58 +1,37 @@
 package com.viana.agentic.memory;
 
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.stereotype.Repository;
-
-import java.sql.ResultSet;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
-@Repository
-public class VectorStore {
+/**
+ * Where account memories are kept and searched. {@link PgVectorStore} is the system of record;
+ * {@link HnswVectorStore} ({@code agentic.memory.store=hnsw}) writes through to it and answers
+ * searches from an in-process index.
+ */
+public interface VectorStore {
 
-    private final JdbcTemplate jdbc;
+    void insertMemory(String accountId, String eventId, String content, float[] embedding);
 
-    public VectorStore(JdbcTemplate jdbc) {
-        this.jdbc = jdbc;
-    }
+    void insertMemories(List<MemoryRecord> memories);
 
-    public void insertMemory(String accountId, String eventId, String content, List<Double> embedding) {
-        String vectorLiteral = toPgVectorLiteral(embedding); // "[0.1,0.2,...]"
-        jdbc.update("""
-            INSERT INTO account_memory(account_id, event_id, content, embedding)
-            VALUES (?, ?, ?, ?::vector)
-        """, accountId, eventId, content, vectorLiteral);
+    /** Up to {@code topK} memories of the account, nearest first by cosine distance. */
+    default List<MemoryHit> searchSimilar(String accountId, String excludeEventId, float[] queryEmbedding, int topK) {
+        return searchSimilar(accountId, excludeEventId, queryEmbedding, topK, null);
     }
 
-    public List<MemoryHit> searchSimilar(String accountId, String excludeEventId, List<Double> queryEmbedding, int topK) {
-        String vectorLiteral = toPgVectorLiteral(queryEmbedding);
-
-        return jdbc.query("""
-            SELECT id, account_id, event_id, content, created_at,
-                   (embedding <=> ?::vector) AS distance
-            FROM account_memory
-            WHERE account_id = ?
-              AND (?::text IS NULL OR event_id IS DISTINCT FROM ?::text)
-            ORDER BY embedding <=> ?::vector
-            LIMIT ?
-        """, (ResultSet rs, int rowNum) -> new MemoryHit(
-                rs.getLong("id"),
-                rs.getString("account_id"),
-                rs.getString("event_id"),
-                rs.getString("content"),
-                rs.getObject("created_at", java.time.OffsetDateTime.class).toInstant(),
-                rs.getDouble("distance")
-        ), vectorLiteral, accountId, excludeEventId, excludeEventId, vectorLiteral, topK);
-    }
+    /** As above, limited to memories created at or after {@code since} (no limit when null). */
+    List<MemoryHit> searchSimilar(String accountId, String excludeEventId, float[] queryEmbedding, int topK, Instant since);
 
-    private static String toPgVectorLiteral(List<Double> v) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[");
-        for (int i = 0; i < v.size(); i++) {
-            if (i > 0) sb.append(",");
-            sb.append(v.get(i));
+    /** {@link #searchSimilar} for each query, in order. */
+    default List<List<MemoryHit>> searchSimilarBatch(List<VectorQuery> queries, int topK, Instant since) {
+        List<List<MemoryHit>> results = new ArrayList<>(queries.size());
+        for (VectorQuery q : queries) {
+            results.add(searchSimilar(q.accountId(), q.excludeEventId(), q.embedding(), topK, since));
         }
-        sb.append("]");
-        return sb.toString();
+        return results;
     }
+
+    /** The account's newest {@code limit} memories, newest first, embeddings included. */
+    List<StoredMemory> recentMemories(String accountId, int limit);
 }
@@ -0,0 +1,8 @@
+package com.viana.agentic.model;
+
+import java.util.List;
+
+public record AgentOutcome(
+        AgentDecision decision,
+        List<ActionResult> results
+) {}
@@ -1,37 +1,228 @@
 package com.viana.agentic.service;
 
 import com.viana.agentic.decision.DecisionEngine;
+import com.viana.agentic.dedup.EventDeduplicator;
 import com.viana.agentic.executor.ActionExecutor;
+import com.viana.agentic.executor.AsyncActionExecutor;
+import com.viana.agentic.features.VelocityStore;
 import com.viana.agentic.kafka.AuditPublisher;
+import com.viana.agentic.model.ActionResult;
+import com.viana.agentic.model.AgentAction;
 import com.viana.agentic.model.AgentDecision;
+import com.viana.agentic.model.AgentOutcome;
 import com.viana.common.events.EnrichedAccountEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decide → execute actions → audit the decision and its results for a single enriched event.
+ * Shared by the record and batch listeners so both modes behave identically per event.
+ */
 @Service
 public class AgentPipeline {
 
+    private static final Logger log = LoggerFactory.getLogger(AgentPipeline.class);
+    private static final int EXECUTED_CAPACITY = 10_000;
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
     private final DecisionEngine decisionEngine;
     private final ActionExecutor actionExecutor;
     private final AuditPublisher auditPublisher;
+    private final EventDeduplicator deduplicator;
+    private final AsyncActionExecutor asyncExecutor;
+    private final VelocityStore velocityStore;
+    private final boolean asyncActions;
+
+    // Successful actions by eventId and action type. An event whose audit records were not
+    // committed (an aborted Kafka transaction, a failed batch attempt) is evaluated again; its
+    // actions are not repeated then. Only a crash in between makes them run twice.
+    private final Map<String, ActionResult> executed = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ActionResult> eldest) {
+            return size() > EXECUTED_CAPACITY;
+        }
+    };
 
     public AgentPipeline(DecisionEngine decisionEngine,
                          ActionExecutor actionExecutor,
-                         AuditPublisher auditPublisher) {
+                         AuditPublisher auditPublisher,
+                         EventDeduplicator deduplicator,
+                         AsyncActionExecutor asyncExecutor,
+                         VelocityStore velocityStore,
+                         @Value("${agentic.exactly-once.enabled:false}") boolean exactlyOnce) {
         this.decisionEngine = decisionEngine;
         this.actionExecutor = actionExecutor;
         this.auditPublisher = auditPublisher;
+        this.deduplicator = deduplicator;
+        this.asyncExecutor = asyncExecutor;
+        this.velocityStore = velocityStore;
+        // results must be part of the Kafka transaction, so exactly-once keeps actions inline
+        this.asyncActions = asyncExecutor.isEnabled() && !exactlyOnce;
+        if (asyncExecutor.isEnabled() && exactlyOnce) {
+            log.warn("agentic.executor.async is ignored while agentic.exactly-once is enabled");
+        }
     }
 
+    /**
+     * Runs the event end to end. Returns {@code null} when the event was already processed.
+     * With the async executor each result is published whenever its action completes and the
+     * decision once they all have; this returns without waiting for them, so a caller that
+     * commits offsets afterwards delivers those actions at most once (see {@link #submit}).
+     * Not for exactly-once mode, where the audit records belong in a transaction: use {@link #evaluate}.
+     */
     public AgentDecision handle(EnrichedAccountEvent event) {
+        return submit(event).decision();
+    }
+
+    /**
+     * As {@link #handle}, and also returns when the event's audit records are acked and when its
+     * actions are done. With inline actions the event is marked processed once its audit records
+     * are acked, so one whose sends failed is evaluated again when redelivered. With async actions
+     * it is marked once every action has reported its result and the results and the decision,
+     * which follows them, were acked. The audit records of async actions are best-effort: a failed
+     * send leaves the event unmarked but does not hold back the offset commit.
+     */
+    public Submitted submit(EnrichedAccountEvent event) {
+        if (asyncActions) {
+            return handleAsync(event);
+        }
+
+        AgentOutcome outcome = evaluate(event);
+        if (outcome == null) return Submitted.SKIPPED;
+
+        CompletableFuture<Void> audited = auditPublisher.publish(outcome.decision(), outcome.results());
+        audited.thenRun(() -> deduplicator.markProcessed(event.eventId()));
+
+        return new Submitted(outcome.decision(), audited, DONE);
+    }
+
+    /**
+     * A handled event: its decision ({@code null} for a duplicate), the audit records to be acked
+     * before its offset may be committed (failing if a send failed), and when its actions are done.
+     */
+    public record Submitted(AgentDecision decision, CompletableFuture<Void> audited, CompletableFuture<Void> actionsDone) {
+        static final Submitted SKIPPED = new Submitted(null, DONE, DONE);
+    }
+
+    /**
+     * Decides and executes without publishing, for callers that emit the audit records themselves
+     * (e.g. inside a Kafka transaction). Returns {@code null} when the event was already processed.
+     * The event is not marked processed; the caller does that once its transaction has committed.
+     */
+    public AgentOutcome evaluate(EnrichedAccountEvent event) {
+        if (deduplicator.isDuplicate(event.eventId())) {
+            log.debug("Skipping already processed event {}", event.eventId());
+            return null;
+        }
+
+        // counted before deciding so velocity rules see the event itself; a redelivery is counted once
+        velocityStore.record(event, System.currentTimeMillis());
         AgentDecision decision = decisionEngine.decide(event);
 
-        decision.actions().forEach(action ->
-                actionExecutor.execute(decision, event, action)
-        );
+        List<ActionResult> results = new ArrayList<>(decision.actions().size());
+        for (AgentAction action : decision.actions()) {
+            String key = event.eventId() + '/' + action.type();
+            ActionResult earlier;
+            synchronized (executed) {
+                earlier = executed.get(key);
+            }
+            if (earlier != null) {
+                log.debug("Action {} for event {} already ran, not repeating it", action.type(), event.eventId());
+                results.add(new ActionResult(decision.decisionId(), earlier.eventId(), earlier.actionType(),
+                        earlier.executedAt(), true, earlier.message()));
+                continue;
+            }
+            try {
+                actionExecutor.execute(decision, event, action);
+                ActionResult result = new ActionResult(
+                        decision.decisionId(),
+                        event.eventId(),
+                        action.type(),
+                        Instant.now(),
+                        true,
+                        actionExecutor.queuesOnly(action) ? "Queued" : "Executed successfully"
+                );
+                synchronized (executed) {
+                    executed.put(key, result);
+                }
+                results.add(result);
+            } catch (Exception ex) {
+                results.add(new ActionResult(
+                        decision.decisionId(),
+                        event.eventId(),
+                        action.type(),
+                        Instant.now(),
+                        false,
+                        ex.getMessage()
+                ));
+            }
+        }
+
+        return new AgentOutcome(decision, results);
+    }
+
+    private Submitted handleAsync(EnrichedAccountEvent event) {
+        if (deduplicator.isDuplicate(event.eventId())) {
+            log.debug("Skipping already processed event {}", event.eventId());
+            return Submitted.SKIPPED;
+        }
 
-        auditPublisher.publishDecision(event, decision);
+        // counted before deciding so velocity rules see the event itself; a redelivery is counted once
+        velocityStore.record(event, System.currentTimeMillis());
+        AgentDecision decision = decisionEngine.decide(event);
+
+        List<AgentAction> actions = decision.actions();
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[actions.size() + 1];
+        CompletableFuture<Void> decided = new CompletableFuture<>();
+        sends[actions.size()] = decided;
+        AtomicInteger reporting = new AtomicInteger(actions.size());
+        if (actions.isEmpty()) publishDecision(event, decision, decided);
+        for (int i = 0; i < actions.size(); i++) {
+            CompletableFuture<Void> published = new CompletableFuture<>();
+            sends[i] = published;
+            asyncExecutor.submit(decision, event, actions.get(i), result -> {
+                try {
+                    forward(auditPublisher.publishResult(result), published);
+                } catch (RuntimeException ex) {
+                    published.completeExceptionally(ex);
+                    throw ex;
+                } finally {
+                    // Published once every action has reported, so a decision on the topic means the
+                    // event is done (see ResultTopicDedupLoader). This runs on the executor's thread;
+                    // the producer's callback thread must not wait for the audit window.
+                    if (reporting.decrementAndGet() == 0) publishDecision(event, decision, decided);
+                }
+            });
+        }
+        CompletableFuture<Void> actionsDone = CompletableFuture.allOf(sends)
+                .thenRun(() -> deduplicator.markProcessed(event.eventId()));
+
+        return new Submitted(decision, DONE, actionsDone);
+    }
+
+    private void publishDecision(EnrichedAccountEvent event, AgentDecision decision, CompletableFuture<Void> decided) {
+        try {
+            forward(auditPublisher.publishDecision(event, decision), decided);
+        } catch (RuntimeException ex) {
+            decided.completeExceptionally(ex);
+        }
+    }
 
-        return decision;
+    private static void forward(CompletableFuture<Void> send, CompletableFuture<Void> to) {
+        send.whenComplete((ok, ex) -> {
+            if (ex == null) to.complete(null);
+            else to.completeExceptionally(ex);
+        });
     }
 
 }
@@ -1,14 +1,17 @@
 package com.viana.agentic.decision;
 
+import com.viana.agentic.features.VelocityStore;
 import com.viana.agentic.model.AgentAction;
 import com.viana.agentic.model.AgentDecision;
 import com.viana.common.events.EnrichedAccountEvent;
 import com.viana.common.events.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -84,4 +87,58 @@ class DecisionEngineTest {
         assertNotNull(args.get("severity"));
         assertNotNull(args.get("subject"));
     }
+
+    @Test
+    void shouldNotifyMedium_onSuspiciousKeywordsUnlessExplicitlyNormal() {
+        var suspicious = engine.decide(event(10, "Unusual login followed by a withdrawal", EventType.DEBIT, 20.0));
+        var normal = engine.decide(event(60, "There is no unusual activity", EventType.DEBIT, 20.0));
+
+        assertEquals("MEDIUM", notifyArgs(suspicious).get("severity"));
+        assertEquals("Account activity notification", notifyArgs(suspicious).get("subject"));
+        assertTrue(suspicious.rationale().contains("trigger=keyword"));
+        assertTrue(hasAction(normal, "NO_ACTION"), "Explicitly normal summary should suppress the score rule");
+    }
+
+    @Test
+    void appliesNewRuleTableAndRejectsInvalidOne() {
+        var engine = new DecisionEngine(Clock.systemUTC());
+        var e = event(30, "Small purchase", EventType.DEBIT, 20.0);
+        assertTrue(hasAction(engine.decide(e), "NO_ACTION"));
+
+        engine.apply(new RuleTable("v2", Map.of(), List.of(new RuleTable.Rule(
+                "low-score",
+                new RuleTable.Condition(List.of(EventType.DEBIT), 25, null, null, null, null, null, null, null),
+                "HIGH",
+                null,
+                List.of(new RuleTable.ActionSpec("NOTIFY_EMAIL", Map.of("subject", "Score over 25")))))));
+
+        var d = engine.decide(e);
+        assertEquals("v2", engine.rulesVersion());
+        assertEquals("HIGH", notifyArgs(d).get("severity"));
+        assertEquals("Score over 25", notifyArgs(d).get("subject"));
+        assertTrue(d.rationale().contains("trigger=low-score"));
+
+        var invalid = new RuleTable("v3", Map.of(), List.of(new RuleTable.Rule(
+                "bad", new RuleTable.Condition(null, null, null, null, null, List.of("missing-set"), null, null, null),
+                "MEDIUM", null, List.of(new RuleTable.ActionSpec("NOTIFY_EMAIL", Map.of())))));
+        assertThrows(IllegalArgumentException.class, () -> engine.apply(invalid));
+        assertEquals("v2", engine.rulesVersion());
+    }
+
+    @Test
+    void shouldNotifyMedium_onDebitBurstWithinOneMinute() {
+        var velocity = new VelocityStore(true, 100, 1, 6, new SimpleMeterRegistry());
+        var engine = new DecisionEngine(
+                Clock.fixed(Instant.parse("2025-01-01T00:00:30Z"), ZoneOffset.UTC), RuleTable.defaults(), velocity);
+        var e = event(10, "Card purchase", EventType.DEBIT, 20.0);
+        long at = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+        for (int i = 0; i < 9; i++) velocity.record(e.accountId(), "earlier-" + i, EventType.DEBIT, 20.0, at);
+        assertTrue(hasAction(engine.decide(e), "NO_ACTION"));
+
+        velocity.record(e, at);
+        var d = engine.decide(e);
+        assertEquals("MEDIUM", notifyArgs(d).get("severity"));
+        assertTrue(d.rationale().contains("trigger=velocity"));
+    }
 }
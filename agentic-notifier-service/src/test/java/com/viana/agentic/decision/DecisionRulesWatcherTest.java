@@ -0,0 +1,62 @@
+package com.viana.agentic.decision;
+
+import com.viana.common.events.EnrichedAccountEvent;
+import com.viana.common.events.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DecisionRulesWatcherTest {
+
+    private static final String TABLE = """
+            {
+              "version": "%s",
+              "keywords": {},
+              "rules": [
+                { "name": "score", "when": { "minRiskScore": %d }, "severity": "HIGH",
+                  "actions": [{ "type": "NOTIFY_EMAIL", "args": { "subject": "s" } }] }
+              ]
+            }
+            """;
+
+    private final EnrichedAccountEvent event = EnrichedAccountEvent.builder()
+            .eventId("E1").accountId("ACC1").riskScore(40).eventType(EventType.DEBIT).amount(1.0).build();
+
+    @Test
+    void reloadsChangedFileAndKeepsCurrentRulesOnBadEdit(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("rules.json");
+        Files.writeString(file, TABLE.formatted("v1", 90));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DecisionEngine engine = new DecisionEngine();
+        DecisionRulesWatcher watcher = new DecisionRulesWatcher(
+                engine, new DefaultResourceLoader(), file.toUri().toString(), Duration.ZERO, registry);
+
+        assertEquals("v1", engine.rulesVersion());
+        assertEquals("NO_ACTION", engine.decide(event).actions().get(0).type());
+
+        Files.writeString(file, TABLE.formatted("v2", 30));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 1_000));
+        watcher.poll();
+
+        assertEquals("v2", engine.rulesVersion());
+        assertEquals("NOTIFY_EMAIL", engine.decide(event).actions().get(0).type());
+
+        Files.writeString(file, "{ \"version\": \"v3\", \"rules\": [ { \"severity\": \"LOUD\" } ] }");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 2_000));
+        watcher.poll();
+        watcher.poll();
+
+        assertEquals("v2", engine.rulesVersion());
+        assertEquals(1.0, registry.counter("agentic.decision.rules.reloads", "outcome", "rejected").count());
+        watcher.close();
+    }
+}
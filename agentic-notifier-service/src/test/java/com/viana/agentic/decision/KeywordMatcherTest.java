@@ -0,0 +1,50 @@
+package com.viana.agentic.decision;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeywordMatcherTest {
+
+    private static final int SUSPICIOUS = 1;
+    private static final int NORMAL = 2;
+
+    private final KeywordMatcher matcher = KeywordMatcher.builder()
+            .add(SUSPICIOUS, List.of("suspicious", "fraud", "anomal", "unusual"))
+            .add(NORMAL, List.of("appears to be normal", "normal transaction", "no unusual"))
+            .build();
+
+    @Test
+    void matchesCaseInsensitivelyAnywhereInText() {
+        assertThat(matcher.match("Possible FRAUD detected")).isEqualTo(SUSPICIOUS);
+        assertThat(matcher.match("Anomalous pattern")).isEqualTo(SUSPICIOUS);
+        assertThat(matcher.match("This Appears To Be Normal.")).isEqualTo(NORMAL);
+        assertThat(matcher.match("Regular payroll deposit")).isZero();
+        assertThat(matcher.match(null)).isZero();
+    }
+
+    @Test
+    void reportsOverlappingPhrasesFromBothCategories() {
+        // "no unusual" also contains the suspicious keyword "unusual"
+        assertThat(matcher.match("There is no unusual activity")).isEqualTo(SUSPICIOUS | NORMAL);
+        // "anomal" starts inside an abandoned partial match of "normal transaction"
+        assertThat(matcher.match("normal transanomaly")).isEqualTo(SUSPICIOUS);
+    }
+
+    @Test
+    void handlesLargePhraseSets() {
+        List<String> phrases = new ArrayList<>();
+        for (int i = 0; i < 500; i++) phrases.add("pattern-" + i + "-x");
+        KeywordMatcher big = KeywordMatcher.builder()
+                .add(SUSPICIOUS, phrases)
+                .add(NORMAL, List.of("all clear"))
+                .build();
+
+        assertThat(big.match("seen PATTERN-437-X here")).isEqualTo(SUSPICIOUS);
+        assertThat(big.match("pattern-437 and all clear")).isEqualTo(NORMAL);
+        assertThat(big.match("pattern-5000-x")).isZero();
+    }
+}
@@ -0,0 +1,102 @@
+package com.viana.agentic.dedup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventDeduplicatorTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static final class MutableClock extends Clock {
+        private Instant now = T0;
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+
+        void advance(Duration d) { now = now.plus(d); }
+    }
+
+    private EventDeduplicator dedup(Clock clock, int exactCapacity) {
+        return new EventDeduplicator(true, Duration.ofHours(24), 24, 10_000, 1e-9, exactCapacity, clock, registry);
+    }
+
+    @Test
+    void detectsRedeliveryOfProcessedEvent() {
+        var d = dedup(new MutableClock(), 10);
+
+        assertThat(d.isDuplicate("E1")).isFalse();
+        d.markProcessed("E1");
+
+        assertThat(d.isDuplicate("E1")).isTrue();
+        assertThat(d.isDuplicate("E2")).isFalse();
+    }
+
+    @Test
+    void bloomStillCatchesIdsEvictedFromExactSet() {
+        var d = dedup(new MutableClock(), 2);
+
+        d.markProcessed("E1");
+        d.markProcessed("E2");
+        d.markProcessed("E3");
+
+        assertThat(d.isDuplicate("E1")).isTrue();
+        assertThat(registry.get("agentic.dedup.skipped").tag("match", "bloom").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void forgetsIdsOnceTheWindowHasPassed() {
+        var clock = new MutableClock();
+        var d = dedup(clock, 0);
+
+        d.markProcessed("E1");
+        clock.advance(Duration.ofHours(25));
+
+        assertThat(d.isDuplicate("E1")).isFalse();
+    }
+
+    @Test
+    void ignoresWarmupIdsOlderThanTheWindow() {
+        var d = dedup(new MutableClock(), 0);
+
+        d.markProcessed("OLD", T0.minus(Duration.ofHours(30)).toEpochMilli());
+
+        assertThat(d.isDuplicate("OLD")).isFalse();
+    }
+
+    @Test
+    void disabledDeduplicatorNeverSkips() {
+        var d = new EventDeduplicator(false, Duration.ofHours(1), 4, 100, 1e-6, 10, new MutableClock(), registry);
+
+        d.markProcessed("E1");
+
+        assertThat(d.isDuplicate("E1")).isFalse();
+    }
+
+    @Test
+    void falsePositiveRateHoldsAcrossAllBuckets() {
+        var clock = new MutableClock();
+        var d = new EventDeduplicator(true, Duration.ofHours(24), 24, 1_000, 0.01, 0, clock, registry);
+        for (int bucket = 0; bucket < 24; bucket++) {  // one full bucket per hour of the window
+            for (int i = 0; i < 1_000; i++) d.markProcessed("seen-" + bucket + "-" + i);
+            clock.advance(Duration.ofHours(1));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (d.isDuplicate("new-" + i)) falsePositives++;
+        }
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.015);
+    }
+}
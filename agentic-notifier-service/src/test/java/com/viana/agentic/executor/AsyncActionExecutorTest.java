@@ -0,0 +1,133 @@
+package com.viana.agentic.executor;
+
+import com.viana.agentic.model.ActionResult;
+import com.viana.agentic.model.AgentAction;
+import com.viana.agentic.model.AgentDecision;
+import com.viana.common.events.EnrichedAccountEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncActionExecutorTest {
+
+    @Mock
+    private ActionExecutor delegate;
+
+    private AsyncActionExecutor executor;
+
+    private static final AgentDecision DECISION =
+            new AgentDecision("D1", "E1", "ACC1", Instant.EPOCH, List.of(), "r");
+    private static final EnrichedAccountEvent EVENT =
+            EnrichedAccountEvent.builder().eventId("E1").accountId("ACC1").build();
+
+    private AsyncActionExecutor executor(int maxAttempts) {
+        executor = new AsyncActionExecutor(delegate, true, 2, 10, Map.of(), Map.of(),
+                maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(5),
+                new SimpleMeterRegistry());
+        return executor;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) executor.shutdown();
+    }
+
+    @Test
+    void retriesTransientFailureAndReportsSuccess() throws Exception {
+        Mockito.doThrow(new IllegalStateException("smtp down"))
+                .doNothing()
+                .when(delegate).execute(any(), any(), any());
+        CompletableFuture<ActionResult> result = new CompletableFuture<>();
+
+        executor(3).submit(DECISION, EVENT, new AgentAction("NOTIFY_EMAIL", Map.of()), result::complete);
+
+        ActionResult r = result.get(5, TimeUnit.SECONDS);
+        assertThat(r.success()).isTrue();
+        assertThat(r.message()).contains("after 2 attempts");
+        Mockito.verify(delegate, Mockito.times(2)).execute(any(), any(), any());
+    }
+
+    @Test
+    void unsupportedActionFailsWithoutRetry() throws Exception {
+        Mockito.doThrow(new IllegalArgumentException("Action not supported: CREATE_CASE"))
+                .when(delegate).execute(any(), any(), any());
+        CompletableFuture<ActionResult> result = new CompletableFuture<>();
+
+        executor(3).submit(DECISION, EVENT, new AgentAction("CREATE_CASE", Map.of()), result::complete);
+
+        ActionResult r = result.get(5, TimeUnit.SECONDS);
+        assertThat(r.success()).isFalse();
+        assertThat(r.actionType()).isEqualTo("CREATE_CASE");
+        Mockito.verify(delegate, Mockito.times(1)).execute(any(), any(), any());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        Mockito.doThrow(new IllegalStateException("smtp down")).when(delegate).execute(any(), any(), any());
+        CompletableFuture<ActionResult> result = new CompletableFuture<>();
+
+        executor(2).submit(DECISION, EVENT, new AgentAction("NOTIFY_EMAIL", Map.of()), result::complete);
+
+        ActionResult r = result.get(5, TimeUnit.SECONDS);
+        assertThat(r.success()).isFalse();
+        assertThat(r.message()).isEqualTo("smtp down");
+        Mockito.verify(delegate, Mockito.times(2)).execute(any(), any(), any());
+    }
+
+    @Test
+    void shutdownReportsRetriesThatNeverRan() throws Exception {
+        Mockito.doThrow(new IllegalStateException("smtp down")).when(delegate).execute(any(), any(), any());
+        executor = new AsyncActionExecutor(delegate, true, 2, 10, Map.of(), Map.of(),
+                3, Duration.ofMinutes(10), Duration.ofMinutes(10), Duration.ofMillis(100),
+                new SimpleMeterRegistry());
+        CompletableFuture<ActionResult> result = new CompletableFuture<>();
+
+        executor.submit(DECISION, EVENT, new AgentAction("NOTIFY_EMAIL", Map.of()), result::complete);
+        Mockito.verify(delegate, Mockito.timeout(5_000)).execute(any(), any(), any());
+        executor.shutdown();
+
+        ActionResult r = result.get(5, TimeUnit.SECONDS);
+        assertThat(r.success()).isFalse();
+        assertThat(r.message()).contains("shut down");
+        executor = null;
+    }
+
+    @Test
+    void shutdownReportsActionsStillQueuedInABulkhead() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(inv -> release.await(1, TimeUnit.SECONDS)).when(delegate).execute(any(), any(), any());
+        executor = new AsyncActionExecutor(delegate, true, 1, 10, Map.of(), Map.of(),
+                3, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(100),
+                new SimpleMeterRegistry());
+        CompletableFuture<ActionResult> running = new CompletableFuture<>();
+        CompletableFuture<ActionResult> queued = new CompletableFuture<>();
+
+        executor.submit(DECISION, EVENT, new AgentAction("NOTIFY_EMAIL", Map.of()), running::complete);
+        Mockito.verify(delegate, Mockito.timeout(5_000)).execute(any(), any(), any());
+        executor.submit(DECISION, EVENT, new AgentAction("NOTIFY_EMAIL", Map.of()), queued::complete);
+        executor.shutdown();
+
+        ActionResult r = queued.get(5, TimeUnit.SECONDS);
+        assertThat(r.success()).isFalse();
+        assertThat(r.message()).contains("shut down");
+        assertThat(running.get(5, TimeUnit.SECONDS).success()).isTrue();
+        Mockito.verify(delegate, Mockito.times(1)).execute(any(), any(), any());
+        executor = null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.viana.agentic.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailDigestEngineTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<SimpleMailMessage> sent = new CopyOnWriteArrayList<>();
+    private final EmailDigestEngine engine =
+            new EmailDigestEngine("agentic@local.dev", Duration.ofHours(1), 3, sent::add, registry);
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    private static EmailDigestEngine.Notification n(String account, String severity, String subject) {
+        return new EmailDigestEngine.Notification(account, severity, subject, "body of " + subject);
+    }
+
+    @Test
+    void coalescesPerAccountAndFlushesImmediatelyOnHigh() {
+        engine.offer("ops@local.dev", n("ACC1", "MEDIUM", "m1"));
+        engine.offer("ops@local.dev", n("ACC2", "MEDIUM", "other account"));
+        assertThat(sent).isEmpty();
+
+        engine.offer("ops@local.dev", n("ACC1", "HIGH", "Suspicious account activity"));
+
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0).getSubject()).isEqualTo("[2 notifications] Suspicious account activity");
+        assertThat(sent.get(0).getText()).contains("body of m1").contains("Severity: HIGH");
+        assertThat(sent.get(0).getTo()).containsExactly("ops@local.dev");
+    }
+
+    @Test
+    void flushesWhenDigestIsFullAndOnClose() {
+        engine.offer("ops@local.dev", n("ACC1", "MEDIUM", "a"));
+        engine.offer("ops@local.dev", n("ACC1", "MEDIUM", "b"));
+        engine.offer("ops@local.dev", n("ACC1", "MEDIUM", "c"));
+        engine.offer("ops@local.dev", n("ACC1", "MEDIUM", "single"));
+
+        assertThat(sent).hasSize(1);
+
+        engine.close();
+
+        assertThat(sent).hasSize(2);
+        assertThat(sent.get(1).getSubject()).isEqualTo("single");
+        assertThat(registry.counter("agentic.email.digest.in").count()).isEqualTo(4.0);
+        assertThat(registry.counter("agentic.email.digest.out").count()).isEqualTo(2.0);
+    }
+}
@@ -0,0 +1,76 @@
+package com.viana.agentic.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SmtpSessionPoolTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void workerSurvivesAMessageThatCannotBeSent() {
+        JavaMailSender sender = Mockito.mock(JavaMailSender.class);
+        Mockito.doThrow(new IllegalStateException("unparseable address"))
+                .doNothing()
+                .when(sender).send(any(SimpleMailMessage.class));
+        SmtpSessionPool pool = new SmtpSessionPool(sender, 1, 10, TimeUnit.SECONDS.toMillis(60), registry);
+
+        pool.submit(message("bad"));
+        pool.submit(message("good"));
+
+        verify(sender, timeout(5_000).times(2)).send(any(SimpleMailMessage.class));
+        pool.close();
+        assertThat(registry.counter("agentic.email.smtp.failed").count()).isEqualTo(1.0);
+        assertThat(registry.counter("agentic.email.smtp.sent").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void closeDoesNotWaitOutIdleWorkers() {
+        SmtpSessionPool pool = new SmtpSessionPool(Mockito.mock(JavaMailSender.class), 2, 10,
+                TimeUnit.SECONDS.toMillis(60), registry);
+
+        long start = System.nanoTime();
+        pool.close();
+
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    void closeLetsTheBatchInHandFinish() throws Exception {
+        JavaMailSender sender = Mockito.mock(JavaMailSender.class);
+        CountDownLatch sending = new CountDownLatch(1);
+        Mockito.doAnswer(inv -> {
+            sending.countDown();
+            Thread.sleep(200);
+            return null;
+        }).when(sender).send(any(SimpleMailMessage.class));
+        SmtpSessionPool pool = new SmtpSessionPool(sender, 1, 10, TimeUnit.SECONDS.toMillis(60), registry);
+
+        pool.submit(message("first"));
+        pool.submit(message("second"));
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        pool.close();
+
+        verify(sender, times(2)).send(any(SimpleMailMessage.class));
+        assertThat(registry.counter("agentic.email.smtp.sent").count()).isEqualTo(2.0);
+        assertThat(registry.counter("agentic.email.smtp.unsent").count()).isZero();
+    }
+
+    private static SimpleMailMessage message(String subject) {
+        SimpleMailMessage msg = new SimpleMailMessage();
+        msg.setSubject(subject);
+        return msg;
+    }
+}
@@ -0,0 +1,81 @@
+package com.viana.agentic.features;
+
+import com.viana.common.events.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static com.viana.agentic.features.VelocityMetric.COUNT;
+import static com.viana.agentic.features.VelocityMetric.MAX;
+import static com.viana.agentic.features.VelocityMetric.SUM;
+import static com.viana.agentic.features.VelocityWindow.ONE_DAY;
+import static com.viana.agentic.features.VelocityWindow.ONE_HOUR;
+import static com.viana.agentic.features.VelocityWindow.ONE_MINUTE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VelocityStoreTest {
+
+    private static final long T0 = 1_735_689_600_000L; // 2025-01-01T00:00:00Z, aligned to every bucket
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void aggregatesPerTypeAndSlidesOutOfEachWindow() {
+        VelocityStore store = new VelocityStore(true, 1000, 4, 6, registry);
+        long acc = VelocityStore.key("ACC1");
+
+        store.record("ACC1", EventType.DEBIT, 10, T0);
+        store.record("ACC1", EventType.DEBIT, 30, T0 + 5_000);
+        store.record("ACC1", EventType.CREDIT, 100, T0 + 5_000);
+
+        long now = T0 + 9_000;
+        assertThat(store.value(acc, EventType.DEBIT, ONE_MINUTE, COUNT, now)).isEqualTo(2);
+        assertThat(store.value(acc, EventType.DEBIT, ONE_MINUTE, SUM, now)).isEqualTo(40);
+        assertThat(store.value(acc, EventType.DEBIT, ONE_MINUTE, MAX, now)).isEqualTo(30);
+        assertThat(store.value(acc, null, ONE_MINUTE, COUNT, now)).isEqualTo(3);
+        assertThat(store.value(acc, null, ONE_MINUTE, MAX, now)).isEqualTo(100);
+
+        // two minutes later the 1m window is empty, 1h and 24h still hold everything
+        long later = T0 + 120_000;
+        assertThat(store.value(acc, EventType.DEBIT, ONE_MINUTE, COUNT, later)).isZero();
+        assertThat(store.value(acc, EventType.DEBIT, ONE_MINUTE, MAX, later)).isZero();
+        assertThat(store.value(acc, EventType.DEBIT, ONE_HOUR, COUNT, later)).isEqualTo(2);
+        assertThat(store.value(acc, EventType.DEBIT, ONE_DAY, SUM, T0 + 23 * 3_600_000L)).isEqualTo(40);
+        assertThat(store.value(acc, EventType.DEBIT, ONE_DAY, SUM, T0 + 25 * 3_600_000L)).isZero();
+
+        assertThat(store.value(VelocityStore.key("unknown"), null, ONE_DAY, COUNT, now)).isZero();
+    }
+
+    @Test
+    void countsARedeliveredEventOnce() {
+        VelocityStore store = new VelocityStore(true, 1000, 4, 6, registry);
+        long acc = VelocityStore.key("ACC1");
+
+        store.record("ACC1", "E1", EventType.DEBIT, 10, T0);
+        store.record("ACC1", "E2", EventType.DEBIT, 20, T0 + 1_000);
+        store.record("ACC1", "E1", EventType.DEBIT, 10, T0);     // redelivered after a rewind
+        store.record("ACC2", "E1", EventType.DEBIT, 10, T0);     // ids are tracked per account
+
+        assertThat(store.value(acc, EventType.DEBIT, ONE_MINUTE, COUNT, T0 + 2_000)).isEqualTo(2);
+        assertThat(store.value(acc, EventType.DEBIT, ONE_MINUTE, SUM, T0 + 2_000)).isEqualTo(30);
+        assertThat(store.value(VelocityStore.key("ACC2"), EventType.DEBIT, ONE_MINUTE, COUNT, T0 + 2_000))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void staysWithinCapacityAndReusesIdleAccounts() {
+        VelocityStore store = new VelocityStore(true, 64, 1, 6, registry);
+
+        for (int i = 0; i < 200; i++) {
+            store.record("ACC" + i, EventType.DEBIT, 1, T0);
+        }
+        assertThat(store.size()).isEqualTo(64);
+        assertThat(registry.counter("agentic.features.velocity.rejected").count()).isEqualTo(136);
+        assertThat(store.value(VelocityStore.key("ACC0"), EventType.DEBIT, ONE_MINUTE, COUNT, T0)).isEqualTo(1);
+
+        // a day later the old accounts are idle and make room for new ones
+        long nextDay = T0 + ONE_DAY.millis() + 1;
+        store.record("NEW", EventType.CREDIT, 5, nextDay);
+        assertThat(store.value(VelocityStore.key("NEW"), EventType.CREDIT, ONE_MINUTE, SUM, nextDay)).isEqualTo(5);
+        assertThat(store.size()).isLessThanOrEqualTo(64);
+    }
+}
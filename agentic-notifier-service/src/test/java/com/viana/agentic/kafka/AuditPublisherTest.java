@@ -0,0 +1,77 @@
+package com.viana.agentic.kafka;
+
+import com.viana.agentic.KafkaTopics;
+import com.viana.agentic.model.ActionResult;
+import com.viana.agentic.model.AgentDecision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditPublisherTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static AgentDecision decision() {
+        return new AgentDecision("D1", "E1", "ACC1", Instant.EPOCH, List.of(), "r");
+    }
+
+    private static ActionResult result(String type) {
+        return new ActionResult("D1", "E1", type, Instant.EPOCH, true, "ok");
+    }
+
+    private double inFlight() {
+        return registry.get("agentic.audit.in_flight").gauge().value();
+    }
+
+    @Test
+    void publish_sendsDecisionAndResultsAndReleasesWindowOnAck() {
+        CompletableFuture<SendResult<String, Object>> decisionAck = new CompletableFuture<>();
+        CompletableFuture<SendResult<String, Object>> resultAck = new CompletableFuture<>();
+        Mockito.when(kafkaTemplate.send(eq(KafkaTopics.OUT_DECISION), eq("ACC1"), any())).thenReturn(decisionAck);
+        Mockito.when(kafkaTemplate.send(eq(KafkaTopics.OUT_RESULT), eq("E1"), any())).thenReturn(resultAck);
+        var publisher = new AuditPublisher(kafkaTemplate, registry, 8);
+
+        var done = publisher.publish(decision(), List.of(result("NOTIFY_EMAIL")));
+
+        assertThat(inFlight()).isEqualTo(2.0);
+        assertThat(done).isNotDone();
+
+        decisionAck.complete(null);
+        resultAck.complete(null);
+
+        assertThat(done).isCompleted();
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void publish_countsFailuresAndStillFreesWindow() {
+        Mockito.when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        var publisher = new AuditPublisher(kafkaTemplate, registry, 1);
+
+        var first = publisher.publishResult(result("NO_ACTION"));
+        var second = publisher.publishResult(result("NO_ACTION"));
+
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isCompletedExceptionally();
+        assertThat(inFlight()).isZero();
+        assertThat(registry.get("agentic.audit.send.failures").tag("topic", KafkaTopics.OUT_RESULT).counter().count())
+                .isEqualTo(2.0);
+    }
+}
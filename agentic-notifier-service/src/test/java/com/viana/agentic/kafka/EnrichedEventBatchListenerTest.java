@@ -0,0 +1,124 @@
+package com.viana.agentic.kafka;
+
+import com.viana.agentic.decision.DecisionEngine;
+import com.viana.agentic.dedup.EventDeduplicator;
+import com.viana.agentic.executor.ActionExecutor;
+import com.viana.agentic.executor.AsyncActionExecutor;
+import com.viana.agentic.features.VelocityStore;
+import com.viana.agentic.model.ActionResult;
+import com.viana.agentic.model.AgentDecision;
+import com.viana.agentic.service.AgentPipeline;
+import com.viana.common.events.EnrichedAccountEvent;
+import com.viana.common.events.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+
+class EnrichedEventBatchListenerTest {
+
+    private static final String TOPIC = "account.enriched.v1";
+    private static final TopicPartition P0 = new TopicPartition(TOPIC, 0);
+
+    private final AuditPublisher auditPublisher = Mockito.mock(AuditPublisher.class);
+    private final EventDeduplicator dedup = new EventDeduplicator(
+            true, Duration.ofHours(1), 4, 1_000, 1e-6, 100, Clock.systemUTC(), new SimpleMeterRegistry());
+    private final EnrichedEventBatchListener listener = new EnrichedEventBatchListener(
+            new AgentPipeline(new DecisionEngine(), Mockito.mock(ActionExecutor.class), auditPublisher, dedup,
+                    Mockito.mock(AsyncActionExecutor.class), Mockito.mock(VelocityStore.class), false),
+            auditPublisher, dedup, 8, 1, false);
+
+    @AfterEach
+    void tearDown() {
+        listener.close();
+    }
+
+    private static ConsumerRecord<String, EnrichedAccountEvent> record(long offset, String accountId) {
+        EnrichedAccountEvent event = EnrichedAccountEvent.builder()
+                .eventId("E" + offset).accountId(accountId).riskScore(10).summary("Routine credit.")
+                .eventType(EventType.CREDIT).amount(20.0).currency("CAD").timestamp(Instant.EPOCH)
+                .build();
+        return new ConsumerRecord<>(TOPIC, 0, offset, accountId, event);
+    }
+
+    private static Consumer<?, ?> consumer() {
+        Consumer<?, ?> consumer = Mockito.mock(Consumer.class);
+        Mockito.when(consumer.assignment()).thenReturn(Set.of(P0));
+        return consumer;
+    }
+
+    @Test
+    void rewindsToTheFirstRecordWhoseAuditSendFailed() {
+        Mockito.when(auditPublisher.publish(any(AgentDecision.class), anyList())).thenAnswer(inv ->
+                "E11".equals(inv.<AgentDecision>getArgument(0).eventId())
+                        ? CompletableFuture.failedFuture(new KafkaException("broker down"))
+                        : CompletableFuture.completedFuture(null));
+        Consumer<?, ?> consumer = consumer();
+
+        listener.onBatch(List.of(record(10, "A"), record(11, "B"), record(12, "C")), consumer);
+
+        verify(consumer).commitSync(Map.of(P0, new OffsetAndMetadata(11)));
+        verify(consumer).seek(P0, 11L);
+        assertThat(dedup.isDuplicate("E10")).isTrue();
+        assertThat(dedup.isDuplicate("E11")).isFalse();
+        // acked, but redelivered with the failed one; it is skipped then
+        assertThat(dedup.isDuplicate("E12")).isTrue();
+    }
+
+    @Test
+    void commitsPastAsyncActionsOnlyOnceTheyReported() {
+        AsyncActionExecutor async = Mockito.mock(AsyncActionExecutor.class);
+        Mockito.when(async.isEnabled()).thenReturn(true);
+        Map<String, Runnable> held = new ConcurrentHashMap<>();
+        Mockito.doAnswer(inv -> {
+            AgentDecision decision = inv.getArgument(0);
+            java.util.function.Consumer<ActionResult> onComplete = inv.getArgument(3);
+            Runnable report = () -> onComplete.accept(new ActionResult(decision.decisionId(), decision.eventId(),
+                    "NO_ACTION", Instant.EPOCH, true, "ok"));
+            if ("E11".equals(decision.eventId())) held.put("E11", report);
+            else report.run();
+            return null;
+        }).when(async).submit(any(), any(), any(), any());
+        Mockito.when(auditPublisher.publishResult(any())).thenReturn(CompletableFuture.completedFuture(null));
+        Mockito.when(auditPublisher.publishDecision(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        EnrichedEventBatchListener asyncListener = new EnrichedEventBatchListener(
+                new AgentPipeline(new DecisionEngine(), Mockito.mock(ActionExecutor.class), auditPublisher, dedup,
+                        async, Mockito.mock(VelocityStore.class), false),
+                auditPublisher, dedup, 8, 1, false);
+        Consumer<?, ?> consumer = consumer();
+
+        try {
+            // returns although E11's action has not reported
+            asyncListener.onBatch(List.of(record(10, "A"), record(11, "B"), record(12, "C")), consumer);
+            verify(consumer).commitSync(Map.of(P0, new OffsetAndMetadata(11)));
+            assertThat(dedup.isDuplicate("E11")).isFalse();
+
+            held.get("E11").run();
+            asyncListener.onBatch(List.of(record(13, "D")), consumer);
+
+            verify(consumer).commitSync(Map.of(P0, new OffsetAndMetadata(14)));
+            assertThat(dedup.isDuplicate("E11")).isTrue();
+        } finally {
+            asyncListener.close();
+        }
+    }
+}
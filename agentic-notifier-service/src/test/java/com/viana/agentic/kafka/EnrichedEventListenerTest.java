@@ -0,0 +1,152 @@
+package com.viana.agentic.kafka;
+
+import com.viana.agentic.decision.DecisionEngine;
+import com.viana.agentic.dedup.EventDeduplicator;
+import com.viana.agentic.executor.ActionExecutor;
+import com.viana.agentic.executor.AsyncActionExecutor;
+import com.viana.agentic.features.VelocityStore;
+import com.viana.agentic.model.ActionResult;
+import com.viana.agentic.model.AgentDecision;
+import com.viana.agentic.model.AgentOutcome;
+import com.viana.agentic.service.AgentPipeline;
+import com.viana.common.events.EnrichedAccountEvent;
+import com.viana.common.events.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class EnrichedEventListenerTest {
+
+    private final AuditPublisher auditPublisher = Mockito.mock(AuditPublisher.class);
+    private final EventDeduplicator dedup = new EventDeduplicator(
+            true, Duration.ofHours(1), 4, 1_000, 1e-6, 100, Clock.systemUTC(), new SimpleMeterRegistry());
+
+    private EnrichedEventListener listener() {
+        return listener(true);
+    }
+
+    private EnrichedEventListener listener(boolean exactlyOnce) {
+        AgentPipeline pipeline = new AgentPipeline(new DecisionEngine(), Mockito.mock(ActionExecutor.class),
+                auditPublisher, dedup, Mockito.mock(AsyncActionExecutor.class), Mockito.mock(VelocityStore.class),
+                exactlyOnce);
+        return new EnrichedEventListener(pipeline, auditPublisher, dedup, exactlyOnce);
+    }
+
+    private static ConsumerRecord<String, EnrichedAccountEvent> record() {
+        EnrichedAccountEvent event = EnrichedAccountEvent.builder()
+                .eventId("E1").accountId("ACC1").riskScore(10).summary("Routine credit.")
+                .eventType(EventType.CREDIT).amount(20.0).currency("CAD").timestamp(Instant.EPOCH)
+                .build();
+        return new ConsumerRecord<>("account.enriched.v1", 0, 41L, "ACC1", event);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordOfAnAbortedTransactionIsProcessedAgainWhenRedelivered() {
+        EnrichedEventListener listener = listener();
+        Consumer<?, ?> consumer = Mockito.mock(Consumer.class);
+        doThrow(new KafkaException("transaction aborted"))
+                .doNothing()
+                .when(auditPublisher).publishInTransaction(anyList(), anyMap(), any());
+
+        assertThatThrownBy(() -> listener.onMessage(record(), consumer)).isInstanceOf(KafkaException.class);
+        assertThat(dedup.isDuplicate("E1")).isFalse();
+
+        listener.onMessage(record(), consumer);
+
+        ArgumentCaptor<List<AgentOutcome>> outcomes = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Map<TopicPartition, OffsetAndMetadata>> offsets = ArgumentCaptor.forClass(Map.class);
+        verify(auditPublisher, times(2)).publishInTransaction(outcomes.capture(), offsets.capture(), any());
+        assertThat(outcomes.getValue()).singleElement()
+                .satisfies(o -> assertThat(o.decision().eventId()).isEqualTo("E1"));
+        assertThat(offsets.getValue())
+                .containsEntry(new TopicPartition("account.enriched.v1", 0), new OffsetAndMetadata(42L));
+        assertThat(dedup.isDuplicate("E1")).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void committedRecordIsSkippedWhenRedelivered() {
+        EnrichedEventListener listener = listener();
+        Consumer<?, ?> consumer = Mockito.mock(Consumer.class);
+        doNothing().when(auditPublisher).publishInTransaction(anyList(), anyMap(), any());
+
+        listener.onMessage(record(), consumer);
+        listener.onMessage(record(), consumer);
+
+        ArgumentCaptor<List<AgentOutcome>> outcomes = ArgumentCaptor.forClass(List.class);
+        verify(auditPublisher, times(2)).publishInTransaction(outcomes.capture(), anyMap(), any());
+        assertThat(outcomes.getAllValues().get(0)).hasSize(1);
+        // the offset still moves on, without a second decision
+        assertThat(outcomes.getAllValues().get(1)).isEmpty();
+    }
+
+    @Test
+    void recordWhoseAuditSendFailedIsProcessedAgainWhenRedelivered() {
+        EnrichedEventListener listener = listener(false);
+        Mockito.when(auditPublisher.publish(any(), anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThatThrownBy(() -> listener.onMessage(record(), Mockito.mock(Consumer.class)))
+                .isInstanceOf(CompletionException.class);
+        assertThat(dedup.isDuplicate("E1")).isFalse();
+
+        listener.onMessage(record(), Mockito.mock(Consumer.class));
+
+        verify(auditPublisher, times(2)).publish(any(), anyList());
+        assertThat(dedup.isDuplicate("E1")).isTrue();
+    }
+
+    @Test
+    void auditOfAsyncActionsIsBestEffort() {
+        AsyncActionExecutor async = Mockito.mock(AsyncActionExecutor.class);
+        Mockito.when(async.isEnabled()).thenReturn(true);
+        Mockito.doAnswer(inv -> {
+            AgentDecision decision = inv.getArgument(0);
+            inv.<java.util.function.Consumer<ActionResult>>getArgument(3).accept(new ActionResult(
+                    decision.decisionId(), decision.eventId(), "NO_ACTION", Instant.EPOCH, true, "ok"));
+            return null;
+        }).when(async).submit(any(), any(), any(), any());
+        Mockito.when(auditPublisher.publishResult(any())).thenReturn(CompletableFuture.completedFuture(null));
+        Mockito.when(auditPublisher.publishDecision(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker down")));
+        AgentPipeline pipeline = new AgentPipeline(new DecisionEngine(), Mockito.mock(ActionExecutor.class),
+                auditPublisher, dedup, async, Mockito.mock(VelocityStore.class), false);
+        EnrichedEventListener listener = new EnrichedEventListener(pipeline, auditPublisher, dedup, false);
+
+        // the record is not redelivered: its actions are already queued
+        listener.onMessage(record(), Mockito.mock(Consumer.class));
+
+        // the decision follows the results, and a failed send leaves the event unmarked
+        InOrder order = Mockito.inOrder(auditPublisher);
+        order.verify(auditPublisher).publishResult(any());
+        order.verify(auditPublisher).publishDecision(any(), any());
+        assertThat(dedup.isDuplicate("E1")).isFalse();
+    }
+}
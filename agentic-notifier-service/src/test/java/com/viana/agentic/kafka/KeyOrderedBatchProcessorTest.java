@@ -0,0 +1,97 @@
+package com.viana.agentic.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyOrderedBatchProcessorTest {
+
+    private static final String TOPIC = "account.enriched.v1";
+    private static final TopicPartition P0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition P1 = new TopicPartition(TOPIC, 1);
+
+    private final KeyOrderedBatchProcessor processor = new KeyOrderedBatchProcessor(8, 2);
+
+    @AfterEach
+    void tearDown() {
+        processor.close();
+    }
+
+    private static ConsumerRecord<String, String> record(int partition, long offset, String key) {
+        return new ConsumerRecord<>(TOPIC, partition, offset, key, key + "@" + offset);
+    }
+
+    @Test
+    void keepsPerKeyOrderAndCommitsWholeBatch() {
+        var records = List.of(
+                record(0, 10, "A"), record(0, 11, "B"), record(0, 12, "A"),
+                record(1, 5, "C"), record(0, 13, "A"));
+        Map<String, List<Long>> seen = new ConcurrentHashMap<>();
+
+        var outcome = processor.process(records, ConsumerRecord::key,
+                r -> seen.computeIfAbsent(r.key(), k -> new CopyOnWriteArrayList<>()).add(r.offset()));
+
+        assertThat(seen.get("A")).containsExactly(10L, 12L, 13L);
+        assertThat(outcome.commits()).containsEntry(P0, new OffsetAndMetadata(14))
+                .containsEntry(P1, new OffsetAndMetadata(6));
+        assertThat(outcome.rewinds()).isEmpty();
+    }
+
+    @Test
+    void commitsBelowLowestFailureAndRewindsPartition() {
+        var records = List.of(
+                record(0, 10, "A"), record(0, 11, "B"), record(0, 12, "A"), record(1, 5, "C"));
+        List<Long> handled = new CopyOnWriteArrayList<>();
+
+        var outcome = processor.process(records, ConsumerRecord::key, r -> {
+            if (r.offset() == 11) throw new IllegalStateException("boom");
+            handled.add(r.offset());
+        });
+
+        assertThat(handled).containsExactlyInAnyOrder(10L, 12L, 5L);
+        assertThat(outcome.commits()).containsEntry(P0, new OffsetAndMetadata(11))
+                .containsEntry(P1, new OffsetAndMetadata(6));
+        assertThat(outcome.rewinds()).containsExactly(Map.entry(P0, 11L));
+    }
+
+    @Test
+    void failedRecordHoldsBackRestOfItsLane() {
+        var records = List.of(record(0, 10, "A"), record(0, 11, "A"));
+        List<Long> handled = new CopyOnWriteArrayList<>();
+
+        var outcome = processor.process(records, ConsumerRecord::key, r -> {
+            if (r.offset() == 10) throw new IllegalStateException("boom");
+            handled.add(r.offset());
+        });
+
+        assertThat(handled).isEmpty();
+        assertThat(outcome.commits()).isEmpty();
+        assertThat(outcome.rewinds()).containsExactly(Map.entry(P0, 10L));
+    }
+
+    @Test
+    void givesUpOnPoisonRecordAfterMaxAttempts() {
+        var records = List.of(record(0, 10, "A"), record(0, 11, "A"));
+        List<Long> handled = new CopyOnWriteArrayList<>();
+        KeyOrderedBatchProcessor.RecordHandler<String, String> handler = r -> {
+            if (r.offset() == 10) throw new IllegalStateException("poison");
+            handled.add(r.offset());
+        };
+
+        processor.process(records, ConsumerRecord::key, handler);
+        var outcome = processor.process(records, ConsumerRecord::key, handler);
+
+        assertThat(handled).containsExactly(11L);
+        assertThat(outcome.commits()).containsEntry(P0, new OffsetAndMetadata(12));
+        assertThat(outcome.rewinds()).isEmpty();
+    }
+}
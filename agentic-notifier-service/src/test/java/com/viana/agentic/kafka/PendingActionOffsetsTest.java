@@ -0,0 +1,54 @@
+package com.viana.agentic.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PendingActionOffsetsTest {
+
+    private static final TopicPartition P0 = new TopicPartition("account.enriched.v1", 0);
+    private static final TopicPartition P1 = new TopicPartition("account.enriched.v1", 1);
+
+    private final PendingActionOffsets pending = new PendingActionOffsets();
+
+    @Test
+    void holdsAPartitionBelowItsFirstOutstandingRecord() {
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        pending.track(P0, 10, first);
+        pending.track(P0, 12, CompletableFuture.completedFuture(null));
+
+        assertThat(pending.committable(Map.of(P0, new OffsetAndMetadata(14), P1, new OffsetAndMetadata(6)), Set.of(P0, P1)))
+                .containsExactlyInAnyOrderEntriesOf(Map.of(P0, new OffsetAndMetadata(10), P1, new OffsetAndMetadata(6)));
+
+        // nothing moved yet
+        assertThat(pending.committable(Map.of(), Set.of(P0, P1))).isEmpty();
+
+        first.completeExceptionally(new IllegalStateException("audit send failed"));
+        assertThat(pending.committable(Map.of(), Set.of(P0, P1))).containsExactly(Map.entry(P0, new OffsetAndMetadata(14)));
+    }
+
+    @Test
+    void rewoundRecordsNoLongerHoldThePartition() {
+        pending.track(P0, 10, CompletableFuture.completedFuture(null));
+        pending.track(P0, 11, new CompletableFuture<>());
+        pending.rewind(P0, 11);
+
+        assertThat(pending.committable(Map.of(P0, new OffsetAndMetadata(11)), Set.of(P0)))
+                .containsExactly(Map.entry(P0, new OffsetAndMetadata(11)));
+    }
+
+    @Test
+    void forgetsPartitionsNoLongerAssigned() {
+        pending.track(P0, 10, new CompletableFuture<>());
+        pending.committable(Map.of(P0, new OffsetAndMetadata(11)), Set.of(P0));
+
+        assertThat(pending.committable(Map.of(P1, new OffsetAndMetadata(3)), Set.of(P1)))
+                .containsExactly(Map.entry(P1, new OffsetAndMetadata(3)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmbeddingBatcherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<List<String>> requests = new CopyOnWriteArrayList<>();
+    private EmbeddingBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        batcher.close();
+    }
+
+    private static List<float[]> fakeEmbed(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>();
+        for (String t : texts) vectors.add(new float[]{t.length()});
+        return vectors;
+    }
+
+    @Test
+    void coalescesCallsIntoBatchesAndDeduplicatesTexts() throws Exception {
+        batcher = new EmbeddingBatcher(texts -> {
+            requests.add(texts);
+            return fakeEmbed(texts);
+        }, 4, Duration.ofMillis(200), 1, 100, registry);
+
+        List<CompletableFuture<float[]>> results = new ArrayList<>();
+        for (String t : List.of("a", "bb", "a", "ccc", "dddd", "eeeee")) {
+            results.add(batcher.submit(t));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(2, TimeUnit.SECONDS)).hasSize(1);
+        }
+        assertThat(results.get(2).get()).containsExactly(1f);
+        assertThat(results.get(5).get()).containsExactly(5f);
+
+        // 6 calls -> at most 4 texts per request, the duplicate "a" sent once
+        assertThat(requests.stream().mapToInt(List::size).sum()).isEqualTo(5);
+        assertThat(requests).allSatisfy(r -> assertThat(r).hasSizeLessThanOrEqualTo(4));
+        assertThat(registry.summary("agentic.embeddings.batch.size").count()).isEqualTo(requests.size());
+    }
+
+    @Test
+    void sendsPartialBatchAfterMaxDelay() throws Exception {
+        batcher = new EmbeddingBatcher(texts -> {
+            requests.add(texts);
+            return fakeEmbed(texts);
+        }, 32, Duration.ofMillis(5), 1, 100, registry);
+
+        assertThat(batcher.submit("single").get(2, TimeUnit.SECONDS)).containsExactly(6f);
+        assertThat(requests).containsExactly(List.of("single"));
+    }
+
+    @Test
+    void failsEveryCallerOfAFailedBatch() {
+        batcher = new EmbeddingBatcher(texts -> {
+            throw new IllegalStateException("embedding service down");
+        }, 2, Duration.ofMillis(50), 1, 100, registry);
+
+        CompletableFuture<float[]> a = batcher.submit("a");
+        CompletableFuture<float[]> b = batcher.submit("b");
+
+        assertThatThrownBy(() -> a.get(2, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("embedding service down");
+        assertThatThrownBy(() -> b.get(2, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+    }
+
+    @Test
+    void closeFailsABatchWaitingForAnInFlightSlot() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        batcher = new EmbeddingBatcher(texts -> {
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return fakeEmbed(texts);
+        }, 1, Duration.ofMillis(1), 1, 100, registry);
+
+        CompletableFuture<float[]> sending = batcher.submit("a");
+        CompletableFuture<float[]> held = batcher.submit("b");
+        Thread.sleep(100);
+        Thread closer = Thread.ofVirtual().start(batcher::close);
+
+        assertThatThrownBy(() -> held.get(2, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("closed");
+        release.countDown();
+        closer.join();
+        assertThat(sending.get(2, TimeUnit.SECONDS)).containsExactly(1f);
+    }
+}
@@ -0,0 +1,109 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmbeddingCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, float[]> loader = text -> {
+        loads.incrementAndGet();
+        return new float[]{text.length(), 0.5f, -0.25f};
+    };
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+
+        void advance(Duration d) { now = now.plus(d); }
+    }
+
+    @Test
+    void servesNormalizedDuplicatesFromMemoryUntilTtl() {
+        MutableClock clock = new MutableClock();
+        EmbeddingCache cache = new EmbeddingCache(true, 100, Duration.ofMinutes(10), null, clock, registry);
+
+        float[] first = cache.get("Normal transaction  at grocery store", loader);
+        float[] second = cache.get("  Normal transaction\tat grocery store\n", loader);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(registry.counter("agentic.embeddings.cache.hits", "tier", "memory").count()).isEqualTo(1.0);
+        assertThat(registry.counter("agentic.embeddings.cache.misses").count()).isEqualTo(1.0);
+
+        clock.advance(Duration.ofMinutes(11));
+        cache.get("Normal transaction at grocery store", loader);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxEntries() {
+        EmbeddingCache cache = new EmbeddingCache(true, 2, Duration.ofHours(1), null, Clock.systemUTC(), registry);
+
+        cache.get("a", loader);
+        cache.get("b", loader);
+        cache.get("a", loader);
+        cache.get("c", loader);   // evicts "b"
+        cache.get("a", loader);
+        cache.get("b", loader);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void diskTierSurvivesRestart(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("embeddings.bin");
+        MappedEmbeddingStore disk = new MappedEmbeddingStore(file, 3, 64);
+        new EmbeddingCache(true, 10, Duration.ofHours(1), disk, Clock.systemUTC(), registry)
+                .get("suspicious transfer", loader);
+        disk.close();
+
+        MappedEmbeddingStore reopened = new MappedEmbeddingStore(file, 3, 64);
+        EmbeddingCache restarted = new EmbeddingCache(true, 10, Duration.ofHours(1), reopened, Clock.systemUTC(), registry);
+        float[] v = restarted.get("suspicious transfer", loader);
+        reopened.close();
+
+        assertThat(v).containsExactly(19f, 0.5f, -0.25f);
+        assertThat(loads).hasValue(1);
+        assertThat(registry.counter("agentic.embeddings.cache.hits", "tier", "disk").count()).isEqualTo(1.0);
+
+        // a file written for another dimension is discarded rather than misread
+        MappedEmbeddingStore otherDim = new MappedEmbeddingStore(file, 4, 64);
+        EmbeddingCache.Key key = EmbeddingCache.key("suspicious transfer");
+        assertThat(otherDim.get(key.hi(), key.lo(), 0)).isNull();
+        otherDim.close();
+    }
+
+    @Test
+    void promotedDiskEntryKeepsItsOriginalAge(@TempDir Path dir) throws Exception {
+        MutableClock clock = new MutableClock();
+        MappedEmbeddingStore disk = new MappedEmbeddingStore(dir.resolve("embeddings.bin"), 3, 64);
+        new EmbeddingCache(true, 10, Duration.ofMinutes(10), disk, clock, registry).get("late payment", loader);
+
+        clock.advance(Duration.ofMinutes(8));
+        EmbeddingCache restarted = new EmbeddingCache(true, 10, Duration.ofMinutes(10), disk, clock, registry);
+        restarted.get("late payment", loader);    // promoted from disk
+        clock.advance(Duration.ofMinutes(3));
+        restarted.get("late payment", loader);    // 11 minutes after it was written
+        disk.close();
+
+        assertThat(loads).hasValue(2);
+    }
+}
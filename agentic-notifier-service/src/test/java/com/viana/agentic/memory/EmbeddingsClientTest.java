@@ -0,0 +1,154 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmbeddingsClientTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EmbeddingCache cache = new EmbeddingCache(true, 100, Duration.ofHours(1), null, Clock.systemUTC(), registry);
+    private EmbeddingsClient client;
+
+    /**
+     * A remote provider whose batched path is answered by {@code primary} and direct calls by
+     * {@code direct}; texts starting with "warm" are answered right away.
+     */
+    private static EmbeddingProvider provider(CompletableFuture<float[]> primary, AtomicInteger directCalls,
+                                              RuntimeException directFailure) {
+        return new EmbeddingProvider() {
+            @Override
+            public String name() {
+                return "test";
+            }
+
+            @Override
+            public List<float[]> embedAll(List<String> texts) {
+                directCalls.incrementAndGet();
+                if (directFailure != null) throw directFailure;
+                return List.of(new float[]{2, 0});
+            }
+
+            @Override
+            public CompletableFuture<float[]> embedAsync(String text) {
+                return text.startsWith("warm") ? CompletableFuture.completedFuture(new float[]{0, 1}) : primary;
+            }
+        };
+    }
+
+    private double hedges(String outcome) {
+        return registry.counter("agentic.embeddings.hedge", "outcome", outcome).count();
+    }
+
+    /** Records enough fast requests for the p95 to be known. */
+    private void warmUp() throws Exception {
+        for (int i = 0; i < 16; i++) client.embedHedged("warm " + i).get(2, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) client.close();
+    }
+
+    @Test
+    void stalledRequestIsHedgedAndTheHedgeIsCached() throws Exception {
+        AtomicInteger direct = new AtomicInteger();
+        client = new EmbeddingsClient(provider(new CompletableFuture<>(), direct, null), cache, true,
+                Duration.ofMillis(10), 1.0, registry);
+        warmUp();
+
+        float[] v = client.embedHedged("text").get(2, TimeUnit.SECONDS);
+
+        assertThat(v).containsExactly(2, 0);
+        assertThat(hedges("sent")).isEqualTo(1);
+        // counted right after the result completes
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (hedges("won") == 0 && System.nanoTime() < deadline) Thread.onSpinWait();
+        assertThat(hedges("won")).isEqualTo(1);
+        assertThat(client.embedHedged("text").get(2, TimeUnit.SECONDS)).isSameAs(v);
+        assertThat(direct).hasValue(1);
+    }
+
+    @Test
+    void fastPrimaryIsNotHedged() throws Exception {
+        AtomicInteger direct = new AtomicInteger();
+        client = new EmbeddingsClient(provider(CompletableFuture.completedFuture(new float[]{1, 0}), direct, null),
+                cache, true, Duration.ofMillis(50), 1.0, registry);
+        warmUp();
+
+        assertThat(client.embedHedged("text").get(2, TimeUnit.SECONDS)).containsExactly(1, 0);
+        Thread.sleep(100);
+        assertThat(direct).hasValue(0);
+        assertThat(hedges("sent")).isZero();
+    }
+
+    @Test
+    void failsOnlyWhenEveryRequestFailed() throws Exception {
+        CompletableFuture<float[]> primary = new CompletableFuture<>();
+        AtomicInteger direct = new AtomicInteger();
+        client = new EmbeddingsClient(provider(primary, direct, new IllegalStateException("hedge down")), cache,
+                true, Duration.ofMillis(10), 1.0, registry);
+        warmUp();
+
+        CompletableFuture<float[]> result = client.embedHedged("text");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (direct.get() == 0 && System.nanoTime() < deadline) Thread.onSpinWait();
+        assertThat(result).isNotDone();
+        primary.completeExceptionally(new IllegalStateException("primary down"));
+
+        assertThatThrownBy(() -> result.get(2, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+    }
+
+    @Test
+    void noHedgeBeforeTheP95IsKnown() throws Exception {
+        AtomicInteger direct = new AtomicInteger();
+        client = new EmbeddingsClient(provider(new CompletableFuture<>(), direct, null), cache, true,
+                Duration.ofMillis(10), 1.0, registry);
+
+        CompletableFuture<float[]> result = client.embedHedged("text");
+        Thread.sleep(100);
+
+        assertThat(result).isNotDone();
+        assertThat(direct).hasValue(0);
+    }
+
+    @Test
+    void hedgesStayWithinTheBudget() throws Exception {
+        AtomicInteger direct = new AtomicInteger();
+        client = new EmbeddingsClient(provider(new CompletableFuture<>(), direct, null), cache, true,
+                Duration.ofMillis(5), 0.25, registry);
+        warmUp();    // only the last call sees a p95 and earns a quarter hedge
+
+        for (int i = 0; i < 10; i++) client.embedHedged("stalled " + i);    // 2.5 more
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (hedges("sent") + hedges("throttled") < 10 && System.nanoTime() < deadline) Thread.sleep(5);
+
+        assertThat(hedges("sent")).isEqualTo(2);
+        assertThat(hedges("throttled")).isEqualTo(8);
+    }
+
+    @Test
+    void hedgeDueAfterCloseIsDropped() throws Exception {
+        AtomicInteger direct = new AtomicInteger();
+        client = new EmbeddingsClient(provider(new CompletableFuture<>(), direct, null), cache, true,
+                Duration.ofMillis(50), 1.0, registry);
+        warmUp();
+
+        client.embedHedged("text");
+        client.close();
+        Thread.sleep(150);
+
+        assertThat(direct).hasValue(0);
+    }
+}
@@ -0,0 +1,41 @@
+package com.viana.agentic.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HashingEmbeddingProviderTest {
+
+    private final HashingEmbeddingProvider provider = new HashingEmbeddingProvider(384);
+
+    @Test
+    void vectorsAreDeterministicUnitLength() {
+        float[] v = provider.embed("Suspicious login from a new device");
+
+        assertThat(v).hasSize(384);
+        assertThat(VectorMath.dot(v, v)).isCloseTo(1.0, within(1e-5));
+        assertThat(new HashingEmbeddingProvider(384).embed("Suspicious login from a new device")).isEqualTo(v);
+        assertThat(provider.embed("SUSPICIOUS   login, from a new device!")).isEqualTo(v);
+    }
+
+    @Test
+    void sharedWordsAndFragmentsAreCloserThanUnrelatedText() {
+        float[] query = provider.embed("suspicious login from new device");
+        double related = VectorMath.cosineDistance(query, provider.embed("new device login flagged as suspicious"));
+        double fragment = VectorMath.cosineDistance(query, provider.embed("logins from devices"));
+        double unrelated = VectorMath.cosineDistance(query, provider.embed("monthly statement is ready"));
+
+        assertThat(related).isLessThan(fragment);
+        assertThat(fragment).isLessThan(unrelated);
+    }
+
+    @Test
+    void textWithoutWordsStillHasADirection() {
+        assertThat(provider.embed("").length).isEqualTo(384);
+        assertThat(VectorMath.normalize(provider.embed(" ?! "))).isNotNull();
+        assertThat(provider.embedAll(List.of("a", "b"))).hasSize(2);
+    }
+}
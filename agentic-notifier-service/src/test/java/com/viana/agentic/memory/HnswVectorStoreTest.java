@@ -0,0 +1,208 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class HnswVectorStoreTest {
+
+    private static final int DIM = 16;
+
+    @Mock
+    private PgVectorStore db;
+
+    @TempDir
+    Path dir;
+
+    private HnswVectorStore store;
+
+    private HnswVectorStore open() throws Exception {
+        return open(Duration.ZERO);
+    }
+
+    private HnswVectorStore open(Duration retention) throws Exception {
+        store = new HnswVectorStore(db, DIM, 8, 64, 64, Duration.ZERO, 4, dir.toString(),
+                DataSize.ofKilobytes(64), retention, Duration.ofHours(1), new SimpleMeterRegistry());
+        store.open();
+        return store;
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (store != null) store.close();
+    }
+
+    private static float[] randomVector(SplittableRandom random) {
+        float[] v = new float[DIM];
+        for (int i = 0; i < DIM; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+
+    private static List<StoredMemory> memories(String account, long firstId, int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<StoredMemory> out = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long id = firstId + i;
+            out.add(new StoredMemory(id, account, "E" + id, "memory " + id, Instant.ofEpochMilli(id), randomVector(random)));
+        }
+        return out;
+    }
+
+    @Test
+    void graphSearchMatchesBruteForceOnMostQueries() {
+        List<StoredMemory> data = memories("ACC1", 1, 2_000, 1);
+        HnswGraph graph = new HnswGraph(12, 100, 42);
+        for (StoredMemory mem : data) graph.add(mem, VectorMath.normalize(mem.embedding()));
+
+        SplittableRandom random = new SplittableRandom(2);
+        int found = 0, expected = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = VectorMath.normalize(randomVector(random));
+            Set<Long> exact = new HashSet<>();
+            data.stream()
+                    .sorted(Comparator.comparingDouble(mem -> VectorMath.cosineDistance(query, mem.embedding())))
+                    .limit(10)
+                    .forEach(mem -> exact.add(mem.id()));
+            for (MemoryHit hit : graph.search(query, 10, 64, null, null)) {
+                if (exact.contains(hit.id())) found++;
+            }
+            expected += 10;
+        }
+        assertThat((double) found / expected).isGreaterThan(0.9);
+    }
+
+    @Test
+    void searchIsPartitionedByAccountAndHonoursExclusion() throws Exception {
+        List<StoredMemory> rows = new ArrayList<>(memories("ACC1", 1, 20, 3));
+        rows.addAll(memories("ACC2", 21, 20, 4));
+        Mockito.when(db.scanAfter(eq(0L), anyInt())).thenReturn(rows);
+        HnswVectorStore s = open();
+
+        StoredMemory target = rows.get(5);
+        List<MemoryHit> hits = s.searchSimilar("ACC1", null, target.embedding(), 5);
+        assertThat(hits).hasSize(5).allMatch(h -> h.accountId().equals("ACC1"));
+        assertThat(hits.get(0).eventId()).isEqualTo(target.eventId());
+        assertThat(hits.get(0).distance()).isCloseTo(0.0, org.assertj.core.data.Offset.offset(1e-6));
+
+        assertThat(s.searchSimilar("ACC1", target.eventId(), target.embedding(), 5))
+                .extracting(MemoryHit::eventId).doesNotContain(target.eventId());
+        assertThat(s.searchSimilar("ACC3", null, target.embedding(), 5)).isEmpty();
+    }
+
+    @Test
+    void restartReplaysSegmentsAndOnlyReadsNewerRows() throws Exception {
+        List<StoredMemory> first = memories("ACC1", 1, 100, 5);
+        Mockito.when(db.scanAfter(eq(0L), anyInt())).thenReturn(first);
+        open().close();
+        store = null;
+
+        List<StoredMemory> newer = memories("ACC1", 101, 3, 6);
+        Mockito.reset(db);
+        Mockito.when(db.scanAfter(anyLong(), anyInt())).thenReturn(List.of());
+        Mockito.when(db.scanAfter(eq(96L), anyInt())).thenReturn(newer);
+        HnswVectorStore s = open();
+
+        assertThat(s.size()).isEqualTo(103);
+        Mockito.verify(db, Mockito.never()).scanAfter(eq(0L), anyInt());
+        assertThat(s.searchSimilar("ACC1", null, first.get(10).embedding(), 1))
+                .extracting(MemoryHit::eventId).containsExactly("E11");
+    }
+
+    @Test
+    void writesGoToPostgresThenCatchUp() throws Exception {
+        Mockito.when(db.scanAfter(anyLong(), anyInt())).thenReturn(List.of());
+        HnswVectorStore s = open();
+        StoredMemory row = memories("ACC1", 7, 1, 7).get(0);
+        Mockito.when(db.scanAfter(eq(0L), anyInt())).thenReturn(List.of(row));
+
+        s.insertMemory("ACC1", row.eventId(), row.content(), row.embedding());
+
+        Mockito.verify(db).insertMemory("ACC1", row.eventId(), row.content(), row.embedding());
+        assertThat(s.searchSimilar("ACC1", null, row.embedding(), 3)).extracting(MemoryHit::id).containsExactly(7L);
+    }
+
+    @Test
+    void failedCatchUpDoesNotFailTheCommittedWrite() throws Exception {
+        Mockito.when(db.scanAfter(anyLong(), anyInt())).thenReturn(List.of());
+        HnswVectorStore s = open();
+        StoredMemory row = memories("ACC1", 7, 1, 7).get(0);
+        Mockito.when(db.scanAfter(eq(0L), anyInt()))
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenReturn(List.of(row));
+
+        s.insertMemories(List.of(new MemoryRecord("ACC1", row.eventId(), row.content(), row.embedding())));
+        assertThat(s.searchSimilar("ACC1", null, row.embedding(), 3)).isEmpty();
+
+        s.catchUp();
+        assertThat(s.searchSimilar("ACC1", null, row.embedding(), 3)).extracting(MemoryHit::id).containsExactly(7L);
+    }
+
+    @Test
+    void startupDeletesSegmentsPastRetention() throws Exception {
+        List<StoredMemory> old = memories("ACC1", 1, 1_200, 8);
+        Mockito.when(db.scanAfter(eq(0L), anyInt())).thenReturn(old);
+        open().close();
+        store = null;
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+
+        Mockito.reset(db);
+        Mockito.when(db.scanAfter(anyLong(), anyInt())).thenReturn(List.of());
+        HnswVectorStore s = open(Duration.ofDays(1));
+
+        assertThat(s.size()).isZero();
+        assertThat(segmentFiles()).hasSize(1);
+        Mockito.verify(db, Mockito.never()).scanAfter(eq(0L), anyInt());
+    }
+
+    @Test
+    void compactionRebuildsGraphsWithoutExpiredMemories() throws Exception {
+        Instant now = Instant.now();
+        List<StoredMemory> rows = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(9);
+        for (long id = 1; id <= 40; id++) {
+            String account = id <= 20 ? "ACC1" : "ACC2";
+            // ACC1 keeps its even ids; ACC2 expires entirely
+            Instant createdAt = id <= 20 && id % 2 == 0 ? now.plus(Duration.ofHours(1)) : now;
+            rows.add(new StoredMemory(id, account, "E" + id, "memory " + id, createdAt, randomVector(random)));
+        }
+        Mockito.when(db.scanAfter(eq(0L), anyInt())).thenReturn(rows);
+        HnswVectorStore s = open(Duration.ofMillis(300));
+        assertThat(s.size()).isEqualTo(40);
+
+        Thread.sleep(400);
+        assertThat(s.compact()).isEqualTo(30);
+
+        assertThat(s.size()).isEqualTo(10);
+        assertThat(s.searchSimilar("ACC1", null, rows.get(3).embedding(), 1))
+                .extracting(MemoryHit::eventId).containsExactly("E4");
+        assertThat(s.searchSimilar("ACC2", null, rows.get(30).embedding(), 5)).isEmpty();
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (var files = java.nio.file.Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".seg")).toList();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class HotMemoryTierTest {
+
+    private static final int DIM = 24;
+
+    @Mock
+    private VectorStore store;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private HotMemoryTier tier(int maxPerAccount, long maxVectors) {
+        return new HotMemoryTier(store, true, maxPerAccount, maxVectors, 1000, Duration.ofMinutes(5), DIM, registry);
+    }
+
+    private double recalls(String tier, String reason) {
+        return registry.counter("agentic.memory.recall", "tier", tier, "reason", reason).count();
+    }
+
+    private static float[] vector(SplittableRandom random) {
+        float[] v = new float[DIM];
+        for (int i = 0; i < DIM; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+
+    /** Newest first, as {@link VectorStore#recentMemories} returns them. */
+    private static List<StoredMemory> history(String account, int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<StoredMemory> rows = new ArrayList<>();
+        for (int i = count; i >= 1; i--) {
+            rows.add(new StoredMemory(i, account, "E" + i, "memory " + i, Instant.ofEpochMilli(i), vector(random)));
+        }
+        return rows;
+    }
+
+    @Test
+    void vectorApiKernelMatchesScalarKernel() {
+        assertThat(VectorMath.SIMD).as("tests run with --add-modules jdk.incubator.vector").isTrue();
+        SplittableRandom random = new SplittableRandom(1);
+        float[] a = new float[1000];
+        float[] b = new float[1000];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (float) random.nextGaussian();
+            b[i] = (float) random.nextGaussian();
+        }
+        for (int length : new int[]{0, 1, 7, 16, 384, 997}) {
+            assertThat(SimdDot.dot(a, 3, b, 0, length))
+                    .isCloseTo(VectorMath.scalarDot(a, 3, b, 0, length), within(1e-3));
+        }
+    }
+
+    @Test
+    void loadsSmallHistoryOnceThenAnswersFromTheSlab() {
+        List<StoredMemory> rows = history("ACC1", 40, 2);
+        Mockito.when(store.recentMemories("ACC1", 65)).thenReturn(rows);
+        HotMemoryTier tier = tier(64, 10_000);
+
+        float[] query = rows.get(7).embedding();
+        List<StoredMemory> expected = rows.stream()
+                .sorted(Comparator.comparingDouble(m -> VectorMath.cosineDistance(query, m.embedding())))
+                .limit(5)
+                .toList();
+
+        for (int i = 0; i < 3; i++) {
+            List<MemoryHit> hits = tier.search("ACC1", null, query, 5, null);
+            assertThat(hits).extracting(MemoryHit::id).containsExactlyElementsOf(
+                    expected.stream().map(StoredMemory::id).toList());
+            assertThat(hits.get(0).distance()).isCloseTo(0.0, within(1e-5));
+            assertThat(hits).allMatch(h -> h.accountId().equals("ACC1"));
+        }
+        assertThat(tier.search("ACC1", rows.get(7).eventId(), query, 5, null))
+                .extracting(MemoryHit::eventId).doesNotContain(rows.get(7).eventId());
+
+        Mockito.verify(store, Mockito.times(1)).recentMemories(anyString(), anyInt());
+        Mockito.verify(store, Mockito.never()).searchSimilar(any(), any(), any(), anyInt(), any());
+        assertThat(recalls("store", "cold")).isEqualTo(1);
+        assertThat(recalls("hot", "resident")).isEqualTo(3);
+        assertThat(tier.vectors()).isEqualTo(40);
+    }
+
+    @Test
+    void batchAnswersResidentAccountsAndSendsTheRestToTheStoreTogether() {
+        List<StoredMemory> rows = history("ACC1", 10, 8);
+        Mockito.when(store.recentMemories("ACC1", 65)).thenReturn(rows);
+        HotMemoryTier tier = tier(64, 10_000);
+        tier.search("ACC1", null, rows.get(0).embedding(), 1, null);
+
+        MemoryHit stored = new MemoryHit(99, "ACC2", "E99", "from the store", Instant.EPOCH, 0.1);
+        Mockito.when(store.searchSimilarBatch(any(), eq(1), any())).thenReturn(List.of(List.of(stored), List.of()));
+        SplittableRandom random = new SplittableRandom(9);
+        List<VectorQuery> queries = List.of(
+                new VectorQuery("ACC2", null, vector(random)),
+                new VectorQuery("ACC1", null, rows.get(3).embedding()),
+                new VectorQuery("ACC3", null, vector(random)));
+
+        List<List<MemoryHit>> results = tier.searchBatch(queries, 1, null);
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0)).containsExactly(stored);
+        assertThat(results.get(1)).extracting(MemoryHit::id).containsExactly(rows.get(3).id());
+        assertThat(results.get(2)).isEmpty();
+        Mockito.verify(store).searchSimilarBatch(List.of(queries.get(0), queries.get(2)), 1, null);
+        Mockito.verify(store, Mockito.times(1)).recentMemories(anyString(), anyInt());
+    }
+
+    @Test
+    void largeHistoriesGoToTheStore() {
+        Mockito.when(store.recentMemories("ACC1", 9)).thenReturn(history("ACC1", 9, 3));
+        Mockito.when(store.searchSimilar(eq("ACC1"), any(), any(), eq(5), any())).thenReturn(List.of());
+        HotMemoryTier tier = tier(8, 10_000);
+
+        tier.search("ACC1", null, vector(new SplittableRandom(4)), 5, null);
+        tier.search("ACC1", null, vector(new SplittableRandom(5)), 5, null);
+
+        Mockito.verify(store, Mockito.times(1)).recentMemories(anyString(), anyInt());
+        Mockito.verify(store, Mockito.times(2)).searchSimilar(eq("ACC1"), any(), any(), eq(5), any());
+        assertThat(recalls("store", "large")).isEqualTo(1);
+        assertThat(tier.vectors()).isZero();
+    }
+
+    @Test
+    void appendsReachResidentAccountsAndOverflowMarksThemLarge() {
+        Mockito.when(store.recentMemories("ACC1", 4)).thenReturn(history("ACC1", 2, 6));
+        HotMemoryTier tier = tier(3, 10_000);
+        SplittableRandom random = new SplittableRandom(7);
+
+        tier.append(new MemoryRecord("ACC2", "X", "not resident", vector(random)));
+        tier.search("ACC1", null, vector(random), 5, null);
+        float[] fresh = vector(random);
+        tier.append(new MemoryRecord("ACC1", "E3", "new memory", fresh));
+
+        assertThat(tier.search("ACC1", null, fresh, 1, null)).singleElement().satisfies(h -> {
+            assertThat(h.id()).isEqualTo(-1);
+            assertThat(h.eventId()).isEqualTo("E3");
+        });
+        assertThat(tier.accounts()).isEqualTo(1);
+
+        tier.append(new MemoryRecord("ACC1", "E4", "one too many", vector(random)));
+        tier.search("ACC1", null, fresh, 1, null);
+        Mockito.verify(store).searchSimilar(eq("ACC1"), any(), any(), eq(1), any());
+        assertThat(tier.vectors()).isZero();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAccountsBeyondTheVectorBudget() {
+        Mockito.when(store.recentMemories(anyString(), anyInt()))
+                .thenAnswer(inv -> history(inv.getArgument(0), 10, 8));
+        HotMemoryTier tier = tier(16, 25);
+        float[] q = vector(new SplittableRandom(9));
+
+        tier.search("ACC1", null, q, 1, null);
+        tier.search("ACC2", null, q, 1, null);
+        tier.search("ACC1", null, q, 1, null);
+        tier.search("ACC3", null, q, 1, null);
+
+        assertThat(tier.accounts()).isEqualTo(2);
+        assertThat(tier.vectors()).isEqualTo(20);
+        tier.search("ACC1", null, q, 1, null);
+        Mockito.verify(store, Mockito.times(1)).recentMemories(eq("ACC1"), anyInt());
+    }
+
+    @Test
+    void reloadsSlabsOlderThanMaxStaleness() throws Exception {
+        List<StoredMemory> before = history("ACC1", 3, 11);
+        List<StoredMemory> after = new ArrayList<>(history("ACC1", 4, 11));
+        Mockito.when(store.recentMemories("ACC1", 9)).thenReturn(before).thenReturn(after);
+        HotMemoryTier tier = new HotMemoryTier(store, true, 8, 1000, 1000, Duration.ofMillis(50), DIM, registry);
+
+        float[] newest = after.get(0).embedding();
+        assertThat(tier.search("ACC1", null, newest, 4, null)).hasSize(3);
+        Thread.sleep(100);
+
+        assertThat(tier.search("ACC1", null, newest, 4, null)).hasSize(4)
+                .first().extracting(MemoryHit::eventId).isEqualTo("E4");
+        Mockito.verify(store, Mockito.times(2)).recentMemories("ACC1", 9);
+        assertThat(tier.vectors()).isEqualTo(4);
+    }
+}
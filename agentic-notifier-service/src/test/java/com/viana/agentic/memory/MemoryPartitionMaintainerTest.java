@@ -0,0 +1,105 @@
+package com.viana.agentic.memory;
+
+import com.viana.agentic.memory.MemoryPartitionMaintainer.Granularity;
+import com.viana.agentic.memory.MemoryPartitionMaintainer.Partition;
+import com.viana.agentic.memory.MemoryPartitionMaintainer.Plan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+
+class MemoryPartitionMaintainerTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-15T10:00:00Z");
+
+    @Test
+    void createsCurrentAndPrecreatedPeriodsOnAnEmptyTable() {
+        Plan plan = MemoryPartitionMaintainer.plan(List.of(), NOW, Granularity.MONTH, 2, Duration.ZERO);
+
+        assertThat(plan.create()).extracting(Partition::name).containsExactly(
+                "account_memory_p20240501_20240601",
+                "account_memory_p20240601_20240701",
+                "account_memory_p20240701_20240801");
+        assertThat(plan.expire()).isEmpty();
+    }
+
+    @Test
+    void continuesFromTheNewestPartitionAndExpiresPastRetention() {
+        List<Partition> existing = List.of(
+                month(2023, 10), month(2023, 11), month(2023, 12),
+                month(2024, 4), month(2024, 5), month(2024, 6));
+
+        Plan plan = MemoryPartitionMaintainer.plan(existing, NOW, Granularity.MONTH, 2, Duration.ofDays(180));
+
+        assertThat(plan.create()).containsExactly(month(2024, 7));
+        // cutoff 2023-11-17: only partitions ending by then are gone
+        assertThat(plan.expire()).containsExactly(month(2023, 10));
+    }
+
+    @Test
+    void weeksStartOnMonday() {
+        Plan plan = MemoryPartitionMaintainer.plan(List.of(), NOW, Granularity.WEEK, 0, Duration.ZERO);
+
+        assertThat(plan.create()).containsExactly(
+                new Partition(LocalDate.of(2024, 5, 13), LocalDate.of(2024, 5, 20)));
+    }
+
+    @Test
+    void partitionNamesRoundTrip() {
+        Partition p = month(2024, 2);
+
+        assertThat(Partition.parse(p.name())).isEqualTo(p);
+        assertThat(Partition.parse("account_memory_default")).isNull();
+    }
+
+    @Test
+    void aFailedCreateIsCountedAndDoesNotUndoRetention() {
+        JdbcTemplate jdbc = Mockito.mock(JdbcTemplate.class);
+        TransactionTemplate tx = Mockito.mock(TransactionTemplate.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Partition expired = month(2000, 1);
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Partition current = new Partition(today.withDayOfMonth(1), today.withDayOfMonth(1).plusMonths(1));
+        List<String> tables = List.of(expired.name(), current.name(), "account_memory_default");
+
+        Mockito.when(tx.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        Mockito.when(jdbc.queryForList(startsWith("SELECT relkind"), eq(String.class))).thenReturn(List.of("p"));
+        Mockito.when(jdbc.queryForList(contains("pg_inherits"), eq(String.class))).thenReturn(tables);
+        Mockito.when(jdbc.queryForObject(startsWith("SELECT pg_try_advisory_xact_lock"), eq(Boolean.class), any()))
+                .thenReturn(true);
+        Mockito.when(jdbc.queryForObject(startsWith("SELECT to_regclass"), eq(Boolean.class), any()))
+                .thenAnswer(inv -> tables.contains(inv.<String>getArgument(2)));
+        Mockito.when(jdbc.queryForObject(startsWith("SELECT EXISTS"), eq(Boolean.class))).thenReturn(false);
+        Mockito.doThrow(new DataIntegrityViolationException("partition would overlap"))
+                .when(jdbc).execute(startsWith("CREATE TABLE"));
+
+        MemoryPartitionMaintainer maintainer = new MemoryPartitionMaintainer(jdbc, tx, Mockito.mock(HotMemoryTier.class),
+                true, "month", 2, Duration.ZERO, Duration.ofDays(30), "drop", registry);
+        maintainer.maintain();
+
+        Mockito.verify(jdbc).execute("DROP TABLE " + expired.name());
+        Mockito.verify(tx, Mockito.times(3)).execute(any());
+        assertThat(registry.counter("agentic.memory.partitions.failures", "step", "create").count()).isEqualTo(2.0);
+        assertThat(registry.counter("agentic.memory.partitions.expired", "mode", "drop").count()).isEqualTo(1.0);
+    }
+
+    private static Partition month(int year, int month) {
+        LocalDate from = LocalDate.of(year, month, 1);
+        return new Partition(from, from.plusMonths(1));
+    }
+}
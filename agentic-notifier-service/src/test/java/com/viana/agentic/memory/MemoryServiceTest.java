@@ -0,0 +1,114 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class MemoryServiceTest {
+
+    private static final Duration BUDGET = Duration.ofMillis(100);
+
+    @Mock
+    private EmbeddingsClient embeddings;
+
+    @Mock
+    private VectorStore store;
+
+    @Mock
+    private HotMemoryTier hot;
+
+    @Mock
+    private MemoryWriteBehind writeBehind;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private MemoryService service;
+
+    private MemoryService service(int maxSearchesInFlight) {
+        service = new MemoryService(true, 5, embeddings, store, hot, writeBehind, Duration.ZERO,
+                maxSearchesInFlight, registry);
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (service != null) service.close();
+    }
+
+    private double exceeded(String stage) {
+        return registry.counter("agentic.memory.recall.budget.exceeded", "stage", stage).count();
+    }
+
+    private static MemoryHit hit(long id, String eventId, double distance) {
+        return new MemoryHit(id, "ACC1", eventId, "memory " + eventId, Instant.EPOCH, distance);
+    }
+
+    @Test
+    void budgetedRecallMergesStoredAndPendingMemories() {
+        float[] q = {1, 0};
+        Mockito.when(embeddings.embedHedged("query")).thenReturn(CompletableFuture.completedFuture(q));
+        Mockito.when(writeBehind.isEnabled()).thenReturn(true);
+        Mockito.when(writeBehind.pending("ACC1", null, q, false)).thenReturn(List.of(hit(-1, "E2", 0.05)));
+        Mockito.when(hot.search("ACC1", null, q, 5, null)).thenReturn(List.of(hit(1, "E1", 0.1)));
+
+        List<MemoryHit> hits = service(4).recallSimilar("ACC1", null, "query", null, BUDGET);
+
+        assertThat(hits).extracting(MemoryHit::eventId).containsExactly("E2", "E1");
+        assertThat(exceeded("embed") + exceeded("search") + exceeded("saturated")).isZero();
+    }
+
+    @Test
+    void slowEmbeddingYieldsNoMemoriesWithinTheBudget() {
+        Mockito.when(embeddings.embedHedged("query")).thenReturn(new CompletableFuture<>());
+
+        long start = System.nanoTime();
+        List<MemoryHit> hits = service(4).recallSimilar("ACC1", null, "query", null, BUDGET);
+
+        assertThat(hits).isEmpty();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(BUDGET.multipliedBy(3));
+        assertThat(exceeded("embed")).isEqualTo(1);
+        Mockito.verifyNoInteractions(hot);
+    }
+
+    @Test
+    void slowSearchReturnsPendingMemoriesAndFurtherRecallsSkipTheStore() {
+        float[] q = {1, 0};
+        Mockito.when(embeddings.embedHedged("query")).thenReturn(CompletableFuture.completedFuture(q));
+        Mockito.when(writeBehind.isEnabled()).thenReturn(true);
+        Mockito.when(writeBehind.pending("ACC1", null, q, false)).thenReturn(List.of(hit(-1, "E2", 0.05)));
+        Mockito.when(hot.search(eq("ACC1"), any(), any(), anyInt(), any())).thenAnswer(inv -> {
+            release.await();
+            return List.of(hit(1, "E1", 0.1));
+        });
+        MemoryService service = service(1);
+
+        long start = System.nanoTime();
+        assertThat(service.recallSimilar("ACC1", null, "query", null, BUDGET))
+                .extracting(MemoryHit::eventId).containsExactly("E2");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(BUDGET.multipliedBy(3));
+        assertThat(exceeded("search")).isEqualTo(1);
+
+        // the first search still holds the only permit
+        assertThat(service.recallSimilar("ACC1", null, "query", null, BUDGET))
+                .extracting(MemoryHit::eventId).containsExactly("E2");
+        assertThat(exceeded("saturated")).isEqualTo(1);
+        Mockito.verify(hot, Mockito.times(1)).search(any(), any(), any(), anyInt(), any());
+    }
+}
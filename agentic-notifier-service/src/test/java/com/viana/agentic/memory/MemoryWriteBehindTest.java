@@ -0,0 +1,139 @@
+package com.viana.agentic.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(MockitoExtension.class)
+class MemoryWriteBehindTest {
+
+    @Mock
+    private EmbeddingsClient embeddings;
+
+    @Mock
+    private VectorStore store;
+
+    @Mock
+    private HotMemoryTier hot;
+
+    @Captor
+    private ArgumentCaptor<List<MemoryRecord>> batch;
+
+    private MemoryWriteBehind writeBehind;
+
+    private MemoryWriteBehind writeBehind(int batchSize, Duration flushInterval) {
+        writeBehind = new MemoryWriteBehind(embeddings, store, hot, true, 100, batchSize, flushInterval,
+                2, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        return writeBehind;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writeBehind != null) writeBehind.close();
+    }
+
+    private static List<float[]> vectors(List<String> texts) {
+        List<float[]> out = new ArrayList<>();
+        for (String t : texts) out.add(new float[]{t.length(), 1});
+        return out;
+    }
+
+    private static void awaitNoPending(MemoryWriteBehind wb, String accountId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!wb.pending(accountId, null, new float[]{1, 0}).isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(wb.pending(accountId, null, new float[]{1, 0})).isEmpty();
+    }
+
+    @Test
+    void embedsAndInsertsQueuedMemoriesInOneBatch() throws Exception {
+        Mockito.when(embeddings.embedBatch(anyList())).thenAnswer(inv -> vectors(inv.getArgument(0)));
+        MemoryWriteBehind wb = writeBehind(3, Duration.ofSeconds(5));
+
+        wb.submit("ACC1", "E1", "a");
+        wb.submit("ACC1", "E2", "bb");
+        wb.submit("ACC2", "E3", "ccc");
+        wb.close();
+
+        Mockito.verify(store).insertMemories(batch.capture());
+        assertThat(batch.getValue()).extracting(MemoryRecord::eventId).containsExactly("E1", "E2", "E3");
+        assertThat(batch.getValue().get(2).embedding()).containsExactly(3f, 1f);
+        Mockito.verify(embeddings, Mockito.times(1)).embedBatch(anyList());
+        Mockito.verify(hot, Mockito.times(3)).append(any());
+    }
+
+    @Test
+    void pendingMemoriesAreVisibleUntilCommitted() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(embeddings.embedBatch(anyList())).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return vectors(inv.getArgument(0));
+        });
+        Mockito.when(embeddings.embed(anyString())).thenReturn(new float[]{1, 0});
+        MemoryWriteBehind wb = writeBehind(1, Duration.ofMillis(1));
+
+        wb.submit("ACC1", "E1", "card declined twice");
+
+        List<MemoryHit> pending = wb.pending("ACC1", null, new float[]{1, 0});
+        assertThat(pending).singleElement().satisfies(h -> {
+            assertThat(h.id()).isEqualTo(-1);
+            assertThat(h.eventId()).isEqualTo("E1");
+            assertThat(h.distance()).isEqualTo(0.0);
+        });
+        assertThat(wb.pending("ACC1", "E1", new float[]{1, 0})).isEmpty();
+        assertThat(wb.pending("ACC2", null, new float[]{1, 0})).isEmpty();
+        // a budgeted read does not embed, and the text is not cached
+        assertThat(wb.pending("ACC1", null, new float[]{1, 0}, false)).isEmpty();
+        Mockito.verify(embeddings).embedIfCached("card declined twice");
+
+        release.countDown();
+        Mockito.verify(store, Mockito.timeout(5_000)).insertMemories(any());
+        awaitNoPending(wb, "ACC1");
+    }
+
+    @Test
+    void retriesFailedBatchThenDropsIt() throws Exception {
+        Mockito.when(embeddings.embedBatch(anyList())).thenAnswer(inv -> vectors(inv.getArgument(0)));
+        Mockito.doThrow(new IllegalStateException("db down")).when(store).insertMemories(any());
+        MemoryWriteBehind wb = writeBehind(1, Duration.ofMillis(1));
+
+        wb.submit("ACC1", "E1", "a");
+
+        Mockito.verify(store, Mockito.timeout(5_000).times(2)).insertMemories(any());
+        awaitNoPending(wb, "ACC1");
+        Mockito.verify(store, Mockito.times(2)).insertMemories(any());
+    }
+
+    @Test
+    void mergeDropsCommittedDuplicatesAndKeepsTopK() {
+        Instant t = Instant.EPOCH;
+        List<MemoryHit> stored = List.of(
+                new MemoryHit(1, "ACC1", "E1", "a", t, 0.2),
+                new MemoryHit(2, "ACC1", "E2", "b", t, 0.4));
+        List<MemoryHit> pending = List.of(
+                new MemoryHit(-1, "ACC1", "E1", "a", t, 0.2),
+                new MemoryHit(-1, "ACC1", "E3", "c", t, 0.1));
+
+        assertThat(MemoryWriteBehind.merge(stored, pending, 2))
+                .extracting(MemoryHit::eventId).containsExactly("E3", "E1");
+    }
+}
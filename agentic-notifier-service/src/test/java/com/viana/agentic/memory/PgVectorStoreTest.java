@@ -0,0 +1,200 @@
+package com.viana.agentic.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class PgVectorStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PreparedStatement ps;
+
+    @Mock
+    private Connection connection;
+
+    private PgVectorStore vectorStore;
+
+    @Captor
+    private ArgumentCaptor<String> sqlCaptor;
+
+    @Captor
+    private ArgumentCaptor<PreparedStatementSetter> setterCaptor;
+
+    @BeforeEach
+    void setUp() {
+        vectorStore = new PgVectorStore(jdbcTemplate);
+    }
+
+    @Test
+    void insertMemory_shouldBindVectorAsPgVector() throws Exception {
+        Mockito.when(ps.getConnection()).thenReturn(connection);
+
+        vectorStore.insertMemory("ACC1", "EVT1", "hello world", new float[]{0.1f, 0.2f});
+
+        Mockito.verify(jdbcTemplate).update(sqlCaptor.capture(), setterCaptor.capture());
+        assertThat(sqlCaptor.getValue()).contains("INSERT INTO account_memory");
+
+        setterCaptor.getValue().setValues(ps);
+        Mockito.verify(ps).setString(1, "ACC1");
+        Mockito.verify(ps).setString(2, "EVT1");
+        Mockito.verify(ps).setString(3, "hello world");
+        ArgumentCaptor<Object> vector = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(ps).setObject(eq(4), vector.capture());
+        assertThat(vector.getValue()).isInstanceOf(PgVector.class);
+        assertThat(((PgVector) vector.getValue()).values()).containsExactly(0.1f, 0.2f);
+        assertThat(((PgVector) vector.getValue()).getValue()).isEqualTo("[0.1,0.2]");
+    }
+
+    @Test
+    void searchSimilar_shouldQueryWithVectorAndArguments() throws Exception {
+        String expectedSql = """
+            SELECT id, account_id, event_id, content, created_at,
+                   (embedding <=> ?) AS distance
+            FROM account_memory
+            WHERE account_id = ?
+              AND (?::text IS NULL OR event_id IS DISTINCT FROM ?::text)
+            ORDER BY embedding <=> ?
+            LIMIT ?
+        """;
+        var expectedHit = new MemoryHit(1L, "ACC1", "EVT2", "content", Instant.parse("2024-01-01T00:00:00Z"), 0.12);
+        Mockito.when(jdbcTemplate.query(eq(expectedSql), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenReturn(List.of(expectedHit));
+        Mockito.when(ps.getConnection()).thenReturn(connection);
+
+        var results = vectorStore.searchSimilar("ACC1", "EVT1", new float[]{0.5f, 0.75f}, 3);
+
+        assertThat(results).containsExactly(expectedHit);
+        Mockito.verify(jdbcTemplate).query(eq(expectedSql), setterCaptor.capture(), any(RowMapper.class));
+        setterCaptor.getValue().setValues(ps);
+        Mockito.verify(ps).setObject(eq(1), any(PgVector.class));
+        Mockito.verify(ps).setString(2, "ACC1");
+        Mockito.verify(ps).setString(3, "EVT1");
+        Mockito.verify(ps).setString(4, "EVT1");
+        Mockito.verify(ps).setObject(eq(5), any(PgVector.class));
+        Mockito.verify(ps).setInt(6, 3);
+    }
+
+    @Test
+    void searchSimilar_quantizedScanFetchesRerankCandidates() throws Exception {
+        PgVectorStore halfvec = new PgVectorStore(jdbcTemplate, "halfvec", 4, 384);
+        Mockito.when(ps.getConnection()).thenReturn(connection);
+
+        halfvec.searchSimilar("ACC1", null, new float[]{0.5f, 0.75f}, 5);
+
+        Mockito.verify(jdbcTemplate).query(sqlCaptor.capture(), setterCaptor.capture(), any(RowMapper.class));
+        assertThat(sqlCaptor.getValue())
+                .contains("ORDER BY embedding::halfvec(384) <=> ?::halfvec(384)")
+                .contains("(embedding <=> ?) AS distance")
+                .contains("ORDER BY distance");
+        setterCaptor.getValue().setValues(ps);
+        Mockito.verify(ps).setObject(eq(1), any(PgVector.class));
+        Mockito.verify(ps).setString(2, "ACC1");
+        Mockito.verify(ps).setObject(eq(5), any(PgVector.class));
+        Mockito.verify(ps).setInt(6, 20);
+        Mockito.verify(ps).setInt(7, 5);
+    }
+
+    @Test
+    void searchSimilar_sinceBoundsCreatedAtForPartitionPruning() throws Exception {
+        Mockito.when(ps.getConnection()).thenReturn(connection);
+        Instant since = Instant.parse("2024-05-01T00:00:00Z");
+
+        vectorStore.searchSimilar("ACC1", null, new float[]{0.5f, 0.75f}, 3, since);
+
+        Mockito.verify(jdbcTemplate).query(sqlCaptor.capture(), setterCaptor.capture(), any(RowMapper.class));
+        assertThat(sqlCaptor.getValue()).contains("AND created_at >= ?");
+        setterCaptor.getValue().setValues(ps);
+        Mockito.verify(ps).setString(2, "ACC1");
+        Mockito.verify(ps).setObject(5, since.atOffset(ZoneOffset.UTC));
+        Mockito.verify(ps).setObject(eq(6), any(PgVector.class));
+        Mockito.verify(ps).setInt(7, 3);
+    }
+
+    @Test
+    void searchSimilarBatch_runsAllQueriesInOneLateralStatement() throws Exception {
+        Mockito.when(ps.getConnection()).thenReturn(connection);
+        List<VectorQuery> queries = List.of(
+                new VectorQuery("ACC1", "EVT1", new float[]{0.5f, 0.75f}),
+                new VectorQuery("ACC2", null, new float[]{0.1f, 0.2f}));
+        ArgumentCaptor<RowCallbackHandler> rows = ArgumentCaptor.forClass(RowCallbackHandler.class);
+
+        List<List<MemoryHit>> results = vectorStore.searchSimilarBatch(queries, 3, null);
+
+        Mockito.verify(jdbcTemplate).query(sqlCaptor.capture(), setterCaptor.capture(), rows.capture());
+        assertThat(sqlCaptor.getValue())
+                .contains("FROM (VALUES (0, ?::text, ?::text, ?::vector), (1, ?::text, ?::text, ?::vector))")
+                .contains("CROSS JOIN LATERAL")
+                .contains("ORDER BY embedding <=> q_embedding")
+                .doesNotContain("created_at >= ?");
+        setterCaptor.getValue().setValues(ps);
+        Mockito.verify(ps).setString(1, "ACC1");
+        Mockito.verify(ps).setString(2, "EVT1");
+        Mockito.verify(ps).setObject(eq(3), any(PgVector.class));
+        Mockito.verify(ps).setString(4, "ACC2");
+        Mockito.verify(ps).setObject(eq(6), any(PgVector.class));
+        Mockito.verify(ps).setInt(7, 3);
+
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(rs.getInt("ord")).thenReturn(1);
+        Mockito.when(rs.getLong("id")).thenReturn(42L);
+        Mockito.when(rs.getString("account_id")).thenReturn("ACC2");
+        Mockito.when(rs.getObject("created_at", OffsetDateTime.class)).thenReturn(OffsetDateTime.now(ZoneOffset.UTC));
+        rows.getValue().processRow(rs);
+        assertThat(results.get(0)).isEmpty();
+        assertThat(results.get(1)).extracting(MemoryHit::id).containsExactly(42L);
+    }
+
+    @Test
+    void batchSql_reranksQuantizedCandidatesPerQuery() {
+        assertThat(PgVectorStore.batchSearchSql(PgVectorStore.Quantization.HALFVEC, 384, 1, true))
+                .contains("ORDER BY embedding::halfvec(384) <=> q_embedding::halfvec(384)")
+                .contains("AND created_at >= ?")
+                .contains("ORDER BY distance");
+    }
+
+    @Test
+    void quantizedSql_matchesIndexExpressions() {
+        assertThat(PgVectorStore.quantizedSearchSql(PgVectorStore.Quantization.BIT, 384, false))
+                .contains("ORDER BY binary_quantize(embedding)::bit(384) <~> binary_quantize(?::vector)::bit(384)");
+        assertThat(PgVectorStore.quantizedSearchSql(PgVectorStore.Quantization.NONE, 384, false)).isNull();
+    }
+
+    @Test
+    void pgVector_binaryFormatRoundTrips() {
+        PgVector v = new PgVector(new float[]{1.5f, -2f, 0.25f});
+        byte[] bytes = new byte[v.lengthInBytes()];
+        v.toBytes(bytes, 0);
+
+        assertThat(bytes).hasSize(4 + 3 * 4);
+        assertThat(bytes[1]).isEqualTo((byte) 3);        // int16 dim, big endian
+        assertThat(bytes[4]).isEqualTo((byte) 0x3f);     // 1.5f = 0x3fc00000
+
+        PgVector back = new PgVector();
+        back.setByteValue(bytes, 0);
+        assertThat(back.values()).containsExactly(1.5f, -2f, 0.25f);
+    }
+}
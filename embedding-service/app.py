@@ -1,10 +1,13 @@
-from fastapi import FastAPI
+import numpy as np
+from fastapi import FastAPI, Request, Response
 from pydantic import BaseModel
 from sentence_transformers import SentenceTransformer
 
 app = FastAPI(title="Embeddings Service")
 model = SentenceTransformer("sentence-transformers/all-MiniLM-L6-v2")
 
+FLOAT32 = "application/octet-stream"
+
 class EmbedRequest(BaseModel):
     texts: list[str]
 
@@ -12,6 +15,15 @@ class EmbedResponse(BaseModel):
     vectors: list[list[float]]
 
 @app.post("/embed", response_model=EmbedResponse)
-def embed(req: EmbedRequest):
-    vectors = model.encode(req.texts, normalize_embeddings=True).tolist()
-    return {"vectors": vectors}
+def embed(req: EmbedRequest, request: Request):
+    vectors = model.encode(req.texts, normalize_embeddings=True, convert_to_numpy=True)
+
+    # Binary mode: row-major little-endian float32, len(texts) x dim, no JSON round trip
+    if FLOAT32 in request.headers.get("accept", ""):
+        payload = np.ascontiguousarray(vectors, dtype="<f4").tobytes()
+        return Response(content=payload, media_type=FLOAT32, headers={
+            "X-Embedding-Count": str(vectors.shape[0]),
+            "X-Embedding-Dim": str(vectors.shape[1]),
+        })
+
+    return {"vectors": vectors.tolist()}
@@ -0,0 +1,17 @@
+\c agentic;
+
+-- Quantized ANN indexes for agentic.memory.quantization=halfvec|bit.
+-- Both are expression indexes over the existing full-precision column, so existing rows need no
+-- backfill and the exact re-rank still reads account_memory.embedding. On a running database
+-- apply this file with psql (CONCURRENTLY keeps writes flowing), switch the service over, and
+-- once recall is verified drop the full-precision index:
+--   DROP INDEX CONCURRENTLY IF EXISTS idx_account_memory_embedding;
+-- The casts must match PgVectorStore's query expressions, dimension included.
+
+-- halfvec: 2 bytes per dimension, half the index size of vector(384)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_account_memory_embedding_half
+  ON account_memory USING hnsw ((embedding::halfvec(384)) halfvec_cosine_ops);
+
+-- bit: 1 bit per dimension (sign), 1/32 of the index size; needs a larger rerank-factor
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_account_memory_embedding_bit
+  ON account_memory USING hnsw ((binary_quantize(embedding)::bit(384)) bit_hamming_ops);
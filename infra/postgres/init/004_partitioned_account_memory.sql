@@ -0,0 +1,70 @@
+\c agentic;
+
+-- Range-partitions account_memory by created_at (monthly, UTC), so old history can be dropped a
+-- partition at a time and a recall with a recency window only scans the partitions it needs.
+-- Indexes are declared on the parent and created on every partition, including the ones the
+-- notifier's MemoryPartitionMaintainer adds ahead of time. The ANN index is HNSW, because an
+-- ivfflat index built on a new, empty partition would have no useful lists.
+--
+-- Safe on a fresh database and on one with data: an unpartitioned account_memory is renamed,
+-- its rows are copied into monthly partitions, and then it is dropped. Partition names must stay
+-- account_memory_p<from yyyymmdd>_<to yyyymmdd>; retention reads the bounds from the name.
+
+DO $$
+DECLARE
+  first_month date;
+  last_month  date;
+  m           date;
+BEGIN
+  IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('account_memory')) = 'p' THEN
+    RETURN;
+  END IF;
+
+  ALTER TABLE account_memory RENAME TO account_memory_unpartitioned;
+  ALTER INDEX account_memory_pkey RENAME TO account_memory_unpartitioned_pkey;
+  ALTER SEQUENCE account_memory_id_seq OWNED BY NONE;
+
+  CREATE TABLE account_memory (
+    id BIGINT NOT NULL DEFAULT nextval('account_memory_id_seq'),
+    account_id TEXT NOT NULL,
+    event_id TEXT,
+    content TEXT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    embedding vector(384) NOT NULL,
+    PRIMARY KEY (id, created_at)
+  ) PARTITION BY RANGE (created_at);
+  ALTER SEQUENCE account_memory_id_seq OWNED BY account_memory.id;
+
+  SELECT date_trunc('month', coalesce(min(created_at), now()) AT TIME ZONE 'UTC')::date,
+         date_trunc('month', greatest(coalesce(max(created_at), now()), now()) AT TIME ZONE 'UTC')::date
+    INTO first_month, last_month
+    FROM account_memory_unpartitioned;
+
+  m := first_month;
+  WHILE m <= last_month + interval '1 month' LOOP
+    EXECUTE format(
+      'CREATE TABLE %I PARTITION OF account_memory FOR VALUES FROM (%L) TO (%L)',
+      'account_memory_p' || to_char(m, 'YYYYMMDD') || '_' || to_char(m + interval '1 month', 'YYYYMMDD'),
+      m::text || ' 00:00:00+00',
+      (m + interval '1 month')::date::text || ' 00:00:00+00');
+    m := m + interval '1 month';
+  END LOOP;
+  CREATE TABLE account_memory_default PARTITION OF account_memory DEFAULT;
+
+  INSERT INTO account_memory (id, account_id, event_id, content, created_at, embedding)
+  SELECT id, account_id, event_id, content, created_at, embedding FROM account_memory_unpartitioned;
+
+  DROP TABLE account_memory_unpartitioned;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_account_memory_account_created
+  ON account_memory (account_id, created_at DESC);
+
+CREATE INDEX IF NOT EXISTS idx_account_memory_embedding
+  ON account_memory USING hnsw (embedding vector_cosine_ops);
+
+CREATE INDEX IF NOT EXISTS idx_account_memory_embedding_half
+  ON account_memory USING hnsw ((embedding::halfvec(384)) halfvec_cosine_ops);
+
+CREATE INDEX IF NOT EXISTS idx_account_memory_embedding_bit
+  ON account_memory USING hnsw ((binary_quantize(embedding)::bit(384)) bit_hamming_ops);
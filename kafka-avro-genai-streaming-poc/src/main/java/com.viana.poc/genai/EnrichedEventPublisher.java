@@ -5,8 +5,11 @@ import com.viana.common.events.EnrichedAccountEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 @Component
 public class EnrichedEventPublisher {
     private static final Logger log = LoggerFactory.getLogger(EnrichedEventPublisher.class);
@@ -21,9 +24,14 @@ public class EnrichedEventPublisher {
         this.objectMapper = objectMapper;
     }
 
-    public void publish(EnrichedAccountEvent event) {
-        kafkaTemplate.send(TOPIC, event.accountId(), event);
-        log.info("Published enriched event to topic {} for account {}", TOPIC, event.accountId());
+    /** Completes once the broker has acknowledged the record. */
+    public CompletableFuture<SendResult<String, EnrichedAccountEvent>> publish(EnrichedAccountEvent event) {
+        return kafkaTemplate.send(TOPIC, event.accountId(), event)
+                .whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        log.info("Published enriched event to topic {} for account {}", TOPIC, event.accountId());
+                    }
+                });
     }
 
 }
@@ -0,0 +1,43 @@
+package com.viana.poc.genai;
+
+/**
+ * The summarize-event prompt, split into the task and the event's fields so a batch of events can
+ * state the task once.
+ */
+final class EventPrompt {
+
+    static final String TASK = """
+            You are an AI assistant analyzing banking account events.
+
+            Your task:
+            1. Summarize the event in 1–2 sentences.
+            2. Identify whether it is a CREDIT or DEBIT transaction.
+            3. Mention any anomaly or unusual behavior if applicable.
+            4. Classify it as NORMAL, ANOMALOUS, REWARD_ELIGIBLE or NEGATIVE_BALANCE,
+               with a riskScore from 0 (no risk) to 100.
+            """;
+
+    private EventPrompt() {
+    }
+
+    /** The event's fields, amounts as {@code %.2f} (which {@link GenAiResultCache} relies on). */
+    static String fields(GenAiRequest request) {
+        return """
+                - accountId: %s
+                - eventType: %s
+                - amount: %.2f
+                - newBalance: %.2f
+                """
+                .formatted(
+                        request.getAccountId(),
+                        request.getEventType(),
+                        request.getAmount(),
+                        request.getNewBalance()
+                );
+    }
+
+    /** The whole prompt for one event. */
+    static String render(GenAiRequest request) {
+        return TASK + "\nEvent:\n" + fields(request);
+    }
+}
@@ -2,8 +2,12 @@ package com.viana.poc.genai;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
 
 @Component
 public class GenAiClient {
@@ -11,55 +15,57 @@ public class GenAiClient {
     private static final Logger log = LoggerFactory.getLogger(GenAiClient.class);
 
     private final WebClient genAiWebClient;
+    private final Duration timeout;
+    private final GenAiResultCache cache;
 
-    public GenAiClient(WebClient genAiWebClient) {
+    public GenAiClient(WebClient genAiWebClient,
+                       @Value("${genai.timeout:PT30S}") Duration timeout,
+                       GenAiResultCache cache) {
         this.genAiWebClient = genAiWebClient;
+        this.timeout = timeout;
+        this.cache = cache;
     }
 
-    public GenAiResponse summarizeEvent(GenAiRequest request) {
-
-        String prompt = """
-                You are an AI assistant analyzing banking account events.
-
-                Your task:
-                1. Summarize the event in 1–2 sentences.
-                2. Identify whether it is a CREDIT or DEBIT transaction.
-                3. Mention any anomaly or unusual behavior if applicable.
-
-                Event:
-                - accountId: %s
-                - eventType: %s
-                - amount: %.2f
-                - newBalance: %.2f
-
-                Respond with a concise summary in natural language.
-                """
-                .formatted(
-                        request.getAccountId(),
-                        request.getEventType(),
-                        request.getAmount(),
-                        request.getNewBalance()
-                );
-
-        try {
-            PromptPayload payload = new PromptPayload(prompt);
-
-            GenAiResponse response = genAiWebClient.post()
-                    .uri("/summarize-event")
-                    .bodyValue(payload)
-                    .retrieve()
-                    .bodyToMono(GenAiResponse.class)
-                    .block(); // TODO: make this reactive later
-
-            if (response == null || response.getSummary() == null) {
-                return new GenAiResponse("No summary generated.", response.getClassification(), response.getRiskScore());
-            }
-            return response;
+    /**
+     * Non-blocking: the returned {@link Mono} never errors. If the service fails or does not answer
+     * within {@code genai.timeout}, it emits a fallback response instead. Events similar to an
+     * earlier one are answered from the {@link GenAiResultCache} without calling the service.
+     */
+    public Mono<GenAiResponse> summarizeEvent(GenAiRequest request) {
 
-        } catch (Exception e) {
-            log.error("Error calling GenAI service", e);
-            return new GenAiResponse("GenAI service unavailable; skipping summary.", null, 0);
+        GenAiResponse cached = cache.lookup(request);
+        if (cached != null) {
+            return Mono.just(cached);
         }
+        return summarizeEventFromModel(request);
+    }
+
+    /**
+     * Like {@link #summarizeEvent} but always asks the service, for callers that compare against
+     * the model itself. The answer is still stored in the cache.
+     */
+    public Mono<GenAiResponse> summarizeEventFromModel(GenAiRequest request) {
+        // the event's fields let the service batch it with others under one statement of the task
+        return genAiWebClient.post()
+                .uri("/summarize-event")
+                .bodyValue(new PromptPayload(EventPrompt.render(request), request))
+                .retrieve()
+                .bodyToMono(GenAiResponse.class)
+                .timeout(timeout)
+                .doOnNext(response -> {
+                    // an answer without a classification would key the account's later events wrongly
+                    if (response.getSummary() != null && response.getClassification() != null) {
+                        cache.put(request, response);
+                    }
+                })
+                .map(response -> response.getSummary() != null
+                        ? response
+                        : new GenAiResponse("No summary generated.", response.getClassification(), response.getRiskScore()))
+                .defaultIfEmpty(new GenAiResponse("No summary generated.", null, 0))
+                .onErrorResume(e -> {
+                    log.error("Error calling GenAI service for account {}", request.getAccountId(), e);
+                    return Mono.just(new GenAiResponse("GenAI service unavailable; skipping summary.", null, 0));
+                });
     }
 
     /**
@@ -67,9 +73,11 @@ public class GenAiClient {
      */
     private static class PromptPayload {
         private String prompt;
+        private GenAiRequest event;
 
-        public PromptPayload(String prompt) {
+        public PromptPayload(String prompt, GenAiRequest event) {
             this.prompt = prompt;
+            this.event = event;
         }
 
         public String getPrompt() {
@@ -79,5 +87,13 @@ public class GenAiClient {
         public void setPrompt(String prompt) {
             this.prompt = prompt;
         }
+
+        public GenAiRequest getEvent() {
+            return event;
+        }
+
+        public void setEvent(GenAiRequest event) {
+            this.event = event;
+        }
     }
 }
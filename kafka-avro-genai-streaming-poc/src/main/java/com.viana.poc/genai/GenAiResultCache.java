@@ -0,0 +1,186 @@
+package com.viana.poc.genai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reuses GenAI summaries across events that look alike. Events are keyed by a {@link Signature}:
+ * event type, amount bucket, balance sign and the classification last seen for the account.
+ * With {@code similarity=exact} the bucket is the amount in cents. With {@code bucketed} the
+ * bucket is a log scale of {@code amount-buckets-per-decade} steps, so 42.10 and 44.90 share an
+ * entry. Events above {@code max-amount} always go to the model.
+ * <p>
+ * Summaries are stored with the account id, amount and new balance replaced by placeholders.
+ * On a hit they are filled in with the new event's values. A summary where one of those values
+ * contains another is not cached, since it cannot be filled in unambiguously. Neither is one that
+ * still mentions the amount or balance after substitution, in a form other than the prompt's
+ * ("1,250.00", "$1250", "1.3k", rounded): it would carry this event's numbers into the next one.
+ * Entries live in an LRU bounded by {@code max-entries} and expire after {@code ttl}.
+ */
+@Component
+public class GenAiResultCache {
+
+    private static final String ACCOUNT = "{accountId}";
+    private static final String AMOUNT = "{amount}";
+    private static final String BALANCE = "{newBalance}";
+    private static final Pattern NUMBER = Pattern.compile("(\\d[\\d,]*(?:\\.\\d+)?)([kKmM]\\b)?");
+
+    enum Similarity { EXACT, BUCKETED }
+
+    record Signature(String eventType, long amountBucket, int balanceSign, String recentClassification) {}
+
+    private record Entry(String summaryTemplate, String classification, int riskScore, long writtenAt) {}
+
+    private final boolean enabled;
+    private final Similarity similarity;
+    private final int bucketsPerDecade;
+    private final double maxAmount;
+    private final boolean matchRecentClassification;
+    private final long ttlMillis;
+    private final Map<Signature, Entry> entries;
+    private final Map<String, String> recentClassifications;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypassed;
+
+    public GenAiResultCache(@Value("${genai.cache.enabled:true}") boolean enabled,
+                            @Value("${genai.cache.similarity:bucketed}") String similarity,
+                            @Value("${genai.cache.amount-buckets-per-decade:4}") int bucketsPerDecade,
+                            @Value("${genai.cache.max-amount:10000}") double maxAmount,
+                            @Value("${genai.cache.match-recent-classification:true}") boolean matchRecentClassification,
+                            @Value("${genai.cache.max-entries:10000}") int maxEntries,
+                            @Value("${genai.cache.ttl:PT10M}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.similarity = Similarity.valueOf(similarity.trim().toUpperCase(Locale.ROOT));
+        this.bucketsPerDecade = bucketsPerDecade;
+        this.maxAmount = maxAmount;
+        this.matchRecentClassification = matchRecentClassification;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Signature, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.recentClassifications = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        this.hits = meterRegistry.counter("genai.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("genai.cache.requests", "result", "miss");
+        this.bypassed = meterRegistry.counter("genai.cache.requests", "result", "bypassed");
+        Gauge.builder("genai.cache.size", this, GenAiResultCache::size).register(meterRegistry);
+    }
+
+    /** A response for {@code request} built from an earlier, similar event, or null. */
+    public GenAiResponse lookup(GenAiRequest request) {
+        if (!enabled) return null;
+        if (Math.abs(request.getAmount()) > maxAmount) {
+            bypassed.increment();
+            return null;
+        }
+        Entry e;
+        synchronized (this) {
+            Signature key = signature(request);
+            e = entries.get(key);
+            if (e != null && System.currentTimeMillis() - e.writtenAt() > ttlMillis) {
+                entries.remove(key);
+                e = null;
+            }
+        }
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new GenAiResponse(fill(e.summaryTemplate(), request), e.classification(), e.riskScore());
+    }
+
+    /** Stores a response the model gave for {@code request} and notes the account's classification. */
+    public void put(GenAiRequest request, GenAiResponse response) {
+        if (!enabled) return;
+        String template = template(response.getSummary(), request);
+        synchronized (this) {
+            // the key uses the classification seen before this event
+            Signature key = signature(request);
+            if (template != null && Math.abs(request.getAmount()) <= maxAmount) {
+                entries.put(key, new Entry(template, response.getClassification(), response.getRiskScore(),
+                        System.currentTimeMillis()));
+            }
+            if (response.getClassification() != null) {
+                recentClassifications.put(request.getAccountId(), response.getClassification());
+            }
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private Signature signature(GenAiRequest request) {
+        String recent = matchRecentClassification
+                ? recentClassifications.getOrDefault(request.getAccountId(), "NONE")
+                : "ANY";
+        return new Signature(request.getEventType(), amountBucket(Math.abs(request.getAmount())),
+                (int) Math.signum(request.getNewBalance()), recent);
+    }
+
+    private long amountBucket(double amount) {
+        if (similarity == Similarity.EXACT) return Math.round(amount * 100);
+        if (amount < 1) return -1;
+        return (long) Math.floor(Math.log10(amount) * bucketsPerDecade);
+    }
+
+    private static String template(String summary, GenAiRequest request) {
+        if (summary == null) return null;
+        String account = request.getAccountId();
+        String amount = money(request.getAmount());
+        String balance = money(request.getNewBalance());
+        if (overlap(account, amount) || overlap(account, balance) || overlap(amount, balance)) return null;
+        String template = summary.replace(account, ACCOUNT).replace(amount, AMOUNT).replace(balance, BALANCE);
+        return mentions(template, Math.abs(request.getAmount())) || mentions(template, Math.abs(request.getNewBalance()))
+                ? null : template;
+    }
+
+    /** Whether {@code text} has a number within 5% (or 1) of {@code value}, in any common rendering. */
+    private static boolean mentions(String text, double value) {
+        double tolerance = Math.max(1, value * 0.05);
+        Matcher m = NUMBER.matcher(text);
+        while (m.find()) {
+            double n = Double.parseDouble(m.group(1).replace(",", ""));
+            if (m.group(2) != null) n *= Character.toLowerCase(m.group(2).charAt(0)) == 'k' ? 1e3 : 1e6;
+            if (Math.abs(n - value) < tolerance) return true;
+        }
+        return false;
+    }
+
+    private static boolean overlap(String a, String b) {
+        return a.contains(b) || b.contains(a);
+    }
+
+    private static String fill(String template, GenAiRequest request) {
+        return template.replace(ACCOUNT, request.getAccountId())
+                .replace(AMOUNT, money(request.getAmount()))
+                .replace(BALANCE, money(request.getNewBalance()));
+    }
+
+    /** As the prompt renders it. */
+    private static String money(double value) {
+        return "%.2f".formatted(value);
+    }
+}
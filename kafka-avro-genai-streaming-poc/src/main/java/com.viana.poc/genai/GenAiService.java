@@ -1,36 +1,41 @@
 package com.viana.poc.genai;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import okhttp3.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 @Service
 public class GenAiService {
 
     private static final Logger log = LoggerFactory.getLogger(GenAiService.class);
 
-    private final OkHttpClient httpClient;
-    private final ObjectMapper objectMapper;
-    private final String apiKey;
-    private final String model;
-
-    public GenAiService(
-            @Value("${openai.api-key}") String apiKey,
-            @Value("${openai.model:gpt-4.1-mini}") String model
-    ) {
-        this.apiKey = apiKey;
-        this.model = model;
-        this.httpClient = new OkHttpClient();
-        this.objectMapper = new ObjectMapper()
-                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final String JSON_FORMAT = "\n\nReturn ONLY valid JSON like:"
+            + "\n{\"summary\":\"...\",\"classification\":\"NORMAL|ANOMALOUS|REWARD_ELIGIBLE|NEGATIVE_BALANCE\",\"riskScore\":0}";
+
+    private final LlmTransport transport;
+    private final PromptBatcher batcher;
+
+    public GenAiService(LlmTransport transport,
+                        @Value("${openai.batch.enabled:true}") boolean batchEnabled,
+                        @Value("${openai.batch.max-size:8}") int maxBatchSize,
+                        @Value("${openai.batch.max-delay:PT0.05S}") Duration maxDelay,
+                        @Value("${openai.batch.max-in-flight:8}") int maxInFlight,
+                        @Value("${openai.batch.queue-capacity:1000}") int queueCapacity,
+                        MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.batcher = batchEnabled
+                ? new PromptBatcher(transport, this::requestSingle, maxBatchSize, maxDelay, maxInFlight, queueCapacity, meterRegistry)
+                : null;
     }
 
     public GenAiResult generateSummary(String prompt) {
@@ -42,26 +47,18 @@ public class GenAiService {
      * Main API used by the Kafka consumer.
      * Builds a GenAiResult (summary + classification + riskScore),
      * with retries and a safe fallback.
+     * The first attempt goes through the batcher when batching is enabled, retries are sent on their own.
      */
     public GenAiResult summarize(String prompt, double updatedBalance) {
         int maxRetries = 3;
         long backoffMillis = 1000;
 
-        System.out.println("Test GenAI");
-
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
             try {
-                String json = callOpenAiOnce(
-                        prompt
-                                + "\n\nReturn ONLY valid JSON like:"
-                                + "\n{\"summary\":\"...\",\"classification\":\"NORMAL|ANOMALOUS|REWARD_ELIGIBLE|NEGATIVE_BALANCE\",\"riskScore\":0}"
-                );
-
-                log.info("GenAI raw response: >>>{}<<<", json);
-
-
-                // parse json -> summary/classification/riskScore
-                var node = new com.fasterxml.jackson.databind.ObjectMapper().readTree(json);
+                // summary/classification/riskScore, from a batched or a single call
+                JsonNode node = await(batcher != null && attempt == 1
+                        ? batcher.submit(prompt)
+                        : requestSingle(prompt));
 
                 String summary = node.path("summary").asText("");
                 String classification = node.path("classification").asText("NORMAL");
@@ -74,6 +71,9 @@ public class GenAiService {
                 }
 
                 return GenAiResult.success(summary, classification, riskScore);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return GenAiResult.fallback("Interrupted while waiting for GenAI.");
             } catch (Exception ex) {
                 log.warn("OpenAI call failed (attempt {}/{}): {}",
                         attempt, maxRetries, ex.getMessage());
@@ -100,65 +100,45 @@ public class GenAiService {
     }
 
     /**
-     * Single HTTP call to OpenAI Chat Completions.
+     * Non-blocking, single attempt: the model's {@code {summary, classification, riskScore}} answer
+     * for {@code prompt}, through the batcher when batching is enabled.
      */
-    private String callOpenAiOnce(String prompt) throws IOException {
-        ChatRequest requestBody = new ChatRequest(
-                model,
-                List.of(new Message("user", prompt))
-        );
-
-        String jsonRequest = objectMapper.writeValueAsString(requestBody);
-
-        Request request = new Request.Builder()
-                .url("https://api.openai.com/v1/chat/completions")
-                .addHeader("Authorization", "Bearer " + apiKey)
-                .addHeader("Content-Type", "application/json")
-                .post(RequestBody.create(
-                        jsonRequest,
-                        MediaType.parse("application/json")))
-                .build();
-
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful() || response.body() == null) {
-                throw new IOException("OpenAI error: " + response.code() + " - " + response.message());
-            }
-
-            String jsonResponse = response.body().string();
-            ChatResponse chatResponse =
-                    objectMapper.readValue(jsonResponse, ChatResponse.class);
-
-            return chatResponse
-                    .choices()
-                    .get(0)
-                    .message()
-                    .content();
-        }
+    public CompletableFuture<JsonNode> summarizeAsync(String prompt) {
+        return batcher != null ? batcher.submit(prompt) : requestSingle(prompt);
     }
 
-    // DTOs used only in this service
-
-    public record ChatRequest(
-            String model,
-            List<Message> messages
-    ) {
+    /**
+     * {@link #summarizeAsync} for an event given by its fields: batched events share one statement
+     * of the task instead of each carrying the whole prompt.
+     */
+    public CompletableFuture<JsonNode> summarizeEventAsync(GenAiRequest event) {
+        return batcher != null ? batcher.submit(event) : requestSingle(EventPrompt.render(event));
     }
 
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public record Message(
-            String role,
-            String content
-    ) {
+    /** One chat completion for {@code prompt} alone, parsed. */
+    private CompletableFuture<JsonNode> requestSingle(String prompt) {
+        return transport.completeAsync(prompt + JSON_FORMAT).thenApply(json -> {
+            log.info("GenAI raw response: >>>{}<<<", json);
+            try {
+                return transport.readTree(json);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
     }
 
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public record ChatResponse(
-            List<Choice> choices
-    ) {
-        @JsonIgnoreProperties(ignoreUnknown = true)
-        public record Choice(
-                Message message
-        ) {
+    private static JsonNode await(CompletableFuture<JsonNode> answer) throws IOException, InterruptedException {
+        try {
+            return answer.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) throw io;
+            if (ex.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw new IOException(ex.getCause());
         }
     }
+
+    @PreDestroy
+    void close() {
+        if (batcher != null) batcher.close();
+    }
 }
@@ -0,0 +1,219 @@
+package com.viana.poc.genai;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one HTTP client for OpenAI Chat Completions. Calls share a connection pool and are
+ * multiplexed over HTTP/2 where the server supports it; they run through OkHttp's dispatcher
+ * ({@code enqueue}), so no caller thread is held while a request is outstanding. Request and
+ * response JSON go through a reader and writer built once.
+ * <p>
+ * Metrics: {@code genai.llm.request} (latency, by outcome), {@code genai.llm.pool.connections}
+ * (idle/total) and {@code genai.llm.dispatcher.calls} (running/queued).
+ */
+@Component
+public class LlmTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmTransport.class);
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private final OkHttpClient httpClient;
+    private final ObjectWriter requestWriter;
+    private final ObjectReader responseReader;
+    private final ObjectReader treeReader;
+    private final String url;
+    private final String apiKey;
+    private final String model;
+
+    private final Timer succeeded;
+    private final Timer failed;
+
+    public LlmTransport(
+            @Value("${openai.api-key}") String apiKey,
+            @Value("${openai.model:gpt-4.1-mini}") String model,
+            @Value("${openai.base-url:https://api.openai.com/v1}") String baseUrl,
+            @Value("${openai.http.connect-timeout:PT5S}") Duration connectTimeout,
+            @Value("${openai.http.read-timeout:PT30S}") Duration readTimeout,
+            @Value("${openai.http.call-timeout:PT60S}") Duration callTimeout,
+            @Value("${openai.http.max-idle-connections:8}") int maxIdleConnections,
+            @Value("${openai.http.keep-alive:PT5M}") Duration keepAlive,
+            @Value("${openai.http.max-requests:64}") int maxRequests,
+            MeterRegistry meterRegistry
+    ) {
+        this.apiKey = apiKey;
+        this.model = model;
+        this.url = baseUrl + "/chat/completions";
+
+        ConnectionPool pool = new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        // everything goes to one host, so the per-host limit is the real one
+        dispatcher.setMaxRequestsPerHost(maxRequests);
+        this.httpClient = new OkHttpClient.Builder()
+                .connectionPool(pool)
+                .dispatcher(dispatcher)
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .writeTimeout(readTimeout)
+                .callTimeout(callTimeout)
+                .build();
+
+        ObjectMapper mapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.requestWriter = mapper.writerFor(ChatRequest.class);
+        this.responseReader = mapper.readerFor(ChatResponse.class);
+        this.treeReader = mapper.reader();
+
+        this.succeeded = Timer.builder("genai.llm.request").tag("outcome", "success")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+        this.failed = Timer.builder("genai.llm.request").tag("outcome", "error")
+                .register(meterRegistry);
+        Gauge.builder("genai.llm.pool.connections", pool, ConnectionPool::idleConnectionCount)
+                .tag("state", "idle").register(meterRegistry);
+        Gauge.builder("genai.llm.pool.connections", pool, ConnectionPool::connectionCount)
+                .tag("state", "total").register(meterRegistry);
+        Gauge.builder("genai.llm.dispatcher.calls", dispatcher, Dispatcher::runningCallsCount)
+                .tag("state", "running").register(meterRegistry);
+        Gauge.builder("genai.llm.dispatcher.calls", dispatcher, Dispatcher::queuedCallsCount)
+                .tag("state", "queued").register(meterRegistry);
+    }
+
+    /**
+     * Sends {@code prompt} as a single user message and completes with the content of the first
+     * choice. Fails with an {@link IOException} on transport errors, timeouts and non-2xx answers
+     * (the message then carries status and body).
+     */
+    public CompletableFuture<String> completeAsync(String prompt) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Request request;
+        try {
+            request = new Request.Builder()
+                    .url(url)
+                    .addHeader("Authorization", "Bearer " + apiKey)
+                    .post(RequestBody.create(
+                            requestWriter.writeValueAsBytes(new ChatRequest(model, List.of(new Message("user", prompt)))),
+                            JSON))
+                    .build();
+        } catch (IOException ex) {
+            result.completeExceptionally(ex);
+            return result;
+        }
+
+        long start = System.nanoTime();
+        Call call = httpClient.newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    ResponseBody body = response.body();
+                    if (!response.isSuccessful() || body == null) {
+                        String errBody = body != null ? body.string() : "<no body>";
+                        throw new IOException("OpenAI error: " + response.code() + " " + response.message() + " - " + errBody);
+                    }
+                    ChatResponse chat = responseReader.readValue(body.byteStream());
+                    if (chat.choices() == null || chat.choices().isEmpty()) {
+                        throw new IOException("OpenAI returned no choices");
+                    }
+                    succeeded.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    result.complete(chat.choices().get(0).message().content());
+                } catch (IOException | RuntimeException ex) {
+                    onFailure(call, ex instanceof IOException io ? io : new IOException(ex));
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException ex) {
+                failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                result.completeExceptionally(ex);
+            }
+        });
+        // cancelling the future aborts the HTTP call
+        result.whenComplete((content, ex) -> {
+            if (result.isCancelled()) call.cancel();
+        });
+        return result;
+    }
+
+    /** {@link #completeAsync} for callers that have nothing else to do meanwhile. */
+    public String complete(String prompt) throws IOException {
+        try {
+            return completeAsync(prompt).get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) throw io;
+            throw new IOException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for OpenAI", ex);
+        }
+    }
+
+    /** Parses JSON the model produced, with the shared reader. */
+    public JsonNode readTree(String json) throws IOException {
+        return treeReader.readTree(json);
+    }
+
+    @PreDestroy
+    void close() {
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+        log.info("LLM transport closed");
+    }
+
+    // OpenAI wire format
+
+    public record ChatRequest(
+            String model,
+            List<Message> messages
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Message(
+            String role,
+            String content
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ChatResponse(
+            List<Choice> choices
+    ) {
+        @JsonIgnoreProperties(ignoreUnknown = true)
+        public record Choice(
+                Message message
+        ) {
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.viana.poc.genai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Packs concurrent summarize prompts into one chat completion. A batch is sent once it holds
+ * {@code maxBatchSize} prompts or {@code maxDelay} after its first prompt arrived. The model is
+ * asked for a JSON array with one {@code {id, summary, classification, riskScore}} object per
+ * prompt, and each caller gets the object with its id. Prompts the answer does not cover, or
+ * covers with something unusable, are sent again on their own through {@code single}. Identical
+ * prompts within a batch are asked once. Up to {@code maxInFlight} batches are outstanding at a
+ * time.
+ * <p>
+ * Events submitted by their fields go into the batch as just those fields; the
+ * {@link EventPrompt#TASK} they share is stated once per batch.
+ */
+final class PromptBatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PromptBatcher.class);
+
+    private record Pending(String prompt, GenAiRequest event, CompletableFuture<JsonNode> result) {
+
+        /** What is asked when the prompt is sent on its own. */
+        String alone() {
+            return event != null ? EventPrompt.render(event) : prompt;
+        }
+    }
+
+    private final LlmTransport transport;
+    private final Function<String, CompletableFuture<JsonNode>> single;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Pending> queue;
+    private final Semaphore inFlight;
+    private final Thread collector;
+    private volatile boolean closed;
+
+    private final DistributionSummary batchSize;
+    private final Counter fallbacks;
+
+    PromptBatcher(LlmTransport transport,
+                  Function<String, CompletableFuture<JsonNode>> single,
+                  int maxBatchSize,
+                  Duration maxDelay,
+                  int maxInFlight,
+                  int queueCapacity,
+                  MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.single = single;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.inFlight = new Semaphore(maxInFlight);
+
+        this.batchSize = DistributionSummary.builder("genai.llm.batch.size")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.fallbacks = meterRegistry.counter("genai.llm.batch.fallbacks");
+
+        this.collector = new Thread(this::collect, "genai-prompt-batcher");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    CompletableFuture<JsonNode> submit(String prompt) {
+        return enqueue(new Pending(prompt, null, new CompletableFuture<>()));
+    }
+
+    CompletableFuture<JsonNode> submit(GenAiRequest event) {
+        return enqueue(new Pending(null, event, new CompletableFuture<>()));
+    }
+
+    private CompletableFuture<JsonNode> enqueue(Pending p) {
+        if (closed) {
+            failClosed(List.of(p));
+            return p.result();
+        }
+        try {
+            queue.put(p);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            p.result().completeExceptionally(ie);
+            return p.result();
+        }
+        // close() may have drained the queue between the check above and the put
+        if (closed && queue.remove(p)) failClosed(List.of(p));
+        return p.result();
+    }
+
+    private void collect() {
+        while (!closed) {
+            List<Pending> batch = new ArrayList<>(maxBatchSize);
+            try {
+                batch.add(queue.take());
+
+                long deadline = System.nanoTime() + maxDelayNanos;
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+
+                inFlight.acquire();
+                send(batch).whenComplete((ignored, ex) -> inFlight.release());
+            } catch (InterruptedException ie) {
+                // close(): the prompts taken so far are no longer in the queue it drains
+                Thread.currentThread().interrupt();
+                failClosed(batch);
+                return;
+            }
+        }
+    }
+
+    private CompletableFuture<Void> send(List<Pending> batch) {
+        Map<String, List<Pending>> byPrompt = new LinkedHashMap<>();
+        for (Pending p : batch) byPrompt.computeIfAbsent(p.alone(), k -> new ArrayList<>()).add(p);
+        List<String> prompts = new ArrayList<>(byPrompt.keySet());
+        batchSize.record(prompts.size());
+
+        if (prompts.size() == 1) {
+            return single.apply(prompts.get(0)).handle((node, ex) -> {
+                settle(batch, node, ex);
+                return null;
+            });
+        }
+
+        List<Pending> asked = new ArrayList<>(prompts.size());
+        for (List<Pending> same : byPrompt.values()) asked.add(same.get(0));
+        return transport.completeAsync(batchPrompt(asked)).handle((json, ex) -> {
+            if (ex != null) {
+                log.warn("GenAI batch of {} prompts failed: {}", prompts.size(), ex.getMessage());
+                batch.forEach(p -> p.result().completeExceptionally(ex));
+                return null;
+            }
+            Map<String, JsonNode> answers = parse(json);
+            for (int i = 0; i < prompts.size(); i++) {
+                List<Pending> waiting = byPrompt.get(prompts.get(i));
+                JsonNode answer = answers.get(id(i));
+                if (answer != null && answer.hasNonNull("summary")) {
+                    settle(waiting, answer, null);
+                } else {
+                    fallbacks.increment();
+                    single.apply(prompts.get(i)).whenComplete((node, e) -> settle(waiting, node, e));
+                }
+            }
+            return null;
+        });
+    }
+
+    private static void settle(List<Pending> waiting, JsonNode node, Throwable ex) {
+        for (Pending p : waiting) {
+            if (ex != null) p.result().completeExceptionally(ex);
+            else p.result().complete(node);
+        }
+    }
+
+    private static String batchPrompt(List<Pending> asked) {
+        StringBuilder sb = new StringBuilder()
+                .append("You will receive ").append(asked.size())
+                .append(" independent requests, each tagged with an id. Handle each one on its own.");
+        if (asked.stream().anyMatch(p -> p.event() != null)) {
+            sb.append("\n\nRequests headed \"Event\" give the fields of a banking account event.")
+                    .append(" For each of them, follow these instructions:\n\n")
+                    .append(EventPrompt.TASK);
+        }
+        sb.append("\n\nReturn ONLY a valid JSON array with one object per request, like:")
+                .append("\n[{\"id\":\"").append(id(0))
+                .append("\",\"summary\":\"...\",\"classification\":\"NORMAL|ANOMALOUS|REWARD_ELIGIBLE|NEGATIVE_BALANCE\",\"riskScore\":0}]");
+        for (int i = 0; i < asked.size(); i++) {
+            Pending p = asked.get(i);
+            sb.append("\n\n### Request ").append(id(i));
+            if (p.event() != null) sb.append(" (Event)\n").append(EventPrompt.fields(p.event()));
+            else sb.append('\n').append(p.prompt());
+        }
+        return sb.toString();
+    }
+
+    private static String id(int index) {
+        return "r" + (index + 1);
+    }
+
+    /** Answers by id; empty when the reply is not a JSON array (a Markdown code fence is tolerated). */
+    private Map<String, JsonNode> parse(String json) {
+        Map<String, JsonNode> answers = new HashMap<>();
+        if (json == null) return answers;
+        String trimmed = json.strip();
+        if (trimmed.startsWith("```")) {
+            int start = trimmed.indexOf('\n');
+            int end = trimmed.lastIndexOf("```");
+            if (start < 0 || end <= start) return answers;
+            trimmed = trimmed.substring(start + 1, end);
+        }
+        try {
+            JsonNode array = transport.readTree(trimmed);
+            if (!array.isArray()) return answers;
+            for (JsonNode node : array) {
+                String id = node.path("id").asText(null);
+                if (id != null) answers.putIfAbsent(id, node);
+            }
+        } catch (IOException ex) {
+            log.warn("Unparseable GenAI batch answer: {}", ex.getMessage());
+        }
+        return answers;
+    }
+
+    private static void failClosed(List<Pending> pending) {
+        pending.forEach(p -> p.result().completeExceptionally(new IllegalStateException("Prompt batcher is closed")));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        collector.interrupt();
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        failClosed(left);
+    }
+}
@@ -1,16 +1,33 @@
 package com.viana.poc.service;
 
 import com.viana.avro.AccountEvent;
-import com.viana.poc.genai.GenAiClient;
-import com.viana.poc.genai.GenAiService;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Hands each record to {@link AccountProcessingService} without waiting for it, so up to
+ * {@code genai.pipeline.max-in-flight} records are being summarized at once; beyond that the
+ * listener thread waits for a slot. Records of the same account still run one after another, in
+ * offset order (see {@link KeyedLanes}). A record's offset is acknowledged once its enriched event
+ * is published and its summary saved; with {@code async-acks} the container commits an offset
+ * only when every record before it in the partition has been acknowledged too. A record that
+ * still fails after {@code genai.pipeline.max-attempts} is sent to
+ * {@code genai.pipeline.dead-letter-topic} and then acknowledged, so it never stalls the
+ * partition or the account's later records.
+ */
 @Service
 public class AccountEventConsumer {
 
@@ -18,13 +35,26 @@ public class AccountEventConsumer {
 
     private final Map<String, Double> balances = new ConcurrentHashMap<>();
     private final AccountProcessingService processingService;
+    private final KafkaTemplate<String, AccountEvent> deadLetters;
+    private final String deadLetterTopic;
+    private final KeyedLanes lanes;
 
-    public AccountEventConsumer(AccountProcessingService processingService) {
+    public AccountEventConsumer(AccountProcessingService processingService,
+                                KafkaTemplate<String, AccountEvent> accountEventKafkaTemplate,
+                                @Value("${genai.pipeline.max-in-flight:16}") int maxInFlight,
+                                @Value("${genai.pipeline.max-attempts:3}") int maxAttempts,
+                                @Value("${genai.pipeline.retry-backoff:PT1S}") Duration retryBackoff,
+                                @Value("${genai.pipeline.dead-letter-topic:account-events.DLT}") String deadLetterTopic) {
         this.processingService = processingService;
+        this.deadLetters = accountEventKafkaTemplate;
+        this.deadLetterTopic = deadLetterTopic;
+        this.lanes = new KeyedLanes(maxInFlight, maxAttempts, retryBackoff);
     }
 
     @KafkaListener(topics = "account-events", groupId = "account-processor")
-    public void handle(AccountEvent event) {
+    public void handle(AccountEvent event, Acknowledgment ack,
+                       @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                       @Header(KafkaHeaders.OFFSET) long offset) throws InterruptedException {
         String accountId = event.getAccountId();
 
         double previousBalance = balances.getOrDefault(accountId, 0.0);
@@ -34,11 +64,28 @@ public class AccountEventConsumer {
         };
         balances.put(accountId, updated);
 
-        processingService.process(event, updated);
+        lanes.submit(accountId,
+                () -> processingService.process(event, updated).toFuture(),
+                ack::acknowledge,
+                ex -> deadLetter(event, partition, offset, ex, ack));
 
-        System.out.printf(
-                "Event %s for account %s → new balance = %.2f%n",
-                event.getEventType(), accountId, updated
-        );
+        log.info("Event {} for account {} → new balance = {}", event.getEventType(), accountId,
+                String.format("%.2f", updated));
     }
-}
\ No newline at end of file
+
+    private void deadLetter(AccountEvent event, int partition, long offset, Throwable ex, Acknowledgment ack) {
+        log.error("Processing {} for account {} at {}@{} failed, sending it to {}",
+                event.getEventType(), event.getAccountId(), partition, offset, deadLetterTopic, ex);
+        ProducerRecord<String, AccountEvent> record = new ProducerRecord<>(deadLetterTopic, event.getAccountId(), event);
+        record.headers().add(KafkaHeaders.DLT_EXCEPTION_FQCN, ex.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+                String.valueOf(ex.getMessage()).getBytes(StandardCharsets.UTF_8));
+        deadLetters.send(record).whenComplete((result, sendFailure) -> {
+            if (sendFailure != null) {
+                log.error("Dead-lettering {}@{} to {} failed; the record is dropped", partition, offset,
+                        deadLetterTopic, sendFailure);
+            }
+            ack.acknowledge();
+        });
+    }
+}
@@ -12,6 +12,8 @@ import com.viana.poc.repository.AccountSummaryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Instant;
 import java.util.UUID;
@@ -24,16 +26,25 @@ public class AccountProcessingService {
     private final GenAiClient genAiClient;
     private final AccountSummaryRepository summaryRepository;
     private final EnrichedEventPublisher enrichedEventPublisher;
+    private final EventPreClassifier preClassifier;
 
     public AccountProcessingService(GenAiClient genAiClient,
                                     AccountSummaryRepository summaryRepository,
-                                    EnrichedEventPublisher enrichedEventPublisher) {
+                                    EnrichedEventPublisher enrichedEventPublisher,
+                                    EventPreClassifier preClassifier) {
         this.genAiClient = genAiClient;
         this.summaryRepository = summaryRepository;
         this.enrichedEventPublisher = enrichedEventPublisher;
+        this.preClassifier = preClassifier;
     }
 
-    public GenAiResponse process(AccountEvent event, double newBalance) {
+    /**
+     * Summarizes the event (locally when the {@link EventPreClassifier} finds it routine), publishes
+     * the enriched event and saves the summary, in that order. Nothing blocks the caller; the
+     * returned {@link Mono} completes once the enriched event was acknowledged by Kafka and the
+     * summary row was saved, and errors if either failed.
+     */
+    public Mono<GenAiResponse> process(AccountEvent event, double newBalance) {
 
         Instant now = Instant.now();
 
@@ -44,35 +55,42 @@ public class AccountProcessingService {
                 newBalance
         );
 
-        GenAiResponse response = genAiClient.summarizeEvent(request);
-
-        EnrichedAccountEvent enriched = EnrichedAccountEvent.builder()
-                .eventId(UUID.randomUUID().toString())
-                .accountId(event.getAccountId())
-                .riskScore(response.getRiskScore())
-                .summary(response.getSummary())
-                .eventType(EventType.valueOf(event.getEventType().toString()))
-                .amount(event.getAmount())
-                .currency(event.getCurrency())
-                .timestamp(now)
-
-                .build();
-
-        enrichedEventPublisher.publish(enriched);
-
-        log.info("Published enriched event to Kafka for accountId={}", event.getAccountId());
-
-        AccountSummaryEntity entity = new AccountSummaryEntity();
-        entity.setAccountId(event.getAccountId());
-        entity.setSummary(response.getSummary());
-        entity.setClassification(response.getClassification());
-        entity.setRiskScore(response.getRiskScore());
-        entity.setCreatedAt(now);
-
-        summaryRepository.save(entity);
-
-        log.info("GenAI summary for account {}: {}", event.getAccountId(), response);
-
-        return response;
+        GenAiResponse local = preClassifier.classify(request);
+        Mono<GenAiResponse> summary = local != null
+                ? Mono.just(local)
+                : genAiClient.summarizeEvent(request)
+                        .doOnNext(response -> preClassifier.recordModelResponse(request, response));
+
+        return summary
+                .flatMap(response -> {
+                    EnrichedAccountEvent enriched = EnrichedAccountEvent.builder()
+                            .eventId(UUID.randomUUID().toString())
+                            .accountId(event.getAccountId())
+                            .riskScore(response.getRiskScore())
+                            .summary(response.getSummary())
+                            .eventType(EventType.valueOf(event.getEventType().toString()))
+                            .amount(event.getAmount())
+                            .currency(event.getCurrency())
+                            .timestamp(now)
+
+                            .build();
+
+                    return Mono.fromFuture(() -> enrichedEventPublisher.publish(enriched))
+                            .thenReturn(response);
+                })
+                .flatMap(response -> {
+                    AccountSummaryEntity entity = new AccountSummaryEntity();
+                    entity.setAccountId(event.getAccountId());
+                    entity.setSummary(response.getSummary());
+                    entity.setClassification(response.getClassification());
+                    entity.setRiskScore(response.getRiskScore());
+                    entity.setCreatedAt(now);
+
+                    // JPA is blocking; keep it off the event loop
+                    return Mono.fromCallable(() -> summaryRepository.save(entity))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .thenReturn(response);
+                })
+                .doOnNext(response -> log.info("GenAI summary for account {}: {}", event.getAccountId(), response));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+package com.viana.poc.service;
+
+import com.viana.poc.genai.GenAiClient;
+import com.viana.poc.genai.GenAiRequest;
+import com.viana.poc.genai.GenAiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Rules that answer routine events locally, so that only ambiguous or risky ones reach the model.
+ * An event is routine when all of these hold:
+ * <ul>
+ *     <li>its amount is at most {@code routine-max-amount};</li>
+ *     <li>the new balance is positive, and for a DEBIT at least {@code min-debit-headroom} times the amount;</li>
+ *     <li>the account has had at least {@code min-history} events;</li>
+ *     <li>the amount is at most {@code max-amount-ratio} times the account's typical amount
+ *     (a moving average);</li>
+ *     <li>the model did not last classify the account as anything but NORMAL.</li>
+ * </ul>
+ * Routine events get a synthesized NORMAL response. A {@code shadow-sample-rate} share of them is
+ * also sent to the model in the background, bypassing the {@link com.viana.poc.genai.GenAiResultCache},
+ * and its classification is compared with the local one.
+ * A model answer other than NORMAL, shadow or not, sends the account's later events to the model.
+ * <p>
+ * Metrics: {@code genai.preclassifier.decisions{route=bypass|escalate}} and
+ * {@code genai.preclassifier.shadow{outcome=agree|disagree|unknown}}. The outcome is
+ * {@code unknown} when the model returned no classification.
+ */
+@Component
+public class EventPreClassifier {
+
+    private static final Logger log = LoggerFactory.getLogger(EventPreClassifier.class);
+    private static final String NORMAL = "NORMAL";
+
+    private static final class History {
+        long events;
+        double typicalAmount;
+        String lastModelClassification;
+    }
+
+    private final GenAiClient genAiClient;
+    private final boolean enabled;
+    private final double routineMaxAmount;
+    private final double minDebitHeadroom;
+    private final int minHistory;
+    private final double maxAmountRatio;
+    private final double shadowSampleRate;
+    private final Map<String, History> histories;
+
+    private final Counter bypassed;
+    private final Counter escalated;
+    private final Counter agreed;
+    private final Counter disagreed;
+    private final Counter unknown;
+
+    public EventPreClassifier(GenAiClient genAiClient,
+                              @Value("${genai.preclassifier.enabled:true}") boolean enabled,
+                              @Value("${genai.preclassifier.routine-max-amount:500}") double routineMaxAmount,
+                              @Value("${genai.preclassifier.min-debit-headroom:2.0}") double minDebitHeadroom,
+                              @Value("${genai.preclassifier.min-history:3}") int minHistory,
+                              @Value("${genai.preclassifier.max-amount-ratio:3.0}") double maxAmountRatio,
+                              @Value("${genai.preclassifier.shadow-sample-rate:0.05}") double shadowSampleRate,
+                              @Value("${genai.preclassifier.max-accounts:100000}") int maxAccounts,
+                              MeterRegistry meterRegistry) {
+        this.genAiClient = genAiClient;
+        this.enabled = enabled;
+        this.routineMaxAmount = routineMaxAmount;
+        this.minDebitHeadroom = minDebitHeadroom;
+        this.minHistory = minHistory;
+        this.maxAmountRatio = maxAmountRatio;
+        this.shadowSampleRate = shadowSampleRate;
+        this.histories = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, History> eldest) {
+                return size() > maxAccounts;
+            }
+        };
+
+        this.bypassed = meterRegistry.counter("genai.preclassifier.decisions", "route", "bypass");
+        this.escalated = meterRegistry.counter("genai.preclassifier.decisions", "route", "escalate");
+        this.agreed = meterRegistry.counter("genai.preclassifier.shadow", "outcome", "agree");
+        this.disagreed = meterRegistry.counter("genai.preclassifier.shadow", "outcome", "disagree");
+        this.unknown = meterRegistry.counter("genai.preclassifier.shadow", "outcome", "unknown");
+    }
+
+    /**
+     * A synthesized response when {@code request} is routine, otherwise null and the caller asks
+     * the model. Either way the event is added to the account's history.
+     */
+    public GenAiResponse classify(GenAiRequest request) {
+        if (!enabled) return null;
+        double amount = Math.abs(request.getAmount());
+        boolean routine;
+        synchronized (this) {
+            History h = histories.computeIfAbsent(request.getAccountId(), k -> new History());
+            routine = amount <= routineMaxAmount
+                    && request.getNewBalance() > 0
+                    && (!"DEBIT".equals(request.getEventType()) || request.getNewBalance() >= minDebitHeadroom * amount)
+                    && h.events >= minHistory
+                    && amount <= maxAmountRatio * Math.max(h.typicalAmount, 1)
+                    && (h.lastModelClassification == null || NORMAL.equals(h.lastModelClassification));
+            h.typicalAmount = h.events == 0 ? amount : 0.8 * h.typicalAmount + 0.2 * amount;
+            h.events++;
+        }
+        if (!routine) {
+            escalated.increment();
+            return null;
+        }
+        bypassed.increment();
+        GenAiResponse local = new GenAiResponse(
+                "Routine %s of %.2f on account %s; new balance %.2f. No unusual activity."
+                        .formatted(request.getEventType(), amount, request.getAccountId(), request.getNewBalance()),
+                NORMAL,
+                "DEBIT".equals(request.getEventType()) ? 10 : 5);
+        if (shadowSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < shadowSampleRate) {
+            shadow(request, local);
+        }
+        return local;
+    }
+
+    /** Notes what the model made of an escalated event; a non-NORMAL answer keeps the account escalated. */
+    public void recordModelResponse(GenAiRequest request, GenAiResponse response) {
+        if (!enabled || response.getClassification() == null) return;
+        synchronized (this) {
+            History h = histories.get(request.getAccountId());
+            if (h != null) h.lastModelClassification = response.getClassification();
+        }
+    }
+
+    private void shadow(GenAiRequest request, GenAiResponse local) {
+        // not through the cache, which would answer with a similar earlier event's classification
+        genAiClient.summarizeEventFromModel(request).subscribe(remote -> {
+            recordModelResponse(request, remote);
+            if (remote.getClassification() == null) {
+                unknown.increment();
+            } else if (remote.getClassification().equals(local.getClassification())) {
+                agreed.increment();
+            } else {
+                disagreed.increment();
+                log.info("Pre-classifier disagreement for account {}: local {}, model {} ({})",
+                        request.getAccountId(), local.getClassification(), remote.getClassification(),
+                        remote.getSummary());
+            }
+        });
+    }
+}
@@ -0,0 +1,88 @@
+package com.viana.poc.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous tasks one after another per key and concurrently across keys, with at most
+ * {@code maxInFlight} submitted and not yet settled. A task that fails is retried up to
+ * {@code maxAttempts} times in total, waiting {@code backoff} times the attempt number in
+ * between. After that its {@code onFailure} runs. Either way the next task of the key starts
+ * once the previous one has settled: a failure never holds up the lane behind it.
+ */
+final class KeyedLanes {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyedLanes.class);
+
+    private final Map<String, CompletableFuture<Void>> lanes = new ConcurrentHashMap<>();
+    private final Semaphore inFlight;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    KeyedLanes(int maxInFlight, int maxAttempts, Duration backoff) {
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoff.toMillis();
+    }
+
+    /**
+     * Queues {@code task} behind the key's earlier tasks; waits while {@code maxInFlight} tasks are
+     * outstanding. Exactly one of {@code onSuccess} and {@code onFailure} runs once it settled.
+     */
+    void submit(String key, Supplier<CompletableFuture<?>> task, Runnable onSuccess,
+                Consumer<Throwable> onFailure) throws InterruptedException {
+        inFlight.acquire();
+        CompletableFuture<Void> done = lanes.compute(key, (k, previous) ->
+                (previous == null ? CompletableFuture.<Void>completedFuture(null) : previous)
+                        .thenCompose(ignored -> attempt(task, 1))
+                        .handle((ignored, ex) -> {
+                            settle(key, ex, onSuccess, onFailure);
+                            return null;
+                        }));
+        done.whenComplete((ignored, ex) -> {
+            inFlight.release();
+            lanes.remove(key, done);
+        });
+    }
+
+    private CompletableFuture<Object> attempt(Supplier<CompletableFuture<?>> task, int attempt) {
+        CompletableFuture<?> run;
+        try {
+            run = task.get();
+        } catch (RuntimeException ex) {
+            run = CompletableFuture.failedFuture(ex);
+        }
+        return run.<CompletableFuture<Object>>handle((result, ex) -> {
+            if (ex == null) return CompletableFuture.completedFuture(result);
+            if (attempt >= maxAttempts) return CompletableFuture.failedFuture(ex);
+            log.warn("Attempt {}/{} failed, retrying: {}", attempt, maxAttempts, cause(ex).getMessage());
+            return CompletableFuture.supplyAsync(() -> null,
+                            CompletableFuture.delayedExecutor(backoffMillis * attempt, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> attempt(task, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    private static void settle(String key, Throwable ex, Runnable onSuccess, Consumer<Throwable> onFailure) {
+        try {
+            if (ex == null) onSuccess.run();
+            else onFailure.accept(cause(ex));
+        } catch (RuntimeException callbackFailure) {
+            log.error("Completion callback for key {} failed", key, callbackFailure);
+        }
+    }
+
+    private static Throwable cause(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+}
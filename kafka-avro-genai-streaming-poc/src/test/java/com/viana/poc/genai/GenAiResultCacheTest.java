@@ -0,0 +1,93 @@
+package com.viana.poc.genai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenAiResultCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private GenAiResultCache cache(String similarity, Duration ttl) {
+        return new GenAiResultCache(true, similarity, 4, 10_000, true, 100, ttl, registry);
+    }
+
+    private static GenAiResponse response(String summary) {
+        return new GenAiResponse(summary, "ROUTINE", 10);
+    }
+
+    private double requests(String result) {
+        return registry.counter("genai.cache.requests", "result", result).count();
+    }
+
+    @Test
+    void fillsTheTemplateWithTheNewEventsValues() {
+        GenAiResultCache cache = cache("bucketed", Duration.ofMinutes(10));
+        cache.put(new GenAiRequest("ACC1", "DEBIT", 42.10, 957.90),
+                response("Account ACC1 paid 42.10, leaving 957.90."));
+
+        GenAiResponse hit = cache.lookup(new GenAiRequest("ACC2", "DEBIT", 44.90, 800.00));
+
+        assertThat(hit).isNotNull();
+        assertThat(hit.getSummary()).isEqualTo("Account ACC2 paid 44.90, leaving 800.00.");
+        assertThat(hit.getClassification()).isEqualTo("ROUTINE");
+        assertThat(hit.getRiskScore()).isEqualTo(10);
+        assertThat(requests("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void bucketsByTypeAmountBalanceSignAndRecentClassification() {
+        GenAiResultCache cache = cache("bucketed", Duration.ofMinutes(10));
+        cache.put(new GenAiRequest("ACC1", "DEBIT", 42.10, 957.90), response("Paid 42.10."));
+
+        assertThat(cache.lookup(new GenAiRequest("ACC2", "DEBIT", 60.00, 957.90))).isNull();    // next bucket
+        assertThat(cache.lookup(new GenAiRequest("ACC2", "CREDIT", 42.10, 957.90))).isNull();
+        assertThat(cache.lookup(new GenAiRequest("ACC2", "DEBIT", 42.10, -5.00))).isNull();
+        // ACC1 is now known as ROUTINE, the entry was stored under its earlier NONE
+        assertThat(cache.lookup(new GenAiRequest("ACC1", "DEBIT", 42.10, 957.90))).isNull();
+        assertThat(cache.lookup(new GenAiRequest("ACC2", "DEBIT", 42.10, 957.90))).isNotNull();
+
+        assertThat(cache.lookup(new GenAiRequest("ACC2", "DEBIT", 20_000, 957.90))).isNull();
+        assertThat(requests("bypassed")).isEqualTo(1);
+        assertThat(requests("miss")).isEqualTo(4);
+    }
+
+    @Test
+    void exactSimilarityKeysOnTheAmountInCents() {
+        GenAiResultCache cache = cache("exact", Duration.ofMinutes(10));
+        cache.put(new GenAiRequest("ACC1", "DEBIT", 42.10, 957.90), response("Paid 42.10."));
+
+        assertThat(cache.lookup(new GenAiRequest("ACC2", "DEBIT", 42.11, 957.89))).isNull();
+        assertThat(cache.lookup(new GenAiRequest("ACC2", "DEBIT", 42.10, 100.00)).getSummary()).isEqualTo("Paid 42.10.");
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws Exception {
+        GenAiResultCache cache = cache("bucketed", Duration.ofMillis(50));
+        cache.put(new GenAiRequest("ACC1", "DEBIT", 42.10, 957.90), response("Paid 42.10."));
+        assertThat(cache.size()).isEqualTo(1);
+
+        Thread.sleep(100);
+
+        assertThat(cache.lookup(new GenAiRequest("ACC2", "DEBIT", 42.10, 957.90))).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void doesNotCacheSummariesStillMentioningTheEventsNumbers() {
+        GenAiResultCache cache = cache("bucketed", Duration.ofMinutes(10));
+        GenAiRequest request = new GenAiRequest("ACC1", "DEBIT", 1249.60, 3000.00);
+
+        cache.put(request, response("A debit of 1,249.60 on ACC1."));
+        cache.put(request, response("A debit of $1250 on ACC1."));
+        cache.put(request, response("Roughly 1.2k left the account, 3,000 remain."));
+        cache.put(request, response("Balance is now 3k after paying 1249.60."));
+        assertThat(cache.size()).isZero();
+
+        cache.put(request, response("A debit of 1249.60 on ACC1 after 3 purchases, leaving 3000.00."));
+        assertThat(cache.size()).isEqualTo(1);
+    }
+}
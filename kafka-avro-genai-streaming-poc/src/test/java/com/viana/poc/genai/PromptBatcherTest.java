@@ -0,0 +1,139 @@
+package com.viana.poc.genai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+
+class PromptBatcherTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LlmTransport transport = Mockito.mock(LlmTransport.class);
+    private final List<String> sentAlone = new CopyOnWriteArrayList<>();
+    private PromptBatcher batcher;
+
+    private PromptBatcher batcher(int maxBatchSize, Duration maxDelay) throws IOException {
+        Mockito.when(transport.readTree(anyString())).thenAnswer(inv -> mapper.readTree((String) inv.getArgument(0)));
+        batcher = new PromptBatcher(transport, prompt -> {
+            sentAlone.add(prompt);
+            return CompletableFuture.completedFuture(node("{\"summary\":\"alone\"}"));
+        }, maxBatchSize, maxDelay, 2, 100, registry);
+        return batcher;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) batcher.close();
+    }
+
+    private static JsonNode node(String json) {
+        try {
+            return mapper.readTree(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String summary(CompletableFuture<JsonNode> answer) throws Exception {
+        return answer.get(2, TimeUnit.SECONDS).path("summary").asText();
+    }
+
+    private String sentBatch() {
+        return Mockito.mockingDetails(transport).getInvocations().stream()
+                .filter(inv -> inv.getMethod().getName().equals("completeAsync"))
+                .map(inv -> (String) inv.getArgument(0))
+                .findFirst().orElseThrow();
+    }
+
+    @Test
+    void answersEachCallerWithItsOwnObjectAndStatesTheTaskOnce() throws Exception {
+        Mockito.when(transport.completeAsync(anyString())).thenReturn(CompletableFuture.completedFuture("""
+                ```json
+                [{"id":"r3","summary":"third"},{"id":"r1","summary":"first"},{"id":"r2","summary":"second"}]
+                ```"""));
+        PromptBatcher b = batcher(4, Duration.ofSeconds(5));
+
+        GenAiRequest event = new GenAiRequest("ACC1", "DEBIT", 42.10, 957.90);
+        CompletableFuture<JsonNode> first = b.submit(event);
+        CompletableFuture<JsonNode> again = b.submit(new GenAiRequest("ACC1", "DEBIT", 42.10, 957.90));
+        CompletableFuture<JsonNode> second = b.submit(new GenAiRequest("ACC2", "CREDIT", 5, 10));
+        CompletableFuture<JsonNode> third = b.submit("Summarize this free-form note.");
+
+        assertThat(summary(first)).isEqualTo("first");
+        assertThat(summary(again)).isEqualTo("first");
+        assertThat(summary(second)).isEqualTo("second");
+        assertThat(summary(third)).isEqualTo("third");
+
+        String prompt = sentBatch();
+        assertThat(prompt).startsWith("You will receive 3 independent requests");
+        assertThat(prompt).containsOnlyOnce(EventPrompt.TASK);
+        assertThat(prompt).contains("### Request r1 (Event)\n" + EventPrompt.fields(event))
+                .contains("### Request r3\nSummarize this free-form note.");
+        assertThat(sentAlone).isEmpty();
+        assertThat(registry.summary("genai.llm.batch.size").totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void sendsPromptsTheAnswerLeftOutOnTheirOwn() throws Exception {
+        Mockito.when(transport.completeAsync(anyString())).thenReturn(CompletableFuture.completedFuture(
+                "[{\"id\":\"r1\",\"summary\":\"first\"},{\"id\":\"r2\",\"classification\":\"NORMAL\"}]"));
+        PromptBatcher b = batcher(3, Duration.ofSeconds(5));
+
+        GenAiRequest second = new GenAiRequest("ACC2", "DEBIT", 5, 10);
+        GenAiRequest third = new GenAiRequest("ACC3", "DEBIT", 6, 10);
+        CompletableFuture<JsonNode> r1 = b.submit(new GenAiRequest("ACC1", "DEBIT", 4, 10));
+        CompletableFuture<JsonNode> r2 = b.submit(second);
+        CompletableFuture<JsonNode> r3 = b.submit(third);
+
+        assertThat(summary(r1)).isEqualTo("first");
+        assertThat(summary(r2)).isEqualTo("alone");      // no summary
+        assertThat(summary(r3)).isEqualTo("alone");      // not answered
+        assertThat(sentAlone).containsExactlyInAnyOrder(EventPrompt.render(second), EventPrompt.render(third));
+        assertThat(registry.counter("genai.llm.batch.fallbacks").count()).isEqualTo(2);
+    }
+
+    @Test
+    void sendsEveryPromptOnItsOwnWhenTheAnswerIsNotAJsonArray() throws Exception {
+        Mockito.when(transport.completeAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture("Sure! Here are your summaries."));
+        PromptBatcher b = batcher(2, Duration.ofSeconds(5));
+
+        CompletableFuture<JsonNode> a = b.submit("first prompt");
+        CompletableFuture<JsonNode> c = b.submit("second prompt");
+
+        assertThat(summary(a)).isEqualTo("alone");
+        assertThat(summary(c)).isEqualTo("alone");
+        assertThat(sentAlone).containsExactlyInAnyOrder("first prompt", "second prompt");
+    }
+
+    @Test
+    void closeFailsThePromptsBeingCollectedAndLaterSubmissions() throws Exception {
+        PromptBatcher b = batcher(2, Duration.ofSeconds(30));
+        CompletableFuture<JsonNode> collecting = b.submit("waiting for a second prompt");
+
+        b.close();
+
+        assertThat(collecting).failsWithin(Duration.ofSeconds(2))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+        assertThat(b.submit("too late")).isCompletedExceptionally();
+        Mockito.verify(transport, Mockito.never()).completeAsync(anyString());
+        assertThat(sentAlone).isEmpty();
+    }
+}
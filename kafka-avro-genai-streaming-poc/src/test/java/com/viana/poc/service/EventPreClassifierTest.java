@@ -0,0 +1,105 @@
+package com.viana.poc.service;
+
+import com.viana.poc.genai.GenAiClient;
+import com.viana.poc.genai.GenAiRequest;
+import com.viana.poc.genai.GenAiResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+
+class EventPreClassifierTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GenAiClient genAiClient = Mockito.mock(GenAiClient.class);
+
+    private EventPreClassifier classifier(double shadowSampleRate) {
+        return new EventPreClassifier(genAiClient, true, 500, 2.0, 3, 3.0, shadowSampleRate, 1000, registry);
+    }
+
+    /** Gives the account the history a routine event needs. */
+    private static void warmUp(EventPreClassifier classifier, String account, double amount) {
+        for (int i = 0; i < 3; i++) {
+            assertThat(classifier.classify(new GenAiRequest(account, "CREDIT", amount, 1000))).isNull();
+        }
+    }
+
+    private double decisions(String route) {
+        return registry.counter("genai.preclassifier.decisions", "route", route).count();
+    }
+
+    private double shadow(String outcome) {
+        return registry.counter("genai.preclassifier.shadow", "outcome", outcome).count();
+    }
+
+    @Test
+    void answersRoutineEventsLocallyOnceTheAccountHasHistory() {
+        EventPreClassifier classifier = classifier(0);
+        warmUp(classifier, "ACC1", 100);
+
+        GenAiResponse local = classifier.classify(new GenAiRequest("ACC1", "DEBIT", 80, 900));
+
+        assertThat(local).isNotNull();
+        assertThat(local.getClassification()).isEqualTo("NORMAL");
+        assertThat(local.getRiskScore()).isEqualTo(10);
+        assertThat(local.getSummary()).contains("DEBIT", "80.00", "ACC1", "900.00");
+        assertThat(decisions("escalate")).isEqualTo(3);
+        assertThat(decisions("bypass")).isEqualTo(1);
+        Mockito.verifyNoInteractions(genAiClient);
+    }
+
+    @Test
+    void escalatesEventsThatBreakAnyRule() {
+        EventPreClassifier classifier = classifier(0);
+
+        warmUp(classifier, "BIG", 400);
+        assertThat(classifier.classify(new GenAiRequest("BIG", "CREDIT", 600, 5000))).isNull();
+
+        warmUp(classifier, "OVERDRAWN", 100);
+        assertThat(classifier.classify(new GenAiRequest("OVERDRAWN", "CREDIT", 50, -5))).isNull();
+
+        warmUp(classifier, "TIGHT", 100);
+        assertThat(classifier.classify(new GenAiRequest("TIGHT", "DEBIT", 100, 150))).isNull();
+        assertThat(classifier.classify(new GenAiRequest("TIGHT", "CREDIT", 100, 150))).isNotNull();
+
+        warmUp(classifier, "SPIKE", 50);
+        assertThat(classifier.classify(new GenAiRequest("SPIKE", "CREDIT", 200, 1000))).isNull();
+
+        warmUp(classifier, "FLAGGED", 100);
+        classifier.recordModelResponse(new GenAiRequest("FLAGGED", "CREDIT", 100, 1000),
+                new GenAiResponse("Odd", "ANOMALOUS", 80));
+        assertThat(classifier.classify(new GenAiRequest("FLAGGED", "CREDIT", 100, 1000))).isNull();
+        classifier.recordModelResponse(new GenAiRequest("FLAGGED", "CREDIT", 100, 1000),
+                new GenAiResponse("Fine", "NORMAL", 5));
+        assertThat(classifier.classify(new GenAiRequest("FLAGGED", "CREDIT", 100, 1000))).isNotNull();
+    }
+
+    @Test
+    void shadowsRoutineEventsPastTheCacheAndCountsAgreement() {
+        Mockito.when(genAiClient.summarizeEventFromModel(argThat(r -> r != null && r.getAccountId().equals("AGREE"))))
+                .thenReturn(Mono.just(new GenAiResponse("Fine", "NORMAL", 5)));
+        Mockito.when(genAiClient.summarizeEventFromModel(argThat(r -> r != null && r.getAccountId().equals("DISAGREE"))))
+                .thenReturn(Mono.just(new GenAiResponse("Odd", "ANOMALOUS", 80)));
+        Mockito.when(genAiClient.summarizeEventFromModel(argThat(r -> r != null && r.getAccountId().equals("UNKNOWN"))))
+                .thenReturn(Mono.just(new GenAiResponse("No idea", null, 0)));
+        EventPreClassifier classifier = classifier(1.0);
+
+        for (String account : new String[]{"AGREE", "DISAGREE", "UNKNOWN"}) {
+            warmUp(classifier, account, 100);
+            assertThat(classifier.classify(new GenAiRequest(account, "CREDIT", 100, 1000))).isNotNull();
+        }
+
+        assertThat(shadow("agree")).isEqualTo(1);
+        assertThat(shadow("disagree")).isEqualTo(1);
+        assertThat(shadow("unknown")).isEqualTo(1);
+        Mockito.verify(genAiClient, Mockito.never()).summarizeEvent(any());
+
+        // the model's ANOMALOUS answer sends the account's next event to the model
+        assertThat(classifier.classify(new GenAiRequest("DISAGREE", "CREDIT", 100, 1000))).isNull();
+        assertThat(classifier.classify(new GenAiRequest("AGREE", "CREDIT", 100, 1000))).isNotNull();
+    }
+}
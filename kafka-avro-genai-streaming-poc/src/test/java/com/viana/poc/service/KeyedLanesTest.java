@@ -0,0 +1,88 @@
+package com.viana.poc.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyedLanesTest {
+
+    private final List<String> log = new CopyOnWriteArrayList<>();
+
+    @Test
+    void runsEachKeyInOrderAndAcknowledgesEveryRecord() throws Exception {
+        KeyedLanes lanes = new KeyedLanes(8, 1, Duration.ZERO);
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        CountDownLatch settled = new CountDownLatch(4);
+
+        lanes.submit("A", () -> gate.thenRun(() -> log.add("A1")), ack("A1", settled), failed("A1", settled));
+        lanes.submit("A", () -> CompletableFuture.runAsync(() -> log.add("A2")), ack("A2", settled), failed("A2", settled));
+        lanes.submit("B", () -> CompletableFuture.runAsync(() -> log.add("B1")), ack("B1", settled), failed("B1", settled));
+        lanes.submit("A", () -> CompletableFuture.runAsync(() -> log.add("A3")), ack("A3", settled), failed("A3", settled));
+
+        // B is not held up by A's first record
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!log.contains("ack B1") && System.nanoTime() < deadline) Thread.sleep(5);
+        assertThat(log).containsExactly("B1", "ack B1");
+
+        gate.complete(null);
+        assertThat(settled.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(log.stream().filter(e -> e.startsWith("A")).toList()).containsExactly("A1", "A2", "A3");
+        assertThat(log).contains("ack A1", "ack A2", "ack A3");
+    }
+
+    @Test
+    void aFailedRecordIsRetriedThenHandedOverWithoutBlockingItsLane() throws Exception {
+        KeyedLanes lanes = new KeyedLanes(8, 3, Duration.ofMillis(1));
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch settled = new CountDownLatch(2);
+
+        lanes.submit("A", () -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("model down"));
+        }, ack("A1", settled), failed("A1", settled));
+        lanes.submit("A", () -> CompletableFuture.runAsync(() -> log.add("A2")), ack("A2", settled), failed("A2", settled));
+
+        assertThat(settled.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(attempts).hasValue(3);
+        assertThat(log).containsExactly("failed A1: model down", "A2", "ack A2");
+    }
+
+    @Test
+    void retriesUntilTheRecordSucceeds() throws Exception {
+        KeyedLanes lanes = new KeyedLanes(8, 3, Duration.ofMillis(1));
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch settled = new CountDownLatch(1);
+
+        lanes.submit("A", () -> attempts.incrementAndGet() == 1
+                        ? CompletableFuture.failedFuture(new IllegalStateException("timeout"))
+                        : CompletableFuture.completedFuture("ok"),
+                ack("A1", settled), failed("A1", settled));
+
+        assertThat(settled.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(attempts).hasValue(2);
+        assertThat(log).containsExactly("ack A1");
+    }
+
+    private Runnable ack(String record, CountDownLatch settled) {
+        return () -> {
+            log.add("ack " + record);
+            settled.countDown();
+        };
+    }
+
+    private Consumer<Throwable> failed(String record, CountDownLatch settled) {
+        return ex -> {
+            log.add("failed " + record + ": " + ex.getMessage());
+            settled.countDown();
+        };
+    }
+}